@@ -0,0 +1,213 @@
+package datastructures.concrete;
+
+import misc.exceptions.EmptyContainerException;
+
+/**
+ * A min-heap of integer ids in the range [0, capacity), each ordered by a double key.
+ *
+ * Unlike ArrayHeap, every id may be present at most once, and the key of an id already
+ * inside the heap can be lowered in place with decreaseKey. Ties between equal keys are
+ * broken by the smaller id, so the removal order is fully deterministic.
+ */
+public class IndexedMinHeap {
+    private static final int NUM_CHILDREN = 4;
+    private int[] heapIds;
+    private double[] heapKeys;
+    private int[] positions;
+    private int numElements;
+
+    public IndexedMinHeap(int capacity) {
+        heapIds = new int[capacity];
+        heapKeys = new double[capacity];
+        positions = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            positions[i] = -1;
+        }
+        numElements = 0;
+    }
+
+    // Returns the number of ids contained within this heap.
+    public int size() {
+        return this.numElements;
+    }
+
+    // Returns 'true' if this heap is empty, and false otherwise.
+    public boolean isEmpty() {
+        return this.numElements == 0;
+    }
+
+    // Returns the largest id (exclusive) this heap can hold.
+    public int capacity() {
+        return this.positions.length;
+    }
+
+    // Returns 'true' if the given id is currently inside the heap.
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    // Returns the current key of the given id.
+    // Throws IllegalArgumentException if the id is not inside the heap.
+    public double keyOf(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException();
+        }
+        return heapKeys[positions[id]];
+    }
+
+    // Returns, but does not remove, the id with the smallest key.
+    // Throws EmptyContainerException if the heap is empty.
+    public int peekMin() {
+        if (numElements == 0) {
+            throw new EmptyContainerException();
+        }
+        return heapIds[0];
+    }
+
+    // Returns the smallest key inside the heap.
+    // Throws EmptyContainerException if the heap is empty.
+    public double peekMinKey() {
+        if (numElements == 0) {
+            throw new EmptyContainerException();
+        }
+        return heapKeys[0];
+    }
+
+    // Removes and returns the id with the smallest key.
+    // Throws EmptyContainerException if the heap is empty.
+    public int removeMin() {
+        if (numElements == 0) {
+            throw new EmptyContainerException();
+        }
+
+        int oldRoot = heapIds[0];
+        positions[oldRoot] = -1;
+        numElements--;
+
+        if (numElements > 0) {
+            place(heapIds[numElements], heapKeys[numElements], 0);
+            percolateDown(0);
+        }
+        return oldRoot;
+    }
+
+    // Inserts the given id with the given key.
+    // Throws IllegalArgumentException if the id is already inside the heap.
+    public void insert(int id, double key) {
+        if (contains(id)) {
+            throw new IllegalArgumentException();
+        }
+        place(id, key, numElements);
+        numElements++;
+        percolateUp(numElements - 1);
+    }
+
+    // Lowers the key of an id already inside the heap. Keys that are not lower than the
+    // current one are ignored.
+    // Throws IllegalArgumentException if the id is not inside the heap.
+    public void decreaseKey(int id, double key) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException();
+        }
+        int index = positions[id];
+        if (key < heapKeys[index]) {
+            heapKeys[index] = key;
+            percolateUp(index);
+        }
+    }
+
+    // Inserts the id if it is absent, or lowers its key if it is present. Returns 'true'
+    // if the heap changed.
+    public boolean insertOrDecrease(int id, double key) {
+        if (!contains(id)) {
+            insert(id, key);
+            return true;
+        } else if (key < heapKeys[positions[id]]) {
+            decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    // Removes the given id from the heap, wherever it is.
+    // Throws IllegalArgumentException if the id is not inside the heap.
+    public void remove(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException();
+        }
+
+        int index = positions[id];
+        positions[id] = -1;
+        numElements--;
+
+        // Fill the hole with the last entry, which may belong either above or below it.
+        if (index < numElements) {
+            int moved = heapIds[numElements];
+            place(moved, heapKeys[numElements], index);
+            percolateUp(index);
+            percolateDown(positions[moved]);
+        }
+    }
+
+    // Removes every id from the heap, in time proportional to the number of ids removed.
+    public void clear() {
+        for (int i = 0; i < numElements; i++) {
+            positions[heapIds[i]] = -1;
+        }
+        numElements = 0;
+    }
+
+    // Moves the id and key to the given slot and records its new position.
+    private void place(int id, double key, int index) {
+        heapIds[index] = id;
+        heapKeys[index] = key;
+        positions[id] = index;
+    }
+
+    private void percolateUp(int index) {
+        int id = heapIds[index];
+        double key = heapKeys[index];
+
+        while (index > 0) {
+            int parent = (index - 1) / NUM_CHILDREN;
+            if (!less(key, id, heapKeys[parent], heapIds[parent])) {
+                break;
+            }
+            place(heapIds[parent], heapKeys[parent], index);
+            index = parent;
+        }
+        place(id, key, index);
+    }
+
+    private void percolateDown(int index) {
+        int id = heapIds[index];
+        double key = heapKeys[index];
+
+        while (true) {
+            int first = NUM_CHILDREN * index + 1;
+            if (first >= numElements) {
+                break;
+            }
+
+            int lowest = first;
+            int last = Math.min(first + NUM_CHILDREN, numElements);
+            for (int i = first + 1; i < last; i++) {
+                if (less(heapKeys[i], heapIds[i], heapKeys[lowest], heapIds[lowest])) {
+                    lowest = i;
+                }
+            }
+
+            if (!less(heapKeys[lowest], heapIds[lowest], key, id)) {
+                break;
+            }
+            place(heapIds[lowest], heapKeys[lowest], index);
+            index = lowest;
+        }
+        place(id, key, index);
+    }
+
+    // Returns true if (keyA, idA) should come before (keyB, idB).
+    private static boolean less(double keyA, int idA, double keyB, int idB) {
+        return keyA < keyB || (keyA == keyB && idA < idB);
+    }
+}
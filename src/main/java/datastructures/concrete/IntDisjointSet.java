@@ -0,0 +1,83 @@
+package datastructures.concrete;
+
+/**
+ * A disjoint set over the integers [0, size), where every integer starts in its own set.
+ *
+ * This is the primitive counterpart of ArrayDisjointSet: there is no item-to-index dictionary,
+ * so it is meant for callers that have already assigned dense ids to their items.
+ */
+public class IntDisjointSet {
+    private int[] pointers;
+    private int numSets;
+
+    public IntDisjointSet(int size) {
+        pointers = new int[size];
+        for (int i = 0; i < size; i++) {
+            pointers[i] = -1;
+        }
+        numSets = size;
+    }
+
+    // Returns the number of integers contained within this disjoint set.
+    public int size() {
+        return this.pointers.length;
+    }
+
+    // Returns the number of distinct sets remaining.
+    public int numSets() {
+        return this.numSets;
+    }
+
+    // Returns the representative of the set containing the given integer. Compresses the path
+    // walked so later lookups are cheaper.
+    // Throws IndexOutOfBoundsException if the integer is outside [0, size).
+    public int findSet(int item) {
+        int root = item;
+        while (pointers[root] >= 0) {
+            root = pointers[root];
+        }
+
+        while (item != root) {
+            int next = pointers[item];
+            pointers[item] = root;
+            item = next;
+        }
+        return root;
+    }
+
+    // Returns the same representative as findSet, but without compressing the path, so it
+    // writes nothing. Several threads may call it at once, as long as no thread is changing the
+    // disjoint set at the same time.
+    // Throws IndexOutOfBoundsException if the integer is outside [0, size).
+    public int findRoot(int item) {
+        while (pointers[item] >= 0) {
+            item = pointers[item];
+        }
+        return item;
+    }
+
+    // Merges the sets containing the two integers. Returns 'false' and does nothing if they
+    // were already in the same set.
+    public boolean union(int item1, int item2) {
+        int root1 = findSet(item1);
+        int root2 = findSet(item2);
+
+        if (root1 == root2) {
+            return false;
+        }
+
+        int rank1 = pointers[root1];
+        int rank2 = pointers[root2];
+
+        if (rank1 < rank2) {
+            pointers[root2] = root1;
+        } else if (rank2 < rank1) {
+            pointers[root1] = root2;
+        } else {
+            pointers[root2] = root1;
+            pointers[root1] = rank1 - 1;
+        }
+        numSets--;
+        return true;
+    }
+}
@@ -44,6 +44,18 @@ public class ArrayDictionary<K, V> implements IDictionary<K, V> {
         return pairs[keyIndex].value;
     }
     
+    //Pre: A key and a fallback value are passed in.
+    //Post: Returns the value paired with the key, or the fallback value if
+    //	    the key is not in the dictionary. Scans the array only once.
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        int keyIndex = findKeyIndex(key);
+        if (keyIndex == -1) {
+        	return defaultValue;
+        }
+        return pairs[keyIndex].value;
+    }
+    
     //Pre: a key and value is passed in to be placed in the array.
     //Post: If the array is full a new array of double size will be created,
     //		and the key value pairs in the previous array will be passed over.
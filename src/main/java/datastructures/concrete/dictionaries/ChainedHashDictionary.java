@@ -41,6 +41,19 @@ public class ChainedHashDictionary<K, V> implements IDictionary<K, V> {
     	}
     }
     
+    // Returns the value corresponding to the given key, or the default value if the dictionary
+    // does not contain the key. Only hashes the key and searches its chain once.
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+    	int hashedKey = hashing(key);
+    	
+    	if (chains[hashedKey] != null) {
+    		return chains[hashedKey].getOrDefault(key, defaultValue);
+    	} else {
+    		return defaultValue;
+    	}
+    }
+    
     // Adds the key-value pair to the dictionary. If the key already exists in the dictionary,
     // replace its value with the given one.
     @Override
@@ -0,0 +1,74 @@
+package mazes.entities;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.graphs.GraphGeometry;
+import misc.graphs.MappedGraph;
+
+import java.awt.Point;
+import java.awt.Polygon;
+
+/**
+ * Stores rooms and walls in a MappedGraph snapshot, and rebuilds them from one.
+ *
+ * A room is stored as its center and its polygon, and a wall as its dividing line; the weight of
+ * a wall is already part of the graph. Rooms and walls rebuilt from a snapshot are equal to the
+ * ones it was written from, so they can be mixed freely with rooms and walls built the usual way.
+ */
+public class RoomGeometry implements GraphGeometry<Room, Wall> {
+    @Override
+    public Point locationOf(Room room) {
+        return room.getCenter();
+    }
+
+    @Override
+    public Polygon outlineOf(Room room) {
+        return room.getPolygon();
+    }
+
+    @Override
+    public Point lineStartOf(Wall wall) {
+        return wall.getDividingLine().start;
+    }
+
+    @Override
+    public Point lineEndOf(Wall wall) {
+        return wall.getDividingLine().end;
+    }
+
+    /**
+     * Rebuilds the room with the given vertex id.
+     *
+     * @throws IllegalStateException  if the snapshot was written without geometry
+     */
+    public static Room roomAt(MappedGraph graph, int vertex) {
+        return new Room(graph.locationOf(vertex), graph.outlineOf(vertex));
+    }
+
+    /**
+     * Rebuilds the wall with the given edge id, along with the rooms on either side of it.
+     *
+     * @throws IllegalStateException  if the snapshot was written without geometry
+     */
+    public static Wall wallAt(MappedGraph graph, int edge) {
+        return new Wall(
+                roomAt(graph, graph.edgeSource(edge)),
+                roomAt(graph, graph.edgeTarget(edge)),
+                new LineSegment(graph.lineStartOf(edge), graph.lineEndOf(edge)),
+                graph.edgeWeight(edge));
+    }
+
+    /**
+     * Rebuilds the walls with the given edge ids, in order, such as a path returned by
+     * MappedGraph.findShortestPathBetween.
+     *
+     * @throws IllegalStateException  if the snapshot was written without geometry
+     */
+    public static IList<Wall> wallsAt(MappedGraph graph, int[] edges) {
+        IList<Wall> walls = new DoubleLinkedList<>();
+        for (int edge : edges) {
+            walls.add(wallAt(graph, edge));
+        }
+        return walls;
+    }
+}
@@ -0,0 +1,15 @@
+package mazes.generators.maze;
+
+import misc.graphs.MstAlgorithm;
+
+/**
+ * Carves out a maze based on Boruvka's algorithm, using every available core.
+ *
+ * The carved mazes are indistinguishable from the ones KruskalMazeCarver produces, but
+ * generating very large mazes scales with the number of cores.
+ */
+public class BoruvkaMazeCarver extends KruskalMazeCarver {
+    public BoruvkaMazeCarver() {
+        super(MstAlgorithm.PARALLEL_BORUVKA);
+    }
+}
@@ -2,33 +2,51 @@ package mazes.generators.maze;
 
 import java.util.Random;
 
-import datastructures.concrete.ChainedHashSet;
 import datastructures.interfaces.ISet;
 import mazes.entities.Maze;
 import mazes.entities.Room;
 import mazes.entities.Wall;
 import misc.graphs.Graph;
+import misc.graphs.MstAlgorithm;
 
 /**
  * Carves out a maze based on Kruskal's algorithm.
+ *
+ * The random weights are laid over the graph of the maze rather than written into its walls, so
+ * the base maze is never modified and any number of threads may carve it at the same time.
  */
 public class KruskalMazeCarver implements MazeCarver {
+    private MstAlgorithm algorithm;
+
+    public KruskalMazeCarver() {
+        this(MstAlgorithm.AUTOMATIC);
+    }
+
+    /**
+     * Carves the maze with the given minimum spanning tree algorithm instead. Every algorithm
+     * finds the same tree for the same random weights, so the mazes look exactly the same.
+     */
+    protected KruskalMazeCarver(MstAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
     @Override
     public ISet<Wall> returnWallsToRemove(Maze maze) {
-        Random rand = new Random();
-        ISet<Wall> wallsToRemove = new ChainedHashSet<Wall>();
-        
-        for (Wall wall : maze.getWalls()) {
-            wall.setDistance(rand.nextDouble());
-        }
-        
-        Graph<Room, Wall> graph = new Graph<Room, Wall>(maze.getRooms(), maze.getWalls());
-        wallsToRemove = graph.findMinimumSpanningTree();
-        
-        for (Wall wall : wallsToRemove) {
-            wall.resetDistanceToOriginal();
+        return returnWallsToRemove(new Graph<Room, Wall>(maze.getRooms(), maze.getWalls()), new Random());
+    }
+
+    /**
+     * Returns the walls to remove from the maze whose rooms and removable walls make up the
+     * given graph, picking them with the given source of randomness.
+     *
+     * The graph is only read, so a single graph can be built once and shared by every thread
+     * carving mazes from the same base maze.
+     */
+    public ISet<Wall> returnWallsToRemove(Graph<Room, Wall> baseGraph, Random rand) {
+        double[] weights = new double[baseGraph.numEdges()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = rand.nextDouble();
         }
-        
-        return wallsToRemove;
+        return baseGraph.withWeights(weights).findMinimumSpanningTree(this.algorithm);
     }
 }
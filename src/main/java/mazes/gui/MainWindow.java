@@ -5,6 +5,7 @@ import datastructures.interfaces.IDictionary;
 import mazes.generators.base.BaseMazeGenerator;
 import mazes.generators.base.GridGenerator;
 import mazes.generators.base.VoronoiGenerator;
+import mazes.generators.maze.BoruvkaMazeCarver;
 import mazes.generators.maze.KruskalMazeCarver;
 import mazes.generators.maze.MazeCarver;
 import mazes.generators.maze.RandomMazeCarver;
@@ -64,6 +65,9 @@ public class MainWindow extends JFrame {
         baseCarvers.put(
                 "Run (randomized) Kruskal",
                 new KruskalMazeCarver());
+        baseCarvers.put(
+                "Run (randomized) Boruvka, in parallel",
+                new BoruvkaMazeCarver());
 
         // This actually launches the window itself and starts the program.
         EventQueue.invokeLater(() -> {
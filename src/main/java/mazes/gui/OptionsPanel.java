@@ -12,6 +12,7 @@ import mazes.generators.base.BaseMazeGenerator;
 import mazes.generators.maze.MazeCarver;
 import misc.exceptions.NoPathExistsException;
 import misc.graphs.Graph;
+import misc.graphs.ShortestPathCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -19,6 +20,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ItemEvent;
 
 public class OptionsPanel extends JPanel {
+    private static final int PATH_CACHE_SIZE = 4;
+
     private ImageDrawer drawer;
     private IDictionary<String, BaseMazeGenerator> baseGenerators;
     private IDictionary<String, MazeCarver> baseCarvers;
@@ -32,6 +35,10 @@ public class OptionsPanel extends JPanel {
     private Room start;
     private Room end;
 
+    // Keeps the shortest paths found in the current maze, so asking for the same path again
+    // does not search the maze a second time.
+    private ShortestPathCache<Room, Wall> pathCache = new ShortestPathCache<>(PATH_CACHE_SIZE);
+
     public OptionsPanel(ImageDrawer drawer, 
                         IDictionary<String, BaseMazeGenerator> baseGenerators, 
                         IDictionary<String, MazeCarver> baseCarvers) {
@@ -114,17 +121,18 @@ public class OptionsPanel extends JPanel {
         this.start = this.currentMaze.getRoom(new Point(bound.x + 5, bound.y + 5));
         this.end = this.currentMaze.getRoom(new Point(bound.x + bound.width - 5, bound.y + bound.height - 5));
 
+        this.pathCache.setGraph(new Graph<>(
+                this.originalMaze.getRooms(),
+                this.subtract(this.originalMaze.getWalls(), this.currentMaze.getWalls())));
+
         this.drawer.drawMaze(this.currentMaze);
         drawer.drawPoint(start.getCenter());
         drawer.drawPoint(end.getCenter());
     }
 
     private void drawShortestPath(ActionEvent event) {
-        Graph<Room, Wall> graph = new Graph<>(
-                this.originalMaze.getRooms(),
-                this.subtract(this.originalMaze.getWalls(), this.currentMaze.getWalls()));
         try {
-            IList<Wall> path = graph.findShortestPathBetween(this.start, this.end);
+            IList<Wall> path = this.pathCache.findShortestPathBetween(this.start, this.end);
             this.drawer.drawPath(path);
         } catch (NoPathExistsException ex) {
             JOptionPane.showMessageDialog(
@@ -0,0 +1,321 @@
+package mazes.solvers;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import mazes.entities.Room;
+import mazes.entities.Wall;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+import misc.graphs.SearchContext;
+
+import java.util.Arrays;
+
+/**
+ * Finds shortest paths through mazes built on top of GridGenerator much faster than a general
+ * graph search, using jump point search.
+ *
+ * In such a maze, the rooms' centers line up in rows and columns, and every wall joins a room to
+ * the room right next to it. Stepping between two given columns costs the same in every row, and
+ * stepping between two given rows costs the same in every column, so many shortest paths tie:
+ * any two consecutive steps, one horizontal and one vertical, can usually be swapped. This
+ * solver only ever considers the paths that take their vertical steps as early as possible.
+ *
+ * Along such a path, a horizontal run only turns at a room where the swap was impossible (a
+ * 'forced' turn), and a vertical run only turns where a horizontal run can lead somewhere. The
+ * search therefore 'jumps' along whole straight runs at a time, scanning the rooms in between
+ * without ever putting them in the heap, and only stops at the rooms where the path may turn.
+ */
+public class GridJumpPointSearch {
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int SOUTH = 2;
+    private static final int WEST = 3;
+
+    private CompactGraph<Room, Wall> compact;
+    private int numRows;
+    private int numColumns;
+
+    // Cells are numbered row by row, as laid out by 'layout'.
+    private GridLayout layout;
+
+    // The edge from every cell to the cell east of it and to the cell south of it, or -1 if
+    // there is none. Parallel edges all weigh the same, so any one of them will do.
+    private int[] eastEdge;
+    private int[] southEdge;
+
+    // The cost of reaching every column from the first one, and every row from the first one.
+    private double[] columnPosition;
+    private double[] rowPosition;
+
+    // Scratch space for searches over (cell, direction) states, one per querying thread. The
+    // predecessorEdge of a state holds the state it was reached from, rather than an edge.
+    private ThreadLocal<SearchContext> states;
+
+    // Recognizes the grid the graph's rooms form.
+    // @throws IllegalArgumentException  if the rooms are not laid out in a full grid, if some
+    //                                   edge does not join two adjacent rooms, or if stepping
+    //                                   between the same two rows or columns does not always
+    //                                   cost the same
+    public GridJumpPointSearch(Graph<Room, Wall> graph) {
+        this.compact = graph.getCompactGraph();
+        this.layout = new GridLayout(compact);
+        this.numColumns = layout.numColumns();
+        this.numRows = layout.numRows();
+        int numCells = compact.numVertices();
+
+        this.eastEdge = new int[numCells];
+        this.southEdge = new int[numCells];
+        Arrays.fill(eastEdge, -1);
+        Arrays.fill(southEdge, -1);
+        double[] columnCost = new double[Math.max(numColumns - 1, 0)];
+        double[] rowCost = new double[Math.max(numRows - 1, 0)];
+        Arrays.fill(columnCost, Double.NaN);
+        Arrays.fill(rowCost, Double.NaN);
+
+        for (int edge = 0; edge < compact.numEdges(); edge++) {
+            Wall wall = compact.edgeAt(edge);
+            // Looked up by coordinates rather than by hashing the rooms, which is much faster.
+            int a = layout.cellAt(wall.getRoom1());
+            int b = layout.cellAt(wall.getRoom2());
+            if (a == b) {
+                continue;
+            }
+            int low = Math.min(a, b);
+            int high = Math.max(a, b);
+            if (high == low + 1 && high % numColumns != 0) {
+                checkCost(columnCost, low % numColumns, compact.weightOf(edge));
+                if (eastEdge[low] == -1) {
+                    eastEdge[low] = edge;
+                }
+            } else if (high == low + numColumns) {
+                checkCost(rowCost, low / numColumns, compact.weightOf(edge));
+                if (southEdge[low] == -1) {
+                    southEdge[low] = edge;
+                }
+            } else {
+                throw new IllegalArgumentException("The edge " + wall + " does not join adjacent rooms");
+            }
+        }
+
+        this.columnPosition = positions(columnCost);
+        this.rowPosition = positions(rowCost);
+        this.states = ThreadLocal.withInitial(() -> new SearchContext(4 * numCells));
+    }
+
+    // Records the cost of stepping across the given gap between rows or columns, which must be
+    // the same for every edge crossing it.
+    private static void checkCost(double[] costs, int gap, double weight) {
+        if (Double.isNaN(costs[gap])) {
+            costs[gap] = weight;
+        } else if (costs[gap] != weight) {
+            throw new IllegalArgumentException("Edges across the same gap have different weights");
+        }
+    }
+
+    // Returns the running sums of the gap costs. Gaps no edge crosses cost nothing, which keeps
+    // the positions a lower bound on the true cost.
+    private static double[] positions(double[] gapCosts) {
+        double[] positions = new double[gapCosts.length + 1];
+        for (int i = 0; i < gapCosts.length; i++) {
+            positions[i + 1] = positions[i] + (Double.isNaN(gapCosts[i]) ? 0.0 : gapCosts[i]);
+        }
+        return positions;
+    }
+
+    // Returns a shortest path of the same cost as the one Graph.findShortestPathBetween returns.
+    // Where several paths tie, it is the one taking its vertical steps as early as possible, which
+    // need not be Graph's. Returns an empty list if the start and end rooms are the same.
+    // @throws IllegalArgumentException  if either room is not a part of the graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<Wall> findShortestPathBetween(Room start, Room end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+
+        if (compact.checkEndpoints(startId, endId)) {
+            return new DoubleLinkedList<>();
+        }
+
+        SearchContext state = states.get();
+        int startCell = layout.cellOf(startId);
+        int goalCell = layout.cellOf(endId);
+        int goalState = search(state, startCell, goalCell);
+        if (goalState == -1) {
+            throw new NoPathExistsException();
+        }
+        return buildPath(state, startCell, goalState);
+    }
+
+    // Runs A* over (cell, direction of arrival) pairs, and returns the first pair reached at the
+    // goal, or -1 if there is none. Keeping the direction as part of the state means a cell
+    // reached from two directions at the same cost keeps both sets of successors.
+    private int search(SearchContext state, int startCell, int goalCell) {
+        state.reset();
+        for (int direction = NORTH; direction <= WEST; direction++) {
+            relax(state, -1, startCell, 0.0, direction, goalCell);
+        }
+
+        while (!state.heap.isEmpty()) {
+            int current = state.heap.removeMin();
+            int cell = current / 4;
+            int arrival = current % 4;
+            if (cell == goalCell) {
+                return current;
+            }
+
+            double cost = state.cost[current];
+            relax(state, current, cell, cost, arrival, goalCell);
+            if (isVertical(arrival)) {
+                relax(state, current, cell, cost, EAST, goalCell);
+                relax(state, current, cell, cost, WEST, goalCell);
+            } else {
+                int behind = step(cell, opposite(arrival));
+                for (int turn = NORTH; turn <= SOUTH; turn += 2) {
+                    if (isForcedTurn(behind, cell, arrival, turn)) {
+                        relax(state, current, cell, cost, turn, goalCell);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Jumps from the cell in the given direction, and records the jump point it lands on, if any.
+    private void relax(SearchContext state, int from, int cell, double cost, int direction, int goalCell) {
+        int target = isVertical(direction)
+                ? jumpVertically(cell, direction, goalCell)
+                : jumpHorizontally(cell, direction, goalCell);
+        if (target == -1) {
+            return;
+        }
+
+        int next = target * 4 + direction;
+        double newCost = cost + distance(cell, target);
+        state.reach(next);
+        if (newCost < state.cost[next]) {
+            state.cost[next] = newCost;
+            state.predecessorEdge[next] = from;
+            state.heap.insertOrDecrease(next, newCost + distance(target, goalCell));
+        }
+    }
+
+    // Walks east or west until reaching the goal or a cell with a forced turn, and returns that
+    // cell, or -1 if a wall comes first.
+    private int jumpHorizontally(int cell, int direction, int goalCell) {
+        while (isOpen(cell, direction)) {
+            int next = step(cell, direction);
+            if (next == goalCell
+                    || isForcedTurn(cell, next, direction, NORTH)
+                    || isForcedTurn(cell, next, direction, SOUTH)) {
+                return next;
+            }
+            cell = next;
+        }
+        return -1;
+    }
+
+    // Walks north or south until reaching the goal or a cell from which a horizontal jump lands
+    // somewhere, and returns that cell, or -1 if a wall comes first.
+    private int jumpVertically(int cell, int direction, int goalCell) {
+        while (isOpen(cell, direction)) {
+            int next = step(cell, direction);
+            if (next == goalCell
+                    || jumpHorizontally(next, EAST, goalCell) != -1
+                    || jumpHorizontally(next, WEST, goalCell) != -1) {
+                return next;
+            }
+            cell = next;
+        }
+        return -1;
+    }
+
+    // Having stepped horizontally from 'behind' to 'cell', returns 'true' if the path must be
+    // allowed to turn north or south here: the turn is open, but the same two steps taken in the
+    // preferred order, vertical first, are not.
+    private boolean isForcedTurn(int behind, int cell, int direction, int turn) {
+        if (!isOpen(cell, turn)) {
+            return false;
+        }
+        return !isOpen(behind, turn) || !isOpen(step(behind, turn), direction);
+    }
+
+    private boolean isOpen(int cell, int direction) {
+        switch (direction) {
+            case NORTH:
+                return cell >= numColumns && southEdge[cell - numColumns] != -1;
+            case EAST:
+                return eastEdge[cell] != -1;
+            case SOUTH:
+                return southEdge[cell] != -1;
+            default:
+                return cell % numColumns != 0 && eastEdge[cell - 1] != -1;
+        }
+    }
+
+    // Returns the edge leading from the cell in the given direction. The edge must exist.
+    private int edgeToward(int cell, int direction) {
+        switch (direction) {
+            case NORTH:
+                return southEdge[cell - numColumns];
+            case EAST:
+                return eastEdge[cell];
+            case SOUTH:
+                return southEdge[cell];
+            default:
+                return eastEdge[cell - 1];
+        }
+    }
+
+    private int step(int cell, int direction) {
+        switch (direction) {
+            case NORTH:
+                return cell - numColumns;
+            case EAST:
+                return cell + 1;
+            case SOUTH:
+                return cell + numColumns;
+            default:
+                return cell - 1;
+        }
+    }
+
+    private static int opposite(int direction) {
+        return (direction + 2) % 4;
+    }
+
+    private static boolean isVertical(int direction) {
+        return direction == NORTH || direction == SOUTH;
+    }
+
+    // Returns the cost of the cheapest conceivable path between the two cells, which is exactly
+    // the cost of a straight run between them.
+    private double distance(int a, int b) {
+        return Math.abs(columnPosition[a % numColumns] - columnPosition[b % numColumns])
+                + Math.abs(rowPosition[a / numColumns] - rowPosition[b / numColumns]);
+    }
+
+    // Walks the jump points back from the goal, and expands every jump into the walls it
+    // crosses.
+    private IList<Wall> buildPath(SearchContext state, int startCell, int goalState) {
+        int[] jumps = new int[16];
+        int numJumps = 0;
+        for (int current = goalState; current != -1; current = state.predecessorEdge[current]) {
+            if (numJumps == jumps.length) {
+                jumps = Arrays.copyOf(jumps, 2 * numJumps);
+            }
+            jumps[numJumps++] = current;
+        }
+
+        IList<Wall> path = new DoubleLinkedList<>();
+        int cell = startCell;
+        for (int i = numJumps - 1; i >= 0; i--) {
+            int target = jumps[i] / 4;
+            int direction = jumps[i] % 4;
+            while (cell != target) {
+                path.add(compact.edgeAt(edgeToward(cell, direction)));
+                cell = step(cell, direction);
+            }
+        }
+        return path;
+    }
+}
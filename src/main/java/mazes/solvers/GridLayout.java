@@ -0,0 +1,84 @@
+package mazes.solvers;
+
+import mazes.entities.Room;
+import mazes.entities.Wall;
+import misc.graphs.CompactGraph;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Recognizes the rows and columns the rooms of a maze built on top of GridGenerator line up in,
+ * and numbers the cells of that grid row by row.
+ *
+ * A room's row and column are found by binary searching the distinct y and x coordinates of the
+ * rooms' centers, which is much faster than hashing the rooms.
+ */
+final class GridLayout {
+    private int[] rows;
+    private int[] columns;
+
+    // Maps the graph's vertex ids to cells.
+    private int[] cellOf;
+
+    // Recognizes the grid the graph's rooms form.
+    // @throws IllegalArgumentException  if the rooms are not laid out in a full grid
+    GridLayout(CompactGraph<Room, Wall> compact) {
+        int numVertices = compact.numVertices();
+        int[] xs = new int[numVertices];
+        int[] ys = new int[numVertices];
+        for (int id = 0; id < numVertices; id++) {
+            xs[id] = compact.vertexAt(id).getCenter().x;
+            ys[id] = compact.vertexAt(id).getCenter().y;
+        }
+        this.columns = distinctSorted(xs);
+        this.rows = distinctSorted(ys);
+        if ((long) rows.length * columns.length != numVertices) {
+            throw new IllegalArgumentException("The rooms do not form a full grid");
+        }
+
+        this.cellOf = new int[numVertices];
+        boolean[] taken = new boolean[numVertices];
+        for (int id = 0; id < numVertices; id++) {
+            int cell = cellAt(compact.vertexAt(id));
+            if (taken[cell]) {
+                throw new IllegalArgumentException("Two rooms share the same center");
+            }
+            taken[cell] = true;
+            cellOf[id] = cell;
+        }
+    }
+
+    int numRows() {
+        return rows.length;
+    }
+
+    int numColumns() {
+        return columns.length;
+    }
+
+    // Returns the cell of the room with the given vertex id.
+    int cellOf(int vertexId) {
+        return cellOf[vertexId];
+    }
+
+    // Returns the cell the room's center falls on, or -1 if it is not on the grid.
+    int cellAt(Room room) {
+        Point center = room.getCenter();
+        int row = Arrays.binarySearch(rows, center.y);
+        int column = Arrays.binarySearch(columns, center.x);
+        return row < 0 || column < 0 ? -1 : row * columns.length + column;
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
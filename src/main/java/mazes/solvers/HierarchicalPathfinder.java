@@ -0,0 +1,378 @@
+package mazes.solvers;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import mazes.entities.Room;
+import mazes.entities.Wall;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.EdgeSlots;
+import misc.graphs.Graph;
+import misc.graphs.SearchContext;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Finds shortest paths through large mazes by first planning across a coarse map of the maze,
+ * and then filling in the details locally (hierarchical pathfinding, or HPA*).
+ *
+ * The maze is cut into rectangular clusters by the position of the rooms' centers. A room with
+ * a passage into another cluster is an 'entrance', and every cluster stores the cost of the
+ * shortest path between each two of its entrances that stays inside the cluster. Together with
+ * the passages between clusters, these costs form the abstract graph: it only holds the
+ * entrances, and a cluster's entrances are all directly connected to each other.
+ *
+ * A query searches locally from the start to the entrances of its cluster, and from the end to
+ * the entrances of its own, then runs Dijkstra over the abstract graph between them. Only the
+ * winning route is then refined into walls, one local search per cluster it crosses. Every room
+ * with a passage leaving its cluster counts as an entrance, so the paths found are exact
+ * shortest paths rather than approximations; perfect mazes have few such passages anyway.
+ *
+ * Opening or closing a passage only recomputes the clusters of the rooms it joins.
+ *
+ * This class is not thread-safe.
+ */
+public class HierarchicalPathfinder {
+    private CompactGraph<Room, Wall> compact;
+
+    // The cluster of every room, and the rooms of every cluster.
+    private int numClusters;
+    private int[] clusterOf;
+    private int[][] members;
+
+    // The entrances of every cluster, and the cost between each two of them, stored row by row
+    // in a square matrix; infinity if they are not connected inside the cluster. entranceIndex
+    // maps every room to its position in its cluster's list, or -1 if it is not an entrance.
+    private int[][] entrances;
+    private double[][] entranceCosts;
+    private int[] entranceIndex;
+
+    // The open passages, between rooms numbered as in the compact graph.
+    private EdgeSlots<Wall> passages;
+
+    // Local searches from the start and from the end, the search over the abstract graph, and
+    // the searches refining its route. overviewPrevious holds the room every room reached by
+    // the abstract search was reached from, or -1 for the entrances it started at.
+    private SearchContext fromStart;
+    private SearchContext fromEnd;
+    private SearchContext overview;
+    private SearchContext refinement;
+    private int[] overviewPrevious;
+
+    // Cuts the maze into clusters of the given size, in pixels, and computes the costs between
+    // their entrances. The rooms of the maze are fixed, but its passages can be changed later.
+    // @throws IllegalArgumentException  if either size is not positive
+    public HierarchicalPathfinder(Graph<Room, Wall> maze, int clusterWidth, int clusterHeight) {
+        if (clusterWidth <= 0 || clusterHeight <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.compact = maze.getCompactGraph();
+        int numRooms = compact.numVertices();
+
+        assignClusters(clusterWidth, clusterHeight);
+
+        this.passages = new EdgeSlots<>(numRooms, compact.numEdges());
+        for (int edge = 0; edge < compact.numEdges(); edge++) {
+            Wall wall = compact.edgeAt(edge);
+            passages.add(wall, compact.idOf(wall.getRoom1()), compact.idOf(wall.getRoom2()), compact.weightOf(edge));
+        }
+
+        this.fromStart = new SearchContext(numRooms);
+        this.fromEnd = new SearchContext(numRooms);
+        this.overview = new SearchContext(numRooms);
+        this.refinement = new SearchContext(numRooms);
+        this.overviewPrevious = new int[numRooms];
+
+        this.entrances = new int[numClusters][];
+        this.entranceCosts = new double[numClusters][];
+        this.entranceIndex = new int[numRooms];
+        Arrays.fill(entranceIndex, -1);
+        for (int cluster = 0; cluster < numClusters; cluster++) {
+            buildCluster(cluster);
+        }
+    }
+
+    // Numbers the clusters row by row over the bounding box of the rooms' centers, and files
+    // every room under the cluster its center falls in. Clusters without rooms are dropped.
+    private void assignClusters(int clusterWidth, int clusterHeight) {
+        int numRooms = compact.numVertices();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        for (int room = 0; room < numRooms; room++) {
+            Point center = compact.vertexAt(room).getCenter();
+            minX = Math.min(minX, center.x);
+            minY = Math.min(minY, center.y);
+            maxX = Math.max(maxX, center.x);
+        }
+        long clustersPerRow = numRooms == 0 ? 1 : ((long) maxX - minX) / clusterWidth + 1;
+
+        // Cells of the cluster grid are renumbered densely in order of their first room.
+        IDictionary<Long, Integer> clusterIds = new ChainedHashDictionary<>();
+        this.clusterOf = new int[numRooms];
+        int[] sizes = new int[Math.max(numRooms, 1)];
+        for (int room = 0; room < numRooms; room++) {
+            Point center = compact.vertexAt(room).getCenter();
+            long cell = (((long) center.y - minY) / clusterHeight) * clustersPerRow
+                    + ((long) center.x - minX) / clusterWidth;
+            Integer cluster = clusterIds.getOrDefault(cell, null);
+            if (cluster == null) {
+                cluster = clusterIds.size();
+                clusterIds.put(cell, cluster);
+            }
+            clusterOf[room] = cluster;
+            sizes[cluster]++;
+        }
+
+        this.numClusters = clusterIds.size();
+        this.members = new int[numClusters][];
+        for (int cluster = 0; cluster < numClusters; cluster++) {
+            members[cluster] = new int[sizes[cluster]];
+            sizes[cluster] = 0;
+        }
+        for (int room = 0; room < numRooms; room++) {
+            int cluster = clusterOf[room];
+            members[cluster][sizes[cluster]++] = room;
+        }
+    }
+
+    // Returns the number of clusters holding at least one room.
+    public int numClusters() {
+        return this.numClusters;
+    }
+
+    // Returns the number of rooms with a passage leaving their cluster, which is the number of
+    // vertices of the abstract graph.
+    public int numEntrances() {
+        int count = 0;
+        for (int[] clusterEntrances : entrances) {
+            count += clusterEntrances.length;
+        }
+        return count;
+    }
+
+    // Opens a passage through the given wall, and recomputes the clusters of its two rooms.
+    // @throws IllegalArgumentException  if the wall has a negative weight, or is already open
+    // @throws IllegalArgumentException  if either room is not a part of the maze
+    public void openPassage(Wall wall) {
+        if (wall == null || !(wall.getWeight() >= 0) || passages.contains(wall)) {
+            throw new IllegalArgumentException();
+        }
+        int room1 = compact.idOf(wall.getRoom1());
+        int room2 = compact.idOf(wall.getRoom2());
+        refreshClusters(passages.add(wall, room1, room2, wall.getWeight()));
+    }
+
+    // Closes the passage through the given wall, and recomputes the clusters of its two rooms.
+    // @throws NoSuchElementException  if the passage is not open
+    public void closePassage(Wall wall) {
+        refreshClusters(passages.remove(wall));
+    }
+
+    // Returns 'true' if there is an open passage through the given wall.
+    public boolean isOpen(Wall wall) {
+        return passages.contains(wall);
+    }
+
+    private void refreshClusters(int slot) {
+        int cluster1 = clusterOf[passages.sourceOf(slot)];
+        int cluster2 = clusterOf[passages.targetOf(slot)];
+        buildCluster(cluster1);
+        if (cluster2 != cluster1) {
+            buildCluster(cluster2);
+        }
+    }
+
+    // Finds the entrances of the cluster, and the costs between each two of them, with one local
+    // search per entrance.
+    private void buildCluster(int cluster) {
+        if (entrances[cluster] != null) {
+            for (int room : entrances[cluster]) {
+                entranceIndex[room] = -1;
+            }
+        }
+
+        int count = 0;
+        int[] found = new int[members[cluster].length];
+        for (int room : members[cluster]) {
+            for (int i = 0; i < passages.degree(room); i++) {
+                if (clusterOf[passages.otherEndpoint(passages.incidentSlot(room, i), room)] != cluster) {
+                    entranceIndex[room] = count;
+                    found[count++] = room;
+                    break;
+                }
+            }
+        }
+        int[] clusterEntrances = Arrays.copyOf(found, count);
+
+        double[] costs = new double[count * count];
+        for (int i = 0; i < count; i++) {
+            searchCluster(refinement, clusterEntrances[i], -1);
+            for (int j = 0; j < count; j++) {
+                costs[i * count + j] = refinement.costOf(clusterEntrances[j]);
+            }
+        }
+        entrances[cluster] = clusterEntrances;
+        entranceCosts[cluster] = costs;
+    }
+
+    // Runs Dijkstra from the source without leaving its cluster, stopping once the target is
+    // settled, or settling the whole reachable part of the cluster if the target is -1.
+    private void searchCluster(SearchContext state, int source, int target) {
+        int cluster = clusterOf[source];
+        state.reset();
+        state.reach(source);
+        state.cost[source] = 0.0;
+        state.heap.insert(source, 0.0);
+        while (!state.heap.isEmpty()) {
+            int room = state.heap.removeMin();
+            if (room == target) {
+                return;
+            }
+            for (int i = 0; i < passages.degree(room); i++) {
+                int slot = passages.incidentSlot(room, i);
+                int other = passages.otherEndpoint(slot, room);
+                if (clusterOf[other] != cluster) {
+                    continue;
+                }
+                double newCost = state.cost[room] + passages.weightOf(slot);
+                state.reach(other);
+                if (newCost < state.cost[other]) {
+                    state.cost[other] = newCost;
+                    state.predecessorEdge[other] = slot;
+                    state.heap.insertOrDecrease(other, newCost);
+                }
+            }
+        }
+    }
+
+    // Returns a shortest path through the currently open passages, of the same cost as the one
+    // Graph.findShortestPathBetween would return on a graph of them. Where several paths tie,
+    // the route across the clusters may differ. Returns an empty list if the start and end rooms
+    // are the same.
+    // @throws IllegalArgumentException  if either room is not a part of the maze
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<Wall> findShortestPathBetween(Room start, Room end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+        if (passages.degree(startId) == 0 || passages.degree(endId) == 0) {
+            throw new NoPathExistsException();
+        }
+        if (startId == endId) {
+            return new DoubleLinkedList<>();
+        }
+
+        searchCluster(fromStart, startId, -1);
+        searchCluster(fromEnd, endId, -1);
+
+        // Staying inside the cluster may already be the best way, if both rooms share one.
+        double best = fromStart.costOf(endId);
+        int bestExit = -1;
+
+        int endCluster = clusterOf[endId];
+        overview.reset();
+        for (int room : entrances[clusterOf[startId]]) {
+            double cost = fromStart.costOf(room);
+            if (cost < Double.POSITIVE_INFINITY) {
+                overview.reach(room);
+                overview.cost[room] = cost;
+                overviewPrevious[room] = -1;
+                overview.heap.insert(room, cost);
+            }
+        }
+
+        while (!overview.heap.isEmpty() && overview.heap.peekMinKey() < best) {
+            int room = overview.heap.removeMin();
+            double cost = overview.cost[room];
+            int cluster = clusterOf[room];
+            if (cluster == endCluster && cost + fromEnd.costOf(room) < best) {
+                best = cost + fromEnd.costOf(room);
+                bestExit = room;
+            }
+
+            // Across the passages leaving the cluster...
+            for (int i = 0; i < passages.degree(room); i++) {
+                int slot = passages.incidentSlot(room, i);
+                int other = passages.otherEndpoint(slot, room);
+                if (clusterOf[other] != cluster) {
+                    relax(room, other, cost + passages.weightOf(slot), slot);
+                }
+            }
+
+            // ...and to the cluster's other entrances.
+            int[] clusterEntrances = entrances[cluster];
+            double[] costs = entranceCosts[cluster];
+            int row = entranceIndex[room] * clusterEntrances.length;
+            for (int j = 0; j < clusterEntrances.length; j++) {
+                if (costs[row + j] < Double.POSITIVE_INFINITY) {
+                    relax(room, clusterEntrances[j], cost + costs[row + j], -1);
+                }
+            }
+        }
+
+        if (best == Double.POSITIVE_INFINITY) {
+            throw new NoPathExistsException();
+        }
+        return bestExit == -1 ? localPath(fromStart, startId, endId) : refine(startId, endId, bestExit);
+    }
+
+    // Offers a cheaper route to 'other' in the abstract search, through the given passage, or
+    // through the inside of the cluster if the slot is -1.
+    private void relax(int room, int other, double newCost, int slot) {
+        overview.reach(other);
+        if (newCost < overview.cost[other]) {
+            overview.cost[other] = newCost;
+            overview.predecessorEdge[other] = slot;
+            overviewPrevious[other] = room;
+            overview.heap.insertOrDecrease(other, newCost);
+        }
+    }
+
+    // Turns the abstract route ending at 'exit' into walls: the local path from the start to the
+    // first entrance, then for every step either the passage it took or the local path between
+    // two entrances, and finally the local path from the exit to the end.
+    private IList<Wall> refine(int startId, int endId, int exit) {
+        IList<Wall> path = new DoubleLinkedList<>();
+
+        // Walked backward from the exit, so every piece is inserted at the front.
+        int room = exit;
+        while (overviewPrevious[room] != -1) {
+            int previous = overviewPrevious[room];
+            int slot = overview.predecessorEdge[room];
+            if (slot != -1) {
+                path.insert(0, passages.edgeAt(slot));
+            } else {
+                searchCluster(refinement, previous, room);
+                prependLocalPath(path, refinement, previous, room);
+            }
+            room = previous;
+        }
+        prependLocalPath(path, fromStart, startId, room);
+
+        // The search from the end leads back toward the end, so it is walked forward.
+        for (int current = exit; current != endId; ) {
+            int slot = fromEnd.predecessorEdge[current];
+            path.add(passages.edgeAt(slot));
+            current = passages.otherEndpoint(slot, current);
+        }
+        return path;
+    }
+
+    private IList<Wall> localPath(SearchContext state, int source, int target) {
+        IList<Wall> path = new DoubleLinkedList<>();
+        prependLocalPath(path, state, source, target);
+        return path;
+    }
+
+    // Inserts the path the local search from 'source' took to 'target' at the front of the list.
+    private void prependLocalPath(IList<Wall> path, SearchContext state, int source, int target) {
+        for (int room = target; room != source; ) {
+            int slot = state.predecessorEdge[room];
+            path.insert(0, passages.edgeAt(slot));
+            room = passages.otherEndpoint(slot, room);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package mazes.solvers;
+
+import mazes.entities.Room;
+import mazes.entities.Wall;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+
+import java.util.Arrays;
+
+/**
+ * A grid maze stored as bitmaps of open passages, which answers reachability and hop distance
+ * questions 64 cells at a time.
+ *
+ * Every row of the grid is packed into longs, one bit per cell. 'east' has the bit of a cell set
+ * when there is a passage to the cell right of it, and 'south' when there is one to the cell
+ * below it. Moving a whole word of cells sideways through open passages is then a shift and an
+ * AND, and moving it up or down is a single AND, so a grid of 10,000 by 10,000 rooms takes about
+ * 25 MB and a search over it mostly streams through memory.
+ *
+ * Flood fills spread sideways along a whole row at once: within a word, the reached cells are
+ * smeared through runs of open passages in six shift-and-mask steps (a Kogge-Stone fill), and
+ * carried on into the next word where the run continues. Breadth-first searches have to move one
+ * step per level instead, but only touch the words their frontier occupies.
+ *
+ * Queries never modify the maze, so several threads may query it at once, as long as none of
+ * them opens or closes passages at the same time.
+ */
+public class PackedGridMaze {
+    private int numRows;
+    private int numColumns;
+    private int wordsPerRow;
+
+    private long[] east;
+    private long[] south;
+
+    // How the rooms of the graph this maze was built from map to cells, or null if it was not.
+    private GridLayout layout;
+
+    // Constructs a maze with the given number of rows and columns, and no open passages.
+    // @throws IllegalArgumentException  if either is not positive
+    public PackedGridMaze(int numRows, int numColumns) {
+        if (numRows <= 0 || numColumns <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.wordsPerRow = (numColumns + 63) >>> 6;
+        this.east = new long[numRows * wordsPerRow];
+        this.south = new long[numRows * wordsPerRow];
+    }
+
+    // Constructs the maze whose passages are the edges of the given graph, which must be a maze
+    // built on top of GridGenerator, such as the graph of the walls a MazeCarver removed. The
+    // weights of the edges are ignored.
+    // @throws IllegalArgumentException  if the rooms are not laid out in a full grid, or if some
+    //                                   edge does not join two adjacent rooms
+    public PackedGridMaze(Graph<Room, Wall> passages) {
+        this(new GridLayout(passages.getCompactGraph()), passages.getCompactGraph());
+    }
+
+    private PackedGridMaze(GridLayout layout, CompactGraph<Room, Wall> compact) {
+        this(layout.numRows(), layout.numColumns());
+        this.layout = layout;
+        for (int edge = 0; edge < compact.numEdges(); edge++) {
+            Wall wall = compact.edgeAt(edge);
+            int a = layout.cellAt(wall.getRoom1());
+            int b = layout.cellAt(wall.getRoom2());
+            int low = Math.min(a, b);
+            int high = Math.max(a, b);
+            if (high == low + 1 && high % numColumns != 0) {
+                setOpenEast(low / numColumns, low % numColumns, true);
+            } else if (high == low + numColumns) {
+                setOpenSouth(low / numColumns, low % numColumns, true);
+            } else if (a != b) {
+                throw new IllegalArgumentException("The edge " + wall + " does not join adjacent rooms");
+            }
+        }
+    }
+
+    // Returns the number of rows of cells.
+    public int numRows() {
+        return this.numRows;
+    }
+
+    // Returns the number of columns of cells.
+    public int numColumns() {
+        return this.numColumns;
+    }
+
+    // Returns the row of the given room.
+    // @throws IllegalStateException  if this maze was not built from a graph
+    // @throws IllegalArgumentException  if the room is not a part of that graph's grid
+    public int rowOf(Room room) {
+        return cellOf(room) / numColumns;
+    }
+
+    // Returns the column of the given room.
+    // @throws IllegalStateException  if this maze was not built from a graph
+    // @throws IllegalArgumentException  if the room is not a part of that graph's grid
+    public int columnOf(Room room) {
+        return cellOf(room) % numColumns;
+    }
+
+    private int cellOf(Room room) {
+        if (layout == null) {
+            throw new IllegalStateException("This maze was not built from a graph of rooms");
+        }
+        int cell = layout.cellAt(room);
+        if (cell == -1) {
+            throw new IllegalArgumentException();
+        }
+        return cell;
+    }
+
+    // Opens or closes the passage between the given cell and the cell right of it.
+    // @throws IllegalArgumentException  if the cell is outside the grid, or in its last column
+    public void setOpenEast(int row, int column, boolean open) {
+        checkCell(row, column + 1);
+        setBit(east, row, column, open);
+    }
+
+    // Opens or closes the passage between the given cell and the cell below it.
+    // @throws IllegalArgumentException  if the cell is outside the grid, or in its last row
+    public void setOpenSouth(int row, int column, boolean open) {
+        checkCell(row + 1, column);
+        setBit(south, row, column, open);
+    }
+
+    // Returns 'true' if there is a passage between the given cell and the cell right of it.
+    // @throws IllegalArgumentException  if the cell is outside the grid
+    public boolean isOpenEast(int row, int column) {
+        checkCell(row, column);
+        return getBit(east, row, column);
+    }
+
+    // Returns 'true' if there is a passage between the given cell and the cell below it.
+    // @throws IllegalArgumentException  if the cell is outside the grid
+    public boolean isOpenSouth(int row, int column) {
+        checkCell(row, column);
+        return getBit(south, row, column);
+    }
+
+    private void checkCell(int row, int column) {
+        if (row < 0 || row >= numRows || column < 0 || column >= numColumns) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private void setBit(long[] bits, int row, int column, boolean value) {
+        int word = row * wordsPerRow + (column >>> 6);
+        if (value) {
+            bits[word] |= 1L << column;
+        } else {
+            bits[word] &= ~(1L << column);
+        }
+    }
+
+    private boolean getBit(long[] bits, int row, int column) {
+        return (bits[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    // Returns 'true' if the end cell can be reached from the start cell.
+    // @throws IllegalArgumentException  if either cell is outside the grid
+    public boolean isReachable(int startRow, int startColumn, int endRow, int endColumn) {
+        checkCell(endRow, endColumn);
+        return getBit(floodFill(startRow, startColumn, endRow, endColumn), endRow, endColumn);
+    }
+
+    // Returns the number of cells that can be reached from the given cell, including itself.
+    // @throws IllegalArgumentException  if the cell is outside the grid
+    public long countReachable(int row, int column) {
+        long count = 0;
+        for (long bits : floodFill(row, column, -1, -1)) {
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    // Returns the fewest passages to walk through from the start cell to the end cell, or -1 if
+    // the end cannot be reached.
+    // @throws IllegalArgumentException  if either cell is outside the grid
+    public int hopDistance(int startRow, int startColumn, int endRow, int endColumn) {
+        checkCell(endRow, endColumn);
+        return breadthFirstSearch(startRow, startColumn, endRow * numColumns + endColumn, null);
+    }
+
+    // Returns the fewest passages to walk through from the given cell to every cell, numbered row
+    // by row, with -1 for the cells that cannot be reached. Takes four bytes per cell, on top of
+    // the search's own three bits per cell.
+    // @throws IllegalArgumentException  if the cell is outside the grid
+    public int[] hopDistancesFrom(int row, int column) {
+        int[] hops = new int[numRows * numColumns];
+        Arrays.fill(hops, -1);
+        breadthFirstSearch(row, column, -1, hops);
+        return hops;
+    }
+
+    // Marks every cell reachable from the start, stopping early once the end is reached (unless
+    // the end row is -1). Rows with cells waiting to spread from are kept on a stack; each time a
+    // row comes up, its waiting cells are smeared along their runs, and the newly reached cells
+    // pass through the open passages up and down into the rows next to it.
+    private long[] floodFill(int startRow, int startColumn, int endRow, int endColumn) {
+        checkCell(startRow, startColumn);
+        long[] visited = new long[numRows * wordsPerRow];
+        long[] pending = new long[numRows * wordsPerRow];
+        long[] fresh = new long[wordsPerRow];
+        boolean[] queued = new boolean[numRows];
+        int[] stack = new int[numRows];
+        int stackSize = 0;
+
+        setBit(pending, startRow, startColumn, true);
+        queued[startRow] = true;
+        stack[stackSize++] = startRow;
+        while (stackSize > 0) {
+            int row = stack[--stackSize];
+            queued[row] = false;
+            int base = row * wordsPerRow;
+
+            int low = 0;
+            while (pending[base + low] == 0) {
+                low++;
+            }
+            int high = wordsPerRow - 1;
+            while (pending[base + high] == 0) {
+                high--;
+            }
+            long range = fillRow(base, pending, visited, fresh, low, high);
+            low = (int) (range >>> 32);
+            high = (int) range;
+
+            for (int word = low; word <= high; word++) {
+                long bits = fresh[word];
+                fresh[word] = 0;
+                if (bits == 0) {
+                    continue;
+                }
+                visited[base + word] |= bits;
+                if (row + 1 < numRows) {
+                    stackSize = spread(bits & south[base + word], row + 1, word, visited, pending,
+                            queued, stack, stackSize);
+                }
+                if (row > 0) {
+                    stackSize = spread(bits & south[base - wordsPerRow + word], row - 1, word, visited, pending,
+                            queued, stack, stackSize);
+                }
+            }
+
+            if (endRow != -1 && getBit(visited, endRow, endColumn)) {
+                break;
+            }
+        }
+        return visited;
+    }
+
+    // Adds the cells to the ones waiting in the given row, queueing the row if needed. Returns the
+    // new size of the stack.
+    private int spread(long bits, int row, int word, long[] visited, long[] pending,
+                       boolean[] queued, int[] stack, int stackSize) {
+        int index = row * wordsPerRow + word;
+        bits &= ~visited[index];
+        if (bits != 0) {
+            pending[index] |= bits;
+            if (!queued[row]) {
+                queued[row] = true;
+                stack[stackSize++] = row;
+            }
+        }
+        return stackSize;
+    }
+
+    // Smears the waiting cells of the row along their runs of open passages, first rightward and
+    // then leftward, into 'fresh', and clears them. Runs are reached whole, so a run holding a
+    // visited cell is visited entirely and the fill never has to enter one. Returns the range of
+    // words the fill touched, packed as (first << 32) | last.
+    private long fillRow(int base, long[] pending, long[] visited, long[] fresh, int low, int high) {
+        // Rightward: a cell can be entered from its left neighbor if that neighbor's east bit is set.
+        long carry = 0;
+        int word = low;
+        for (; word < wordsPerRow && (word <= high || carry != 0); word++) {
+            long reached = (pending[base + word] & ~visited[base + word]) | carry;
+            pending[base + word] = 0;
+            long open = east[base + word];
+            reached = fillLeftToRight(reached, open << 1);
+            fresh[word] = reached;
+            carry = (reached & open) >>> 63;
+        }
+        int last = word - 1;
+
+        // Leftward: a cell can be entered from its right neighbor if its own east bit is set.
+        carry = 0;
+        word = last;
+        for (; word >= 0 && (word >= low || carry != 0); word--) {
+            long open = east[base + word];
+            long reached = fillRightToLeft(fresh[word] | carry, open);
+            fresh[word] = reached;
+            carry = word > 0 && (reached & 1) != 0 ? east[base + word - 1] & (1L << 63) : 0;
+        }
+        int first = word + 1;
+        return ((long) first << 32) | last;
+    }
+
+    // Spreads the reached bits toward higher bits through every bit set in 'open'.
+    private static long fillLeftToRight(long reached, long open) {
+        reached |= open & (reached << 1);
+        open &= open << 1;
+        reached |= open & (reached << 2);
+        open &= open << 2;
+        reached |= open & (reached << 4);
+        open &= open << 4;
+        reached |= open & (reached << 8);
+        open &= open << 8;
+        reached |= open & (reached << 16);
+        open &= open << 16;
+        return reached | (open & (reached << 32));
+    }
+
+    // Spreads the reached bits toward lower bits through every bit set in 'open'.
+    private static long fillRightToLeft(long reached, long open) {
+        reached |= open & (reached >>> 1);
+        open &= open >>> 1;
+        reached |= open & (reached >>> 2);
+        open &= open >>> 2;
+        reached |= open & (reached >>> 4);
+        open &= open >>> 4;
+        reached |= open & (reached >>> 8);
+        open &= open >>> 8;
+        reached |= open & (reached >>> 16);
+        open &= open >>> 16;
+        return reached | (open & (reached >>> 32));
+    }
+
+    // Runs a level-by-level breadth-first search from the start, and returns the level the target
+    // cell was reached on, or -1 if it was not (or the target is -1). Writes the level of every
+    // cell it reaches into 'hops', unless that is null.
+    private int breadthFirstSearch(int startRow, int startColumn, int target, int[] hops) {
+        checkCell(startRow, startColumn);
+        int targetRow = target == -1 ? -1 : target / numColumns;
+        int targetColumn = target == -1 ? -1 : target % numColumns;
+
+        long[] visited = new long[numRows * wordsPerRow];
+        long[] frontier = new long[numRows * wordsPerRow];
+        long[] next = new long[numRows * wordsPerRow];
+
+        // The rows the frontier occupies, and the range of words it occupies within each.
+        int[] rows = new int[numRows];
+        int[] nextRows = new int[numRows];
+        int[] lowWord = new int[numRows];
+        int[] highWord = new int[numRows];
+        int[] nextLowWord = new int[numRows];
+        int[] nextHighWord = new int[numRows];
+        Arrays.fill(nextLowWord, Integer.MAX_VALUE);
+        Arrays.fill(nextHighWord, -1);
+
+        setBit(visited, startRow, startColumn, true);
+        setBit(frontier, startRow, startColumn, true);
+        rows[0] = startRow;
+        lowWord[startRow] = startColumn >>> 6;
+        highWord[startRow] = startColumn >>> 6;
+        int numActive = 1;
+        if (hops != null) {
+            hops[startRow * numColumns + startColumn] = 0;
+        }
+        if (target == startRow * numColumns + startColumn) {
+            return 0;
+        }
+
+        for (int level = 1; numActive > 0; level++) {
+            int numNext = 0;
+            for (int i = 0; i < numActive; i++) {
+                int row = rows[i];
+                int base = row * wordsPerRow;
+                for (int word = lowWord[row]; word <= highWord[row]; word++) {
+                    long bits = frontier[base + word];
+                    if (bits == 0) {
+                        continue;
+                    }
+                    frontier[base + word] = 0;
+                    long open = east[base + word];
+
+                    // Sideways, carrying over into the neighboring words at the edges.
+                    numNext = offer(next, nextRows, nextLowWord, nextHighWord, numNext, row, word,
+                            ((bits & open) << 1) | (bits >>> 1 & open));
+                    if ((bits & open) >>> 63 != 0) {
+                        numNext = offer(next, nextRows, nextLowWord, nextHighWord, numNext, row, word + 1, 1L);
+                    }
+                    if (word > 0 && (bits & 1) != 0 && east[base + word - 1] >>> 63 != 0) {
+                        numNext = offer(next, nextRows, nextLowWord, nextHighWord, numNext, row, word - 1,
+                                1L << 63);
+                    }
+
+                    // Up and down.
+                    if (row + 1 < numRows) {
+                        numNext = offer(next, nextRows, nextLowWord, nextHighWord, numNext, row + 1, word,
+                                bits & south[base + word]);
+                    }
+                    if (row > 0) {
+                        numNext = offer(next, nextRows, nextLowWord, nextHighWord, numNext, row - 1, word,
+                                bits & south[base - wordsPerRow + word]);
+                    }
+                }
+            }
+
+            // Keeps only the cells not reached before, which become the next frontier.
+            int numActiveNext = 0;
+            for (int i = 0; i < numNext; i++) {
+                int row = nextRows[i];
+                int base = row * wordsPerRow;
+                int low = Integer.MAX_VALUE;
+                int high = -1;
+                for (int word = nextLowWord[row]; word <= nextHighWord[row]; word++) {
+                    long bits = next[base + word] & ~visited[base + word];
+                    next[base + word] = 0;
+                    if (bits == 0) {
+                        continue;
+                    }
+                    visited[base + word] |= bits;
+                    frontier[base + word] = bits;
+                    low = Math.min(low, word);
+                    high = word;
+                    if (hops != null) {
+                        recordLevel(hops, row, word, bits, level);
+                    }
+                }
+                nextLowWord[row] = Integer.MAX_VALUE;
+                nextHighWord[row] = -1;
+                if (high != -1) {
+                    rows[numActiveNext++] = row;
+                    lowWord[row] = low;
+                    highWord[row] = high;
+                }
+            }
+            numActive = numActiveNext;
+
+            if (target != -1 && getBit(visited, targetRow, targetColumn)) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    // Adds the cells to the next frontier, keeping track of its rows and their ranges of words.
+    // Returns the new number of rows.
+    private int offer(long[] next, int[] nextRows, int[] lowWord, int[] highWord, int numNext,
+                      int row, int word, long bits) {
+        if (bits == 0) {
+            return numNext;
+        }
+        next[row * wordsPerRow + word] |= bits;
+        if (highWord[row] == -1) {
+            nextRows[numNext++] = row;
+        }
+        lowWord[row] = Math.min(lowWord[row], word);
+        highWord[row] = Math.max(highWord[row], word);
+        return numNext;
+    }
+
+    private void recordLevel(int[] hops, int row, int word, long bits, int level) {
+        int firstCell = row * numColumns + (word << 6);
+        while (bits != 0) {
+            hops[firstCell + Long.numberOfTrailingZeros(bits)] = level;
+            bits &= bits - 1;
+        }
+    }
+}
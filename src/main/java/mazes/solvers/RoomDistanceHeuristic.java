@@ -0,0 +1,37 @@
+package mazes.solvers;
+
+import mazes.entities.Room;
+import misc.graphs.Heuristic;
+
+/**
+ * Estimates the cost between two rooms as the straight-line distance between their centers.
+ *
+ * By default, a Wall's weight is exactly the distance between the centers of the two rooms it
+ * separates, so no path can ever be shorter than this straight line: the estimate is both
+ * admissible and consistent for such mazes.
+ *
+ * If the wall weights have been scaled, pass the smallest ratio of weight to center distance
+ * as the scale so the estimate stays a lower bound.
+ */
+public class RoomDistanceHeuristic implements Heuristic<Room> {
+    private double scale;
+
+    public RoomDistanceHeuristic() {
+        this(1.0);
+    }
+
+    /**
+     * @throws IllegalArgumentException  if the scale is negative
+     */
+    public RoomDistanceHeuristic(double scale) {
+        if (!(scale >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.scale = scale;
+    }
+
+    @Override
+    public double estimate(Room vertex, Room goal) {
+        return this.scale * vertex.getCenter().distance(goal.getCenter());
+    }
+}
@@ -37,5 +37,37 @@ public class Searcher {
         }
 
         return list;
-    } 
+    }
+
+    // Returns the indices [0, keys.length) ordered by ascending key. Equal keys keep their
+    // index order, so the result is deterministic.
+    public static int[] sortedIndices(double[] keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+
+        int[] buffer = new int[keys.length];
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int lo = 0; lo < indices.length; lo += 2 * width) {
+                int mid = Math.min(lo + width, indices.length);
+                int hi = Math.min(lo + 2 * width, indices.length);
+                int left = lo;
+                int right = mid;
+
+                for (int out = lo; out < hi; out++) {
+                    if (right >= hi || (left < mid && keys[indices[left]] <= keys[indices[right]])) {
+                        buffer[out] = indices[left++];
+                    } else {
+                        buffer[out] = indices[right++];
+                    }
+                }
+            }
+            int[] swap = indices;
+            indices = buffer;
+            buffer = swap;
+        }
+
+        return indices;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package misc.graphs;
+
+import datastructures.concrete.IntDisjointSet;
+import misc.graphs.SearchStats.Metric;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Finds a minimum spanning forest with Boruvka's algorithm, running each round in parallel.
+ *
+ * Every round, each component picks its cheapest outgoing edge and the components are merged
+ * along the picked edges, so the number of components at least halves per round. Edges are
+ * compared by weight and then by edge id: with this strict order the minimum spanning forest is
+ * unique, so the result never depends on thread scheduling and always matches Kruskal's.
+ *
+ * Every vertex carries the label of its component, and only the edges still joining two
+ * different components are kept from one round to the next. Scanning them, relabelling the
+ * vertices, and dropping the edges that become internal are all done in parallel; merging is done
+ * sequentially, but only costs time proportional to the number of components left.
+ */
+final class BoruvkaMst {
+    private static final int GRAIN_SIZE = 1 << 13;
+
+    private BoruvkaMst() {
+    }
+
+    // Returns the ids of the edges in the minimum spanning forest of the graph, and adds the
+    // edges it scanned and its union operations to the counters, indexed by Metric.ordinal().
+    static int[] findTreeEdges(CompactGraph<?, ?> graph, long[] counters) {
+        int numVertices = graph.numVertices();
+        int[] sources = graph.edgeSources;
+        int[] targets = graph.edgeTargets;
+        IntDisjointSet components = new IntDisjointSet(numVertices);
+        AtomicIntegerArray cheapest = new AtomicIntegerArray(numVertices);
+
+        int[] treeEdges = new int[Math.max(numVertices - 1, 0)];
+        int numTreeEdges = 0;
+        long scannedEdges = 0;
+        long unions = 0;
+
+        // Every vertex starts out as its own component, labelled by its own id. Labels of
+        // components that are finished, or that no vertex carries anymore, map to themselves.
+        int[] componentOf = new int[numVertices];
+        int[] rootOf = new int[numVertices];
+        int[] labels = new int[numVertices];
+        int numLabels = 0;
+        for (int v = 0; v < numVertices; v++) {
+            componentOf[v] = v;
+            rootOf[v] = v;
+            if (graph.degree(v) > 0) {
+                labels[numLabels++] = v;
+            }
+        }
+
+        int[] allEdges = new int[graph.numEdges()];
+        for (int i = 0; i < allEdges.length; i++) {
+            allEdges[i] = i;
+        }
+        int[] activeEdges = ParallelLoops.filter(allEdges, edgeId -> sources[edgeId] != targets[edgeId]);
+
+        while (activeEdges.length > 0) {
+            for (int i = 0; i < numLabels; i++) {
+                cheapest.set(labels[i], -1);
+            }
+            int[] scanned = activeEdges;
+            scannedEdges += scanned.length;
+            ParallelLoops.forRange(0, scanned.length, GRAIN_SIZE, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int edgeId = scanned[i];
+                    offer(graph, cheapest, componentOf[sources[edgeId]], edgeId);
+                    offer(graph, cheapest, componentOf[targets[edgeId]], edgeId);
+                }
+            });
+
+            // Merge along every picked edge. An edge picked by both of its components is only
+            // added once, since the second union finds them already merged.
+            for (int i = 0; i < numLabels; i++) {
+                int edgeId = cheapest.get(labels[i]);
+                if (edgeId == -1) {
+                    continue;
+                }
+                unions++;
+                if (components.union(sources[edgeId], targets[edgeId])) {
+                    treeEdges[numTreeEdges++] = edgeId;
+                }
+            }
+
+            // Components that picked nothing have no outgoing edges left and are finished; the
+            // rest are relabelled by the representative of the component they merged into.
+            int numRemaining = 0;
+            for (int i = 0; i < numLabels; i++) {
+                int label = labels[i];
+                rootOf[label] = components.findSet(label);
+                if (cheapest.get(label) != -1 && rootOf[label] == label) {
+                    labels[numRemaining++] = label;
+                }
+            }
+            numLabels = numRemaining;
+
+            ParallelLoops.forRange(0, numVertices, GRAIN_SIZE, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    componentOf[v] = rootOf[componentOf[v]];
+                }
+            });
+            activeEdges = ParallelLoops.filter(activeEdges,
+                    edgeId -> componentOf[sources[edgeId]] != componentOf[targets[edgeId]]);
+        }
+
+        counters[Metric.RELAXED_EDGES.ordinal()] += scannedEdges;
+        counters[Metric.UNION_OPERATIONS.ordinal()] += unions;
+
+        int[] result = new int[numTreeEdges];
+        System.arraycopy(treeEdges, 0, result, 0, numTreeEdges);
+        return result;
+    }
+
+    // Atomically replaces the cheapest edge recorded for the component if the given edge is
+    // cheaper.
+    private static void offer(CompactGraph<?, ?> graph, AtomicIntegerArray cheapest, int component, int edgeId) {
+        int current = cheapest.get(component);
+        while (current == -1 || graph.isCheaper(edgeId, current)) {
+            if (cheapest.compareAndSet(component, current, edgeId)) {
+                return;
+            }
+            current = cheapest.get(component);
+        }
+    }
+}
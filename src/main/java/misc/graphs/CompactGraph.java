@@ -0,0 +1,258 @@
+package misc.graphs;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoPathExistsException;
+
+/**
+ * An immutable, compressed sparse row (CSR) representation of an undirected, weighted graph.
+ *
+ * Every distinct vertex is assigned a dense integer id in [0, numVertices()) and every edge an
+ * id in [0, numEdges()), both in the order they were supplied. The neighbors of the vertex with
+ * id 'v' are stored in targets[offsets[v]] up to (but not including) targets[offsets[v + 1]];
+ * the weight and the edge id of each of those neighbors live at the same index inside 'weights'
+ * and 'edgeIds'.
+ *
+ * A regular edge therefore shows up twice (once from each endpoint) while a self-loop only
+ * shows up once, in the list of the vertex it loops on.
+ */
+public class CompactGraph<V, E extends Edge<V>> {
+    private final V[] vertices;
+    private final IDictionary<V, Integer> vertexIds;
+    private final E[] edges;
+
+    // Endpoints and weight of every edge, indexed by edge id.
+    final int[] edgeSources;
+    final int[] edgeTargets;
+    final double[] edgeWeights;
+
+    // The CSR adjacency arrays, as described above.
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+    final int[] edgeIds;
+
+    // The connected component of every vertex, labelled 0, 1, ... in order of their lowest
+    // vertex id. Computed on first use; see componentLabels.
+    private volatile int[] componentIds;
+    private int numComponents;
+
+    // Constructs a compact graph from vertices and edges that have already been assigned ids,
+    // as done by Graph.Builder. The arrays must be sized exactly to the number of vertices or
+    // edges, and are used as-is without being copied.
+    CompactGraph(IDictionary<V, Integer> vertexIds, V[] vertices, E[] edges,
+                 int[] edgeSources, int[] edgeTargets, double[] edgeWeights) {
+        this.vertexIds = vertexIds;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+
+        int numEdges = edges.length;
+        this.offsets = new int[this.vertices.length + 1];
+        for (int i = 0; i < numEdges; i++) {
+            this.offsets[edgeSources[i] + 1]++;
+            if (edgeSources[i] != edgeTargets[i]) {
+                this.offsets[edgeTargets[i] + 1]++;
+            }
+        }
+        for (int v = 0; v < this.vertices.length; v++) {
+            this.offsets[v + 1] += this.offsets[v];
+        }
+
+        int numEntries = this.offsets[this.vertices.length];
+        this.targets = new int[numEntries];
+        this.weights = new double[numEntries];
+        this.edgeIds = new int[numEntries];
+
+        int[] next = new int[this.vertices.length];
+        for (int v = 0; v < next.length; v++) {
+            next[v] = this.offsets[v];
+        }
+        for (int i = 0; i < numEdges; i++) {
+            addEntry(next, edgeSources[i], edgeTargets[i], i);
+            if (edgeSources[i] != edgeTargets[i]) {
+                addEntry(next, edgeTargets[i], edgeSources[i], i);
+            }
+        }
+    }
+
+    // Constructs a copy of the given graph whose edges weigh 'edgeWeights' instead, indexed by
+    // edge id. Everything but the weights is shared with the original, which stays untouched.
+    private CompactGraph(CompactGraph<V, E> original, double[] edgeWeights) {
+        this.vertexIds = original.vertexIds;
+        this.vertices = original.vertices;
+        this.edges = original.edges;
+        this.edgeSources = original.edgeSources;
+        this.edgeTargets = original.edgeTargets;
+        this.edgeWeights = edgeWeights;
+        this.offsets = original.offsets;
+        this.targets = original.targets;
+        this.edgeIds = original.edgeIds;
+
+        // Reweighing never changes which vertices are connected.
+        this.numComponents = original.numComponents();
+        this.componentIds = original.componentLabels();
+
+        this.weights = new double[this.targets.length];
+        for (int i = 0; i < this.weights.length; i++) {
+            this.weights[i] = edgeWeights[this.edgeIds[i]];
+        }
+    }
+
+    // Returns a copy of this graph whose edges weigh 'edgeWeights' instead, as described above.
+    // The array is used as-is without being copied.
+    CompactGraph<V, E> withEdgeWeights(double[] edgeWeights) {
+        return new CompactGraph<>(this, edgeWeights);
+    }
+
+    // Appends the half-edge 'from -> to' to the adjacency list of 'from'.
+    private void addEntry(int[] next, int from, int to, int edgeId) {
+        int slot = next[from]++;
+        this.targets[slot] = to;
+        this.weights[slot] = edgeWeights[edgeId];
+        this.edgeIds[slot] = edgeId;
+    }
+
+    // Returns the number of vertices contained within this graph.
+    public int numVertices() {
+        return this.vertices.length;
+    }
+
+    // Returns the number of edges contained within this graph.
+    public int numEdges() {
+        return this.edges.length;
+    }
+
+    // Returns 'true' if the given vertex is a part of this graph.
+    public boolean containsVertex(V vertex) {
+        return this.vertexIds.containsKey(vertex);
+    }
+
+    // Returns the id assigned to the given vertex.
+    // @throws IllegalArgumentException  if the vertex is not a part of this graph
+    public int idOf(V vertex) {
+        Integer id = vertex == null ? null : this.vertexIds.getOrDefault(vertex, null);
+        if (id == null) {
+            throw new IllegalArgumentException();
+        }
+        return id;
+    }
+
+    // Returns the vertex with the given id.
+    public V vertexAt(int id) {
+        return this.vertices[id];
+    }
+
+    // Returns the edge with the given id.
+    public E edgeAt(int id) {
+        return this.edges[id];
+    }
+
+    // Returns the weight of the edge with the given id. On a graph built by Graph.withWeights,
+    // this is the overlaid weight rather than the edge's own getWeight().
+    public double weightOf(int edgeId) {
+        return this.edgeWeights[edgeId];
+    }
+
+    // Returns the number of adjacency entries of the given vertex. Self-loops count once.
+    public int degree(int id) {
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    // Returns the label of the connected component containing the vertex with the given id.
+    // Two vertices are connected exactly when their labels are equal. The first call labels
+    // every vertex in O(V + E); later calls are O(1).
+    public int componentOf(int id) {
+        return componentLabels()[id];
+    }
+
+    // Applies checkEndpoints below to a query between the vertices with the given ids.
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public boolean checkEndpoints(int startId, int endId) {
+        return checkEndpoints(startId, endId, degree(startId), degree(endId),
+                startId == endId || componentOf(startId) == componentOf(endId));
+    }
+
+    // Settles what every shortest path query answers without searching, so that all of them
+    // agree: there is no path from or to a vertex without edges, not even to itself; the path
+    // from a vertex to itself is empty; and there is no path between vertices that are not
+    // connected. Returns 'true' if the path is empty, or 'false' if a search has to find it.
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    static boolean checkEndpoints(int startId, int endId, int startDegree, int endDegree, boolean connected) {
+        if (startDegree == 0 || endDegree == 0) {
+            throw new NoPathExistsException();
+        }
+        if (startId == endId) {
+            return true;
+        }
+        if (!connected) {
+            throw new NoPathExistsException();
+        }
+        return false;
+    }
+
+    // Returns the number of connected components. A vertex without edges is a component of its
+    // own.
+    public int numComponents() {
+        componentLabels();
+        return this.numComponents;
+    }
+
+    // Returns the component label of every vertex, labelling them with a breadth-first search
+    // the first time. Threads racing on the first call may each label the graph, but they all
+    // arrive at the same labels.
+    private int[] componentLabels() {
+        int[] labels = this.componentIds;
+        if (labels != null) {
+            return labels;
+        }
+
+        int numVertices = this.vertices.length;
+        labels = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            labels[v] = -1;
+        }
+
+        int[] queue = new int[numVertices];
+        int count = 0;
+        for (int root = 0; root < numVertices; root++) {
+            if (labels[root] != -1) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            labels[root] = count;
+            queue[tail++] = root;
+            while (head < tail) {
+                int vertex = queue[head++];
+                for (int i = this.offsets[vertex]; i < this.offsets[vertex + 1]; i++) {
+                    int other = this.targets[i];
+                    if (labels[other] == -1) {
+                        labels[other] = count;
+                        queue[tail++] = other;
+                    }
+                }
+            }
+            count++;
+        }
+
+        // Written before the volatile write below, so every thread that sees the labels also
+        // sees the count.
+        this.numComponents = count;
+        this.componentIds = labels;
+        return labels;
+    }
+
+    // Returns the id of the endpoint of the given edge that is not 'vertexId'.
+    int otherEndpoint(int edgeId, int vertexId) {
+        return this.edgeSources[edgeId] == vertexId ? this.edgeTargets[edgeId] : this.edgeSources[edgeId];
+    }
+
+    // Returns 'true' if edge 'a' comes before edge 'b' in the order the minimum spanning tree
+    // algorithms share: lighter first, and among edges of equal weight, the one added earlier.
+    // No two edges compare equal, so the minimum spanning forest in this order is unique.
+    boolean isCheaper(int a, int b) {
+        return edgeWeights[a] < edgeWeights[b] || (edgeWeights[a] == edgeWeights[b] && a < b);
+    }
+}
@@ -0,0 +1,488 @@
+package misc.graphs;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.IndexedMinHeap;
+import datastructures.interfaces.IList;
+import misc.exceptions.NoPathExistsException;
+
+import java.util.Arrays;
+
+/**
+ * Answers shortest path queries on a static graph much faster than Graph can, in exchange for a
+ * one-time preprocessing step.
+ *
+ * Preprocessing 'contracts' the vertices one at a time, from least to most important. Removing
+ * a vertex could break shortest paths running through it, so for every pair of its remaining
+ * neighbors a short 'witness' search checks whether some other path is at least as short; if
+ * not, a shortcut edge standing for the two-edge path through the vertex is added. Vertices are
+ * contracted in order of their edge difference (the shortcuts contracting them would add minus
+ * the edges it would remove) plus the number of their neighbors already contracted, which keeps
+ * the number of shortcuts low and spreads the contraction evenly across the graph.
+ *
+ * Every shortest path then climbs from the start to the most important vertex on it and descends
+ * to the end, using only original edges and shortcuts. A query runs Dijkstra upward from both
+ * ends at once, settling only a tiny fraction of the graph, and finally unpacks every shortcut
+ * on the path back into the original edges it stands for.
+ *
+ * The hierarchy never changes once built, so one instance can serve queries from any number of
+ * threads.
+ */
+public class ContractionHierarchy<V, E extends Edge<V> & Comparable<E>> {
+    // A witness search gives up, and the shortcut is added anyway, after settling this many
+    // vertices. Giving up early only ever adds unnecessary shortcuts, never wrong answers.
+    private static final int WITNESS_SETTLE_LIMIT = 50;
+
+    private CompactGraph<V, E> compact;
+    private int[] rank;
+
+    // Every arc is either an original edge, whose arc id is its edge id, or a shortcut through
+    // arcMiddle, standing for arcFirst (from arcEnd1 to the middle) followed by arcSecond (from
+    // the middle to arcEnd2).
+    private int numArcs;
+    private int[] arcEnd1;
+    private int[] arcEnd2;
+    private double[] arcWeight;
+    private int[] arcMiddle;
+    private int[] arcFirst;
+    private int[] arcSecond;
+
+    // Every arc, stored once, at whichever endpoint was contracted first, pointing upward.
+    private int[] upOffsets;
+    private int[] upTargets;
+    private double[] upWeights;
+    private int[] upArcs;
+
+    private ThreadLocal<SearchContext> forwardContexts;
+    private ThreadLocal<SearchContext> backwardContexts;
+
+    // Builds the hierarchy over the graph. Takes roughly linear time on road-network-like graphs
+    // such as mazes.
+    public ContractionHierarchy(Graph<V, E> graph) {
+        this.compact = graph.getCompactGraph();
+        new Builder().contractAll();
+        buildUpwardGraph();
+
+        int numVertices = compact.numVertices();
+        this.forwardContexts = ThreadLocal.withInitial(() -> new SearchContext(numVertices));
+        this.backwardContexts = ThreadLocal.withInitial(() -> new SearchContext(numVertices));
+    }
+
+    // Returns the number of shortcut edges preprocessing added.
+    public int numShortcuts() {
+        return this.numArcs - this.compact.numEdges();
+    }
+
+    // Returns a shortest path made up of the original edges, of the same cost as the one
+    // Graph.findShortestPathBetween returns. Where several paths tie, the hierarchy may pick a
+    // different one: the search follows whichever arcs and shortcuts lead through the most
+    // important vertex. Returns an empty list if the start and end vertices are the same.
+    // @throws IllegalArgumentException  if either vertex is not a part of the graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findShortestPathBetween(V start, V end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+        IList<E> path = new DoubleLinkedList<>();
+        if (compact.checkEndpoints(startId, endId)) {
+            return path;
+        }
+
+        SearchContext forward = forwardContexts.get();
+        SearchContext backward = backwardContexts.get();
+        int meeting = search(forward, backward, startId, endId);
+
+        // The upward arcs from the start to the meeting vertex come out backwards; walk them into
+        // an array first, then unpack them in order.
+        int[] chain = new int[16];
+        int length = 0;
+        for (int vertex = meeting; vertex != startId; vertex = otherEnd(forward.predecessorEdge[vertex], vertex)) {
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, 2 * length);
+            }
+            chain[length++] = forward.predecessorEdge[vertex];
+        }
+        int vertex = startId;
+        for (int i = length - 1; i >= 0; i--) {
+            unpack(chain[i], vertex, path);
+            vertex = otherEnd(chain[i], vertex);
+        }
+
+        for (vertex = meeting; vertex != endId; vertex = otherEnd(backward.predecessorEdge[vertex], vertex)) {
+            unpack(backward.predecessorEdge[vertex], vertex, path);
+        }
+        return path;
+    }
+
+    // Returns the total weight of the shortest path between the two vertices, without unpacking
+    // the path itself.
+    // @throws IllegalArgumentException  if either vertex is not a part of the graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public double findPathLength(V start, V end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+        if (compact.checkEndpoints(startId, endId)) {
+            return 0.0;
+        }
+
+        SearchContext forward = forwardContexts.get();
+        SearchContext backward = backwardContexts.get();
+        int meeting = search(forward, backward, startId, endId);
+        return forward.cost[meeting] + backward.cost[meeting];
+    }
+
+    // Runs Dijkstra upward from both ends, and returns the vertex where the shortest path
+    // peaks. Each direction stops once its closest unsettled vertex is no closer than the best
+    // path found so far: every vertex it could still settle lies farther up than that.
+    private int search(SearchContext forward, SearchContext backward, int startId, int endId) {
+        forward.reset();
+        backward.reset();
+        forward.reach(startId);
+        backward.reach(endId);
+        forward.cost[startId] = 0.0;
+        backward.cost[endId] = 0.0;
+        forward.heap.insert(startId, 0.0);
+        backward.heap.insert(endId, 0.0);
+
+        double bestCost = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        boolean forwardTurn = true;
+
+        while (true) {
+            boolean forwardLive = !forward.heap.isEmpty() && forward.heap.peekMinKey() < bestCost;
+            boolean backwardLive = !backward.heap.isEmpty() && backward.heap.peekMinKey() < bestCost;
+            if (!forwardLive && !backwardLive) {
+                break;
+            }
+            forwardTurn = forwardLive && (forwardTurn || !backwardLive);
+
+            SearchContext context = forwardTurn ? forward : backward;
+            SearchContext other = forwardTurn ? backward : forward;
+            forwardTurn = !forwardTurn;
+
+            int vertex = context.heap.removeMin();
+            double viaVertex = context.cost[vertex] + other.costOf(vertex);
+            if (viaVertex < bestCost) {
+                bestCost = viaVertex;
+                meeting = vertex;
+            }
+
+            for (int i = upOffsets[vertex]; i < upOffsets[vertex + 1]; i++) {
+                int target = upTargets[i];
+                double newCost = context.cost[vertex] + upWeights[i];
+                context.reach(target);
+                if (newCost < context.cost[target]) {
+                    context.cost[target] = newCost;
+                    context.predecessorEdge[target] = upArcs[i];
+                    context.heap.insertOrDecrease(target, newCost);
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            throw new NoPathExistsException();
+        }
+        return meeting;
+    }
+
+    // Appends the original edges the arc stands for to the path, walking it from 'from' to its
+    // other end.
+    private void unpack(int arc, int from, IList<E> path) {
+        int[] arcs = new int[16];
+        int[] froms = new int[16];
+        int size = 0;
+        arcs[size] = arc;
+        froms[size] = from;
+        size++;
+
+        while (size > 0) {
+            size--;
+            int current = arcs[size];
+            int start = froms[size];
+            if (arcMiddle[current] == -1) {
+                path.add(compact.edgeAt(current));
+                continue;
+            }
+
+            if (size + 2 > arcs.length) {
+                arcs = Arrays.copyOf(arcs, 2 * arcs.length);
+                froms = Arrays.copyOf(froms, 2 * froms.length);
+            }
+            int middle = arcMiddle[current];
+            boolean fromEnd1 = start == arcEnd1[current];
+            // Pushed in reverse, so the half starting at 'start' is unpacked first.
+            arcs[size] = fromEnd1 ? arcSecond[current] : arcFirst[current];
+            froms[size] = middle;
+            size++;
+            arcs[size] = fromEnd1 ? arcFirst[current] : arcSecond[current];
+            froms[size] = start;
+            size++;
+        }
+    }
+
+    private int otherEnd(int arc, int vertex) {
+        return arcEnd1[arc] == vertex ? arcEnd2[arc] : arcEnd1[arc];
+    }
+
+    // Stores every arc at its lower-ranked endpoint, as a compressed sparse row.
+    private void buildUpwardGraph() {
+        int numVertices = compact.numVertices();
+        upOffsets = new int[numVertices + 1];
+        for (int arc = 0; arc < numArcs; arc++) {
+            if (arcEnd1[arc] != arcEnd2[arc]) {
+                upOffsets[lower(arc) + 1]++;
+            }
+        }
+        for (int v = 0; v < numVertices; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+        }
+
+        int numEntries = upOffsets[numVertices];
+        upTargets = new int[numEntries];
+        upWeights = new double[numEntries];
+        upArcs = new int[numEntries];
+        int[] next = Arrays.copyOf(upOffsets, numVertices);
+        for (int arc = 0; arc < numArcs; arc++) {
+            if (arcEnd1[arc] != arcEnd2[arc]) {
+                int slot = next[lower(arc)]++;
+                upTargets[slot] = otherEnd(arc, lower(arc));
+                upWeights[slot] = arcWeight[arc];
+                upArcs[slot] = arc;
+            }
+        }
+    }
+
+    private int lower(int arc) {
+        return rank[arcEnd1[arc]] < rank[arcEnd2[arc]] ? arcEnd1[arc] : arcEnd2[arc];
+    }
+
+    /**
+     * Holds the state that is only needed while contracting vertices.
+     */
+    private class Builder {
+        // The arcs incident to every vertex, including the ones leading to contracted vertices,
+        // which are skipped over.
+        private int[][] incidentArcs;
+        private int[] numIncident;
+        private boolean[] contracted;
+        private int[] contractedNeighbors;
+
+        // The remaining neighbors of the vertex being contracted, with the lightest arc to each.
+        private int[] neighbors;
+        private int[] neighborArcs;
+        private int[] neighborSlot;
+        private int numNeighbors;
+
+        // The shortcuts the last call to findShortcuts found, as pairs of slots in 'neighbors'.
+        private int[] shortcutFrom;
+        private int[] shortcutTo;
+        private int numShortcuts;
+
+        private SearchContext witness;
+
+        public Builder() {
+            int numVertices = compact.numVertices();
+            int numEdges = compact.numEdges();
+            int capacity = Math.max(2 * numEdges, 16);
+            arcEnd1 = Arrays.copyOf(compact.edgeSources, capacity);
+            arcEnd2 = Arrays.copyOf(compact.edgeTargets, capacity);
+            arcWeight = Arrays.copyOf(compact.edgeWeights, capacity);
+            arcMiddle = new int[capacity];
+            arcFirst = new int[capacity];
+            arcSecond = new int[capacity];
+            Arrays.fill(arcMiddle, -1);
+            numArcs = numEdges;
+
+            incidentArcs = new int[numVertices][];
+            numIncident = new int[numVertices];
+            for (int v = 0; v < numVertices; v++) {
+                incidentArcs[v] = new int[Math.max(compact.degree(v), 2)];
+                for (int i = compact.offsets[v]; i < compact.offsets[v + 1]; i++) {
+                    if (compact.targets[i] != v) {
+                        incidentArcs[v][numIncident[v]++] = compact.edgeIds[i];
+                    }
+                }
+            }
+            contracted = new boolean[numVertices];
+            contractedNeighbors = new int[numVertices];
+            neighbors = new int[16];
+            neighborArcs = new int[16];
+            neighborSlot = new int[numVertices];
+            Arrays.fill(neighborSlot, -1);
+            shortcutFrom = new int[16];
+            shortcutTo = new int[16];
+            witness = new SearchContext(numVertices);
+        }
+
+        // Contracts every vertex in order of importance, lazily re-evaluating each vertex's
+        // priority when it reaches the front of the queue.
+        public void contractAll() {
+            int numVertices = compact.numVertices();
+            rank = new int[numVertices];
+            IndexedMinHeap queue = new IndexedMinHeap(numVertices);
+            for (int v = 0; v < numVertices; v++) {
+                queue.insert(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int vertex = queue.removeMin();
+                double priority = priority(vertex);
+                if (!queue.isEmpty() && priority > queue.peekMinKey()) {
+                    queue.insert(vertex, priority);
+                    continue;
+                }
+
+                // The priority was just computed against the current graph, so the shortcuts it
+                // found are still the ones contracting the vertex needs.
+                addShortcuts(vertex);
+                contracted[vertex] = true;
+                rank[vertex] = nextRank++;
+                for (int i = 0; i < numNeighbors; i++) {
+                    contractedNeighbors[neighbors[i]]++;
+                }
+            }
+        }
+
+        private double priority(int vertex) {
+            findShortcuts(vertex);
+            return numShortcuts - numNeighbors + contractedNeighbors[vertex];
+        }
+
+        // Finds the shortcuts contracting the vertex requires without adding them, leaving them
+        // in 'shortcutFrom' and 'shortcutTo' and the vertex's remaining neighbors in 'neighbors'.
+        private void findShortcuts(int vertex) {
+            collectNeighbors(vertex);
+
+            numShortcuts = 0;
+            for (int i = 0; i + 1 < numNeighbors; i++) {
+                // Each pair of neighbors is checked once, from the one that comes first.
+                double toVertex = arcWeight[neighborArcs[i]];
+                double limit = 0.0;
+                for (int j = i + 1; j < numNeighbors; j++) {
+                    limit = Math.max(limit, toVertex + arcWeight[neighborArcs[j]]);
+                }
+
+                witnessSearch(neighbors[i], vertex, limit);
+                for (int j = i + 1; j < numNeighbors; j++) {
+                    double viaVertex = toVertex + arcWeight[neighborArcs[j]];
+                    if (witness.costOf(neighbors[j]) > viaVertex) {
+                        if (numShortcuts == shortcutFrom.length) {
+                            shortcutFrom = Arrays.copyOf(shortcutFrom, 2 * numShortcuts);
+                            shortcutTo = Arrays.copyOf(shortcutTo, 2 * numShortcuts);
+                        }
+                        shortcutFrom[numShortcuts] = i;
+                        shortcutTo[numShortcuts] = j;
+                        numShortcuts++;
+                    }
+                }
+            }
+        }
+
+        // Adds the shortcuts the last call to findShortcuts found for the vertex.
+        private void addShortcuts(int vertex) {
+            for (int k = 0; k < numShortcuts; k++) {
+                int i = shortcutFrom[k];
+                int j = shortcutTo[k];
+                addShortcut(neighbors[i], neighbors[j], arcWeight[neighborArcs[i]] + arcWeight[neighborArcs[j]],
+                        vertex, neighborArcs[i], neighborArcs[j]);
+            }
+        }
+
+        // Collects the uncontracted neighbors of the vertex, keeping only the lightest arc to
+        // each of them.
+        private void collectNeighbors(int vertex) {
+            for (int i = 0; i < numNeighbors; i++) {
+                neighborSlot[neighbors[i]] = -1;
+            }
+            numNeighbors = 0;
+
+            // Arcs to contracted vertices are dropped from the list along the way; they are
+            // never looked at again while contracting.
+            int[] arcs = incidentArcs[vertex];
+            int kept = 0;
+            for (int i = 0; i < numIncident[vertex]; i++) {
+                int arc = arcs[i];
+                int other = otherEnd(arc, vertex);
+                if (contracted[other]) {
+                    continue;
+                }
+                arcs[kept++] = arc;
+
+                int slot = neighborSlot[other];
+                if (slot == -1) {
+                    if (numNeighbors == neighbors.length) {
+                        neighbors = Arrays.copyOf(neighbors, 2 * numNeighbors);
+                        neighborArcs = Arrays.copyOf(neighborArcs, 2 * numNeighbors);
+                    }
+                    neighborSlot[other] = numNeighbors;
+                    neighbors[numNeighbors] = other;
+                    neighborArcs[numNeighbors] = arc;
+                    numNeighbors++;
+                } else if (arcWeight[arc] < arcWeight[neighborArcs[slot]]) {
+                    neighborArcs[slot] = arc;
+                }
+            }
+            numIncident[vertex] = kept;
+        }
+
+        // Runs Dijkstra from the source over the uncontracted vertices other than 'skip', until
+        // every vertex within 'limit' is settled or the settle limit is reached.
+        private void witnessSearch(int source, int skip, double limit) {
+            witness.reset();
+            witness.reach(source);
+            witness.cost[source] = 0.0;
+            witness.heap.insert(source, 0.0);
+
+            int settled = 0;
+            while (!witness.heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witness.heap.peekMinKey() > limit) {
+                    break;
+                }
+                int vertex = witness.heap.removeMin();
+                settled++;
+
+                for (int i = 0; i < numIncident[vertex]; i++) {
+                    int arc = incidentArcs[vertex][i];
+                    int other = otherEnd(arc, vertex);
+                    if (other == skip || contracted[other]) {
+                        continue;
+                    }
+                    double newCost = witness.cost[vertex] + arcWeight[arc];
+                    witness.reach(other);
+                    if (newCost < witness.cost[other]) {
+                        witness.cost[other] = newCost;
+                        witness.heap.insertOrDecrease(other, newCost);
+                    }
+                }
+            }
+        }
+
+        private void addShortcut(int from, int to, double weight, int middle, int first, int second) {
+            if (numArcs == arcEnd1.length) {
+                int capacity = 2 * numArcs;
+                arcEnd1 = Arrays.copyOf(arcEnd1, capacity);
+                arcEnd2 = Arrays.copyOf(arcEnd2, capacity);
+                arcWeight = Arrays.copyOf(arcWeight, capacity);
+                arcMiddle = Arrays.copyOf(arcMiddle, capacity);
+                arcFirst = Arrays.copyOf(arcFirst, capacity);
+                arcSecond = Arrays.copyOf(arcSecond, capacity);
+            }
+
+            int arc = numArcs++;
+            arcEnd1[arc] = from;
+            arcEnd2[arc] = to;
+            arcWeight[arc] = weight;
+            arcMiddle[arc] = middle;
+            arcFirst[arc] = first;
+            arcSecond[arc] = second;
+            addIncident(from, arc);
+            addIncident(to, arc);
+        }
+
+        private void addIncident(int vertex, int arc) {
+            if (numIncident[vertex] == incidentArcs[vertex].length) {
+                incidentArcs[vertex] = Arrays.copyOf(incidentArcs[vertex], 2 * numIncident[vertex]);
+            }
+            incidentArcs[vertex][numIncident[vertex]++] = arc;
+        }
+    }
+}
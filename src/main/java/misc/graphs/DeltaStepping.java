@@ -0,0 +1,324 @@
+package misc.graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds the shortest paths from one source to every vertex with Meyer and Sanders' delta-stepping
+ * algorithm, relaxing edges in parallel.
+ *
+ * Vertices wait in buckets of width delta by tentative distance, and the lowest non-empty bucket
+ * is emptied in rounds: every vertex in it relaxes its light edges (weighing at most delta) in
+ * parallel, and the vertices whose distance drops back into the same bucket form the next round.
+ * Once the bucket stays empty, its vertices relax their heavy edges in parallel, which can only
+ * ever reach later buckets. Distances are lowered with an atomic compare-and-set, so concurrent
+ * relaxations of the same vertex keep the smallest.
+ *
+ * Every pending distance lies less than delta + (maximum weight) past the start of the current
+ * bucket, so the buckets are kept in a ring just wide enough to cover that range. A bucket entry
+ * is live as long as its vertex has not been expanded at its current distance yet, whichever
+ * bucket that distance falls in; the search thus stays correct even if the ring has to be
+ * narrower than that, only expanding some vertices early and again later.
+ *
+ * Predecessor edges are not tracked during the search, since racing threads could leave a vertex
+ * with the distance of one relaxation and the edge of another. They are worked out afterwards
+ * from the final distances instead, and the path along them adds up to exactly the distance.
+ */
+final class DeltaStepping {
+    private static final int GRAIN_SIZE = 1 << 8;
+
+    // The ring of buckets never grows past this many, however small delta is compared to the
+    // heaviest edge; automatic deltas are raised to respect it.
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    // Not the bits of any non-negative double.
+    private static final long NEVER_EXPANDED = -1L;
+
+    private CompactGraph<?, ?> graph;
+    private double delta;
+
+    // The distance of every vertex, stored as the bits of a double. Bits of non-negative doubles
+    // compare the same way as the doubles do.
+    private AtomicLongArray distances;
+
+    // The ring of buckets, each holding vertex ids. Entries go stale once their vertex has been
+    // expanded at its current distance, and are skipped when their bucket comes up.
+    private int[][] buckets;
+    private int[] bucketSizes;
+
+    // The vertices whose distance dropped during the current relaxation round. 'roundOf' stamps
+    // every vertex with the last round it was added in, so each is added at most once per round.
+    private int[] improved;
+    private AtomicInteger numImproved;
+    private AtomicIntegerArray roundOf;
+    private int round;
+
+    // Counters reported to the graph's listener.
+    long settled;
+    long relaxed;
+    long pushes;
+    long reopened;
+
+    private DeltaStepping(CompactGraph<?, ?> graph, double delta) {
+        this.graph = graph;
+        this.delta = delta;
+
+        int numVertices = graph.numVertices();
+        this.distances = new AtomicLongArray(numVertices);
+        long infinity = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        for (int v = 0; v < numVertices; v++) {
+            this.distances.set(v, infinity);
+        }
+
+        double maxWeight = 0.0;
+        for (double weight : graph.edgeWeights) {
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        int numBuckets = (int) Math.min(Math.ceil(maxWeight / delta) + 2, MAX_BUCKETS + 2);
+        this.buckets = new int[numBuckets][];
+        this.bucketSizes = new int[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            this.buckets[i] = new int[4];
+        }
+
+        this.improved = new int[numVertices];
+        this.numImproved = new AtomicInteger(0);
+        this.roundOf = new AtomicIntegerArray(numVertices);
+    }
+
+    // Returns a bucket width suited to the weights of the graph: the mean weight times the
+    // average degree, but no more than the heaviest edge. Wider buckets relax more vertices per
+    // round and need fewer rounds, but let more vertices be expanded again after a lower distance
+    // turns up; on grid mazes, buckets this wide re-expand only a few percent of the vertices.
+    static double chooseDelta(CompactGraph<?, ?> graph) {
+        double total = 0.0;
+        double maxWeight = 0.0;
+        for (double weight : graph.edgeWeights) {
+            total += weight;
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        if (maxWeight == 0.0) {
+            return 1.0;
+        }
+
+        int numEdges = graph.numEdges();
+        double averageDegree = 2.0 * numEdges / Math.max(graph.numVertices(), 1);
+        double delta = Math.min(total / numEdges * averageDegree, maxWeight);
+        return Math.max(delta, maxWeight / MAX_BUCKETS);
+    }
+
+    // Returns a search from the source in the given graph, which has already run. The distance
+    // and the predecessor edge of every vertex are written into the given arrays; unreachable
+    // vertices get infinity and -1.
+    static DeltaStepping run(CompactGraph<?, ?> graph, int source, double delta,
+                             double[] distancesOut, int[] predecessorsOut) {
+        DeltaStepping search = new DeltaStepping(graph, delta);
+        search.search(source);
+        for (int v = 0; v < distancesOut.length; v++) {
+            distancesOut[v] = search.distanceOf(v);
+        }
+        search.findPredecessors(source, distancesOut, predecessorsOut);
+        return search;
+    }
+
+    private double distanceOf(int vertex) {
+        return Double.longBitsToDouble(distances.get(vertex));
+    }
+
+    // Lowers the distance of the vertex to the given one, unless it is already as low. Returns
+    // 'true' if it was lowered.
+    private boolean lowerDistance(int vertex, double distance) {
+        long newBits = Double.doubleToRawLongBits(distance);
+        while (true) {
+            long oldBits = distances.get(vertex);
+            if (newBits >= oldBits) {
+                return false;
+            }
+            if (distances.compareAndSet(vertex, oldBits, newBits)) {
+                return true;
+            }
+        }
+    }
+
+    private long bucketOf(double distance) {
+        return (long) (distance / delta);
+    }
+
+    private void search(int source) {
+        int numVertices = graph.numVertices();
+        distances.set(source, Double.doubleToRawLongBits(0.0));
+        addToBucket(0, source);
+        pushes++;
+
+        // The distance bits every vertex was last expanded at, and the last bucket it was expanded
+        // in plus one, so each bucket's vertices relax their heavy edges only once.
+        long[] expandedAt = new long[numVertices];
+        Arrays.fill(expandedAt, NEVER_EXPANDED);
+        long[] expandedIn = new long[numVertices];
+        int[] frontier = new int[numVertices];
+        int[] expanded = new int[numVertices];
+
+        long current = 0;
+        int numPending = 1;
+        while (numPending > 0) {
+            int slot = (int) (current % buckets.length);
+            int numExpanded = 0;
+
+            // Takes the bucket's live entries, dropping duplicates and the stale ones.
+            int frontierSize = 0;
+            for (int i = 0; i < bucketSizes[slot]; i++) {
+                int vertex = buckets[slot][i];
+                if (distances.get(vertex) != expandedAt[vertex] && roundOf.get(vertex) != -1) {
+                    roundOf.set(vertex, -1);
+                    frontier[frontierSize++] = vertex;
+                }
+            }
+            numPending -= bucketSizes[slot];
+            bucketSizes[slot] = 0;
+
+            while (frontierSize > 0) {
+                for (int i = 0; i < frontierSize; i++) {
+                    int vertex = frontier[i];
+                    roundOf.set(vertex, 0);
+                    if (expandedAt[vertex] != NEVER_EXPANDED) {
+                        reopened++;
+                    }
+                    expandedAt[vertex] = distances.get(vertex);
+                    if (expandedIn[vertex] != current + 1) {
+                        expandedIn[vertex] = current + 1;
+                        expanded[numExpanded++] = vertex;
+                    }
+                    relaxed += graph.degree(vertex);
+                }
+                settled += frontierSize;
+
+                relaxAll(frontier, frontierSize, true);
+
+                // Vertices that dropped into this bucket go straight into the next round.
+                frontierSize = 0;
+                for (int i = 0; i < numImproved.get(); i++) {
+                    int vertex = improved[i];
+                    long bucket = bucketOf(distanceOf(vertex));
+                    if (bucket <= current) {
+                        frontier[frontierSize++] = vertex;
+                    } else {
+                        addToBucket(bucket, vertex);
+                        numPending++;
+                    }
+                    pushes++;
+                }
+            }
+
+            relaxAll(expanded, numExpanded, false);
+            for (int i = 0; i < numImproved.get(); i++) {
+                int vertex = improved[i];
+                // Rounding aside, heavy edges always lead past the current bucket.
+                addToBucket(Math.max(bucketOf(distanceOf(vertex)), current + 1), vertex);
+                numPending++;
+                pushes++;
+            }
+            current++;
+        }
+    }
+
+    private void addToBucket(long bucket, int vertex) {
+        int slot = (int) (bucket % buckets.length);
+        if (bucketSizes[slot] == buckets[slot].length) {
+            buckets[slot] = Arrays.copyOf(buckets[slot], 2 * buckets[slot].length);
+        }
+        buckets[slot][bucketSizes[slot]++] = vertex;
+    }
+
+    // Relaxes the light or the heavy edges of the given vertices in parallel, collecting every
+    // vertex whose distance dropped into 'improved'.
+    private void relaxAll(int[] vertices, int numVertices, boolean light) {
+        round++;
+        numImproved.set(0);
+        int currentRound = round;
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] weights = graph.weights;
+
+        ParallelLoops.forRange(0, numVertices, GRAIN_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int vertex = vertices[i];
+                double distance = distanceOf(vertex);
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                    if ((weights[j] <= delta) != light) {
+                        continue;
+                    }
+                    int other = targets[j];
+                    if (lowerDistance(other, distance + weights[j])) {
+                        int previous = roundOf.get(other);
+                        if (previous != currentRound && roundOf.compareAndSet(other, previous, currentRound)) {
+                            improved[numImproved.getAndIncrement()] = other;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // Picks a predecessor edge for every reachable vertex other than the source: one whose other
+    // endpoint is strictly closer and whose weight makes up the difference exactly. Vertices
+    // only reachable at their distance through edges of (effectively) zero weight have no such
+    // edge, and are connected to the tree afterwards, one zero-weight edge at a time.
+    private void findPredecessors(int source, double[] distance, int[] predecessors) {
+        int numVertices = graph.numVertices();
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        double[] weights = graph.weights;
+        int[] edgeIds = graph.edgeIds;
+
+        ParallelLoops.forRange(0, numVertices, GRAIN_SIZE, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                predecessors[v] = -1;
+                if (v == source || distance[v] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                predecessors[v] = -2;
+                for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                    int other = targets[j];
+                    if (distance[other] < distance[v] && distance[other] + weights[j] == distance[v]) {
+                        predecessors[v] = edgeIds[j];
+                        break;
+                    }
+                }
+            }
+        });
+
+        int[] queue = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            if (predecessors[v] != -2) {
+                continue;
+            }
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int other = targets[j];
+                if (predecessors[other] != -2 && distance[other] == distance[v]
+                        && distance[other] + weights[j] == distance[v]) {
+                    predecessors[v] = edgeIds[j];
+                    break;
+                }
+            }
+            if (predecessors[v] == -2) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = v;
+            while (head < tail) {
+                int vertex = queue[head++];
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                    int other = targets[j];
+                    if (predecessors[other] == -2 && distance[vertex] + weights[j] == distance[other]) {
+                        predecessors[other] = edgeIds[j];
+                        queue[tail++] = other;
+                    }
+                }
+            }
+        }
+    }
+}
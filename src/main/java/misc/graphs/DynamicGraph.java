@@ -0,0 +1,405 @@
+package misc.graphs;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.IndexedMinHeap;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import misc.exceptions.NoPathExistsException;
+
+import java.util.Arrays;
+
+/**
+ * An undirected, weighted graph that can be edited after construction, and that keeps its
+ * minimum spanning forest up to date as it changes.
+ *
+ * Graph is immutable, so editing a single wall means building a new one and recomputing its
+ * minimum spanning tree from scratch. Here, each edit only repairs the tree locally:
+ *
+ *  - Adding an edge between two trees simply links them. Adding one inside a tree closes a
+ *    cycle; if the new edge is lighter than the heaviest tree edge on that cycle, the two are
+ *    swapped. The heaviest edge is found with a link-cut tree in amortized O(log n).
+ *  - Removing a tree edge splits its tree in two. Both halves are explored at the same time,
+ *    and as soon as the smaller one has been fully explored, its edges are scanned for the
+ *    lightest one reconnecting the halves. The cost is proportional to the smaller half, so
+ *    cutting near the edge of a maze is cheap, while cutting through its middle is not.
+ *  - Removing an edge outside the tree costs O(1).
+ *
+ * The graph keeps its own copy of every edge weight: it reads getWeight once when the edge is
+ * added, and afterwards only changes it through updateWeight.
+ *
+ * Edges of equal weight are ordered by when they were added, just as in Graph, so after any
+ * sequence of edits the maintained tree is exactly the one findMinimumSpanningTree on a freshly
+ * built Graph with the same edges would return.
+ *
+ * This class is not thread-safe.
+ */
+public class DynamicGraph<V, E extends Edge<V> & Comparable<E>> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private IDictionary<V, Integer> vertexIds;
+
+    // The edges, and when each slot's edge was added.
+    private EdgeSlots<E> slots;
+    private long[] edgeOrder;
+    private long nextOrder;
+
+    // Every vertex has a node in the forest, and so does every tree edge. treeNodes holds the
+    // node of each edge slot, or -1 if the edge is not part of the minimum spanning forest, and
+    // nodeSlots maps the node of each tree edge back to its slot.
+    private LinkCutForest forest;
+    private int[] vertexNodes;
+    private int[] treeNodes;
+    private int[] nodeSlots;
+    private int[] freeNodes;
+    private int numFreeNodes;
+    private double treeWeight;
+
+    // Scratch space for finding replacement edges, and for shortest path searches.
+    private int[] stamps;
+    private int[] sides;
+    private int epoch;
+    private int[][] queues;
+    private SearchContext context;
+
+    public DynamicGraph() {
+        this.vertexIds = new ChainedHashDictionary<>(DEFAULT_CAPACITY);
+        this.vertexNodes = new int[DEFAULT_CAPACITY];
+
+        this.slots = new EdgeSlots<>(0, DEFAULT_CAPACITY);
+        this.edgeOrder = new long[DEFAULT_CAPACITY];
+        this.treeNodes = new int[DEFAULT_CAPACITY];
+        this.nextOrder = 0;
+
+        this.forest = new LinkCutForest(2 * DEFAULT_CAPACITY);
+        this.nodeSlots = new int[2 * DEFAULT_CAPACITY];
+        this.freeNodes = new int[DEFAULT_CAPACITY];
+        this.numFreeNodes = 0;
+        this.treeWeight = 0.0;
+
+        this.stamps = new int[DEFAULT_CAPACITY];
+        this.sides = new int[DEFAULT_CAPACITY];
+        this.epoch = 0;
+        this.queues = new int[2][DEFAULT_CAPACITY];
+    }
+
+    // Constructs a new graph containing the given vertices and edges, added in order.
+    // @throws IllegalArgumentException  if any of the edges have a negative weight
+    // @throws IllegalArgumentException  if one of the edges connects to a vertex not present in the 'vertices' list
+    // @throws IllegalArgumentException  if the same edge is given twice
+    public DynamicGraph(IList<V> vertices, IList<E> edges) {
+        this();
+        for (V vertex : vertices) {
+            this.addVertex(vertex);
+        }
+        for (E edge : edges) {
+            this.addEdge(edge);
+        }
+    }
+
+    // Returns the number of vertices contained within this graph.
+    public int numVertices() {
+        return this.slots.numVertices();
+    }
+
+    // Returns the number of edges contained within this graph.
+    public int numEdges() {
+        return this.slots.size();
+    }
+
+    public boolean containsVertex(V vertex) {
+        return vertex != null && this.vertexIds.containsKey(vertex);
+    }
+
+    public boolean containsEdge(E edge) {
+        return this.slots.contains(edge);
+    }
+
+    // Adds the vertex to the graph, without any edges. Does nothing if it is already present.
+    // @throws IllegalArgumentException  if the vertex is null
+    public void addVertex(V vertex) {
+        if (vertex == null) {
+            throw new IllegalArgumentException();
+        }
+        if (vertexIds.containsKey(vertex)) {
+            return;
+        }
+
+        int id = slots.addVertex();
+        if (id == vertexNodes.length) {
+            int capacity = 2 * vertexNodes.length;
+            vertexNodes = Arrays.copyOf(vertexNodes, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+            queues[0] = new int[capacity];
+            queues[1] = new int[capacity];
+        }
+        vertexIds.put(vertex, id);
+        vertexNodes[id] = forest.addNode(Double.NEGATIVE_INFINITY, -1);
+    }
+
+    // Adds the edge to the graph, and updates the minimum spanning forest.
+    // @throws IllegalArgumentException  if the edge is null or has a negative weight
+    // @throws IllegalArgumentException  if either endpoint is not a vertex of this graph
+    // @throws IllegalArgumentException  if the edge is already part of this graph
+    public void addEdge(E edge) {
+        if (edge == null || !(edge.getWeight() >= 0) || slots.contains(edge)) {
+            throw new IllegalArgumentException();
+        }
+        int source = idOf(edge.getVertex1());
+        int target = idOf(edge.getVertex2());
+
+        int slot = slots.add(edge, source, target, edge.getWeight());
+        if (slot == edgeOrder.length) {
+            edgeOrder = Arrays.copyOf(edgeOrder, 2 * edgeOrder.length);
+            treeNodes = Arrays.copyOf(treeNodes, 2 * treeNodes.length);
+        }
+        edgeOrder[slot] = nextOrder++;
+        treeNodes[slot] = -1;
+
+        offerToTree(slot);
+    }
+
+    // Removes the edge from the graph, and updates the minimum spanning forest.
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public void removeEdge(E edge) {
+        int slot = slots.remove(edge);
+        if (treeNodes[slot] != -1) {
+            removeFromTree(slot);
+            reconnect(slots.sourceOf(slot), slots.targetOf(slot));
+        }
+    }
+
+    // Changes the weight of the edge, and updates the minimum spanning forest. The edge keeps
+    // its place among edges of equal weight.
+    // @throws IllegalArgumentException  if the weight is negative
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public void updateWeight(E edge, double weight) {
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        int slot = slots.slotOf(edge);
+        double oldWeight = slots.weightOf(slot);
+        slots.setWeight(slot, weight);
+
+        if (treeNodes[slot] != -1) {
+            treeWeight += weight - oldWeight;
+            forest.setKey(treeNodes[slot], weight, edgeOrder[slot]);
+            if (weight > oldWeight) {
+                // A heavier tree edge may now have a lighter replacement, possibly itself.
+                removeFromTree(slot);
+                reconnect(slots.sourceOf(slot), slots.targetOf(slot));
+            }
+        } else if (weight < oldWeight) {
+            offerToTree(slot);
+        }
+    }
+
+    // Returns the weight this graph currently uses for the edge.
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public double weightOf(E edge) {
+        return slots.weightOf(slots.slotOf(edge));
+    }
+
+    // Returns 'true' if the edge is part of the minimum spanning forest.
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public boolean isInMinimumSpanningTree(E edge) {
+        return treeNodes[slots.slotOf(edge)] != -1;
+    }
+
+    // Returns the total weight of the minimum spanning forest.
+    public double minimumSpanningTreeWeight() {
+        return this.treeWeight;
+    }
+
+    // Returns the set of all edges that make up the minimum spanning forest of this graph. The
+    // set is a copy, and does not change along with the graph.
+    public ISet<E> findMinimumSpanningTree() {
+        ISet<E> minSpanTree = new ChainedHashSet<>();
+        for (int slot = 0; slot < slots.numSlots(); slot++) {
+            if (slots.edgeAt(slot) != null && treeNodes[slot] != -1) {
+                minSpanTree.add(slots.edgeAt(slot));
+            }
+        }
+        return minSpanTree;
+    }
+
+    // Returns the edges that make up the shortest path from the start to the end, using the
+    // current weights.
+    // Returns an empty list if the start and end vertices are the same.
+    // @throws IllegalArgumentException  if either vertex is not part of this graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findShortestPathBetween(V start, V end) {
+        int startId = idOf(start);
+        int endId = idOf(end);
+
+        // The spanning forest tells right away whether the two are connected at all.
+        boolean connected = forest.connected(vertexNodes[startId], vertexNodes[endId]);
+        if (CompactGraph.checkEndpoints(startId, endId, slots.degree(startId), slots.degree(endId), connected)) {
+            return new DoubleLinkedList<E>();
+        }
+
+        if (context == null || context.cost.length < slots.numVertices()) {
+            context = new SearchContext(vertexNodes.length);
+        }
+        context.reset();
+        double[] cost = context.cost;
+        IndexedMinHeap heap = context.heap;
+
+        context.reach(startId);
+        cost[startId] = 0.0;
+        heap.insert(startId, 0.0);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.removeMin();
+            if (vertex == endId) {
+                IList<E> fullPath = new DoubleLinkedList<E>();
+                while (vertex != startId) {
+                    int slot = context.predecessorEdge[vertex];
+                    fullPath.insert(0, slots.edgeAt(slot));
+                    vertex = slots.otherEndpoint(slot, vertex);
+                }
+                return fullPath;
+            }
+
+            for (int i = 0; i < slots.degree(vertex); i++) {
+                int slot = slots.incidentSlot(vertex, i);
+                int other = slots.otherEndpoint(slot, vertex);
+                double newCost = cost[vertex] + slots.weightOf(slot);
+                context.reach(other);
+                if (newCost < cost[other]) {
+                    cost[other] = newCost;
+                    context.predecessorEdge[other] = slot;
+                    heap.insertOrDecrease(other, newCost);
+                }
+            }
+        }
+
+        throw new NoPathExistsException();
+    }
+
+    // Makes the edge a tree edge if it connects two trees, or if it is lighter than the heaviest
+    // edge on the cycle it closes, which then leaves the tree.
+    private void offerToTree(int slot) {
+        int source = slots.sourceOf(slot);
+        int target = slots.targetOf(slot);
+        if (source == target) {
+            return;
+        }
+
+        int sourceNode = vertexNodes[source];
+        int targetNode = vertexNodes[target];
+        if (forest.connected(sourceNode, targetNode)) {
+            int heaviestSlot = nodeSlots[forest.heaviestOnPath(sourceNode, targetNode)];
+            if (!isLighter(slot, heaviestSlot)) {
+                return;
+            }
+            removeFromTree(heaviestSlot);
+        }
+        addToTree(slot);
+    }
+
+    private void addToTree(int slot) {
+        int node;
+        if (numFreeNodes > 0) {
+            node = freeNodes[--numFreeNodes];
+            forest.reset(node, slots.weightOf(slot), edgeOrder[slot]);
+        } else {
+            node = forest.addNode(slots.weightOf(slot), edgeOrder[slot]);
+        }
+        nodeSlots = ensureCapacity(nodeSlots, node + 1);
+        nodeSlots[node] = slot;
+
+        treeNodes[slot] = node;
+        forest.link(vertexNodes[slots.sourceOf(slot)], node);
+        forest.link(node, vertexNodes[slots.targetOf(slot)]);
+        treeWeight += slots.weightOf(slot);
+    }
+
+    private void removeFromTree(int slot) {
+        int node = treeNodes[slot];
+        forest.cut(vertexNodes[slots.sourceOf(slot)], node);
+        forest.cut(node, vertexNodes[slots.targetOf(slot)]);
+        freeNodes = ensureCapacity(freeNodes, numFreeNodes + 1);
+        freeNodes[numFreeNodes++] = node;
+
+        treeNodes[slot] = -1;
+        treeWeight -= slots.weightOf(slot);
+    }
+
+    // After a tree edge between 'a' and 'b' was removed, finds the lightest edge joining the two
+    // halves of the old tree, if any, and adds it to the tree.
+    //
+    // Both halves are explored one vertex at a time, alternating between them. The first half
+    // to run out of vertices is the smaller one (or close to it), and every edge joining the
+    // halves has an endpoint in it, so only its edges need to be scanned.
+    private void reconnect(int a, int b) {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+        int[] heads = {0, 0};
+        int[] tails = {0, 0};
+        int[] starts = {a, b};
+        for (int side = 0; side < 2; side++) {
+            stamps[starts[side]] = epoch;
+            sides[starts[side]] = side;
+            queues[side][tails[side]++] = starts[side];
+        }
+
+        int side = 0;
+        while (heads[side] < tails[side]) {
+            int vertex = queues[side][heads[side]++];
+            for (int i = 0; i < slots.degree(vertex); i++) {
+                int slot = slots.incidentSlot(vertex, i);
+                int other = slots.otherEndpoint(slot, vertex);
+                if (treeNodes[slot] != -1 && stamps[other] != epoch) {
+                    stamps[other] = epoch;
+                    sides[other] = side;
+                    queues[side][tails[side]++] = other;
+                }
+            }
+            side = 1 - side;
+        }
+
+        // 'side' has been fully explored; anything not marked as part of it is on the other one.
+        int best = -1;
+        for (int k = 0; k < tails[side]; k++) {
+            int vertex = queues[side][k];
+            for (int i = 0; i < slots.degree(vertex); i++) {
+                int slot = slots.incidentSlot(vertex, i);
+                int other = slots.otherEndpoint(slot, vertex);
+                boolean crosses = stamps[other] != epoch || sides[other] != side;
+                if (crosses && (best == -1 || isLighter(slot, best))) {
+                    best = slot;
+                }
+            }
+        }
+
+        if (best != -1) {
+            addToTree(best);
+        }
+    }
+
+    // Returns 'true' if edge 'a' comes before edge 'b': lighter, or as light but added earlier.
+    private boolean isLighter(int a, int b) {
+        double weightA = slots.weightOf(a);
+        double weightB = slots.weightOf(b);
+        return weightA < weightB || (weightA == weightB && edgeOrder[a] < edgeOrder[b]);
+    }
+
+    private int idOf(V vertex) {
+        Integer id = vertex == null ? null : vertexIds.getOrDefault(vertex, null);
+        if (id == null) {
+            throw new IllegalArgumentException();
+        }
+        return id;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+    }
+}
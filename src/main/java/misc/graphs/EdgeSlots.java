@@ -0,0 +1,217 @@
+package misc.graphs;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The edges of an undirected graph whose edges are added and removed one at a time, together
+ * with the incident edges of every vertex, for the classes that edit a graph in place.
+ *
+ * Vertices are numbered 0 to numVertices() - 1 by the owner. Every edge lives in a slot, and
+ * the slots of removed edges are reused by later edges, so an owner can keep its own data about
+ * each edge in arrays indexed by slot. Each edge also records its position in the incident edge
+ * lists of both of its endpoints, so adding and removing an edge both cost O(1).
+ *
+ * After an edge is removed, its endpoints and weight stay readable through its old slot until
+ * the next edge is added.
+ *
+ * This class is not thread-safe.
+ */
+public final class EdgeSlots<E> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int numVertices;
+    private int[][] incidentEdges;
+    private int[] degrees;
+
+    private IDictionary<E, Integer> slots;
+    private E[] edges;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int[] sourcePositions;
+    private int[] targetPositions;
+    private int[] freeSlots;
+    private int numFreeSlots;
+    private int numSlots;
+
+    // Creates a store for the given number of vertices, without any edges, with room for the
+    // given number of edges before it has to grow.
+    public EdgeSlots(int numVertices, int edgeCapacity) {
+        this.numVertices = numVertices;
+        this.incidentEdges = new int[Math.max(numVertices, DEFAULT_CAPACITY)][];
+        for (int v = 0; v < numVertices; v++) {
+            incidentEdges[v] = new int[4];
+        }
+        this.degrees = new int[incidentEdges.length];
+
+        int capacity = Math.max(edgeCapacity, DEFAULT_CAPACITY);
+        this.slots = new ChainedHashDictionary<>(2 * capacity);
+        this.edges = makeArrayOfE(capacity);
+        this.sources = new int[capacity];
+        this.targets = new int[capacity];
+        this.weights = new double[capacity];
+        this.sourcePositions = new int[capacity];
+        this.targetPositions = new int[capacity];
+        this.freeSlots = new int[DEFAULT_CAPACITY];
+        this.numFreeSlots = 0;
+        this.numSlots = 0;
+    }
+
+    // Returns the number of vertices.
+    public int numVertices() {
+        return this.numVertices;
+    }
+
+    // Adds a vertex without any edges, and returns its number.
+    public int addVertex() {
+        if (numVertices == degrees.length) {
+            int capacity = 2 * degrees.length;
+            incidentEdges = Arrays.copyOf(incidentEdges, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+        }
+        incidentEdges[numVertices] = new int[4];
+        return numVertices++;
+    }
+
+    // Returns the number of edges.
+    public int size() {
+        return this.slots.size();
+    }
+
+    // Returns one more than the highest slot ever used. Every edge has a slot below it.
+    public int numSlots() {
+        return this.numSlots;
+    }
+
+    public boolean contains(E edge) {
+        return edge != null && this.slots.containsKey(edge);
+    }
+
+    // Returns the slot of the edge.
+    // @throws NoSuchElementException  if the edge is not present
+    public int slotOf(E edge) {
+        Integer slot = edge == null ? null : slots.getOrDefault(edge, null);
+        if (slot == null) {
+            throw new NoSuchElementException();
+        }
+        return slot;
+    }
+
+    // Adds the edge between the given vertices, and returns its slot.
+    // @throws IllegalArgumentException  if the edge is null or already present
+    public int add(E edge, int source, int target, double weight) {
+        if (edge == null || slots.containsKey(edge)) {
+            throw new IllegalArgumentException();
+        }
+        int slot = allocateSlot();
+        slots.put(edge, slot);
+        edges[slot] = edge;
+        sources[slot] = source;
+        targets[slot] = target;
+        weights[slot] = weight;
+        sourcePositions[slot] = appendIncident(source, slot);
+        targetPositions[slot] = source == target ? sourcePositions[slot] : appendIncident(target, slot);
+        return slot;
+    }
+
+    // Removes the edge, and returns the slot it was in.
+    // @throws NoSuchElementException  if the edge is not present
+    public int remove(E edge) {
+        int slot = slotOf(edge);
+        slots.remove(edge);
+        edges[slot] = null;
+        removeIncident(sources[slot], sourcePositions[slot]);
+        if (sources[slot] != targets[slot]) {
+            removeIncident(targets[slot], targetPositions[slot]);
+        }
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, 2 * freeSlots.length);
+        }
+        freeSlots[numFreeSlots++] = slot;
+        return slot;
+    }
+
+    // Returns the edge in the slot, or null if the slot is free.
+    public E edgeAt(int slot) {
+        return edges[slot];
+    }
+
+    public int sourceOf(int slot) {
+        return sources[slot];
+    }
+
+    public int targetOf(int slot) {
+        return targets[slot];
+    }
+
+    // Returns the endpoint of the edge in the slot that is not the given vertex.
+    public int otherEndpoint(int slot, int vertex) {
+        return sources[slot] == vertex ? targets[slot] : sources[slot];
+    }
+
+    public double weightOf(int slot) {
+        return weights[slot];
+    }
+
+    public void setWeight(int slot, double weight) {
+        weights[slot] = weight;
+    }
+
+    // Returns the number of edges incident to the vertex; a self-loop counts once.
+    public int degree(int vertex) {
+        return degrees[vertex];
+    }
+
+    // Returns the slot of the i-th edge incident to the vertex. The order changes as edges are
+    // removed.
+    public int incidentSlot(int vertex, int i) {
+        return incidentEdges[vertex][i];
+    }
+
+    private int allocateSlot() {
+        if (numFreeSlots > 0) {
+            return freeSlots[--numFreeSlots];
+        }
+        if (numSlots == edges.length) {
+            int capacity = 2 * edges.length;
+            edges = Arrays.copyOf(edges, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            sourcePositions = Arrays.copyOf(sourcePositions, capacity);
+            targetPositions = Arrays.copyOf(targetPositions, capacity);
+        }
+        return numSlots++;
+    }
+
+    // Appends the edge to the vertex's incident edges, and returns its position there.
+    private int appendIncident(int vertex, int slot) {
+        if (degrees[vertex] == incidentEdges[vertex].length) {
+            incidentEdges[vertex] = Arrays.copyOf(incidentEdges[vertex], 2 * incidentEdges[vertex].length);
+        }
+        incidentEdges[vertex][degrees[vertex]] = slot;
+        return degrees[vertex]++;
+    }
+
+    // Removes the edge at the given position from the vertex's incident edges, by moving the
+    // last one into its place.
+    private void removeIncident(int vertex, int position) {
+        int last = incidentEdges[vertex][--degrees[vertex]];
+        incidentEdges[vertex][position] = last;
+        if (sources[last] == vertex) {
+            sourcePositions[last] = position;
+        }
+        if (targets[last] == vertex) {
+            targetPositions[last] = position;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E[] makeArrayOfE(int size) {
+        return (E[]) new Object[size];
+    }
+}
@@ -0,0 +1,108 @@
+package misc.graphs;
+
+import datastructures.concrete.IntDisjointSet;
+import misc.Searcher;
+import misc.graphs.SearchStats.Metric;
+
+/**
+ * Finds a minimum spanning forest with Filter-Kruskal.
+ *
+ * Plain Kruskal sorts every edge, although on most graphs the bulk of the heavier edges end up
+ * rejected because their endpoints were already connected by lighter ones. Filter-Kruskal
+ * partitions the edges around a pivot the way quicksort does, and runs on the light half first.
+ * Before recursing into the heavy half, it filters out every edge whose endpoints the light half
+ * already connected, so those edges are never sorted at all. Only small pieces are sorted, and
+ * the filtering, which looks at every remaining edge, is done in parallel.
+ *
+ * Edges are compared by weight and then by edge id, and every partition and filter keeps the
+ * edges in their original order, so the result is the same tree Kruskal's algorithm finds.
+ */
+final class FilterKruskalMst {
+    // Pieces of at most this many edges are sorted and processed directly.
+    private static final int SORT_THRESHOLD = 1 << 10;
+
+    private CompactGraph<?, ?> graph;
+    private double[] edgeWeights;
+    private IntDisjointSet components;
+
+    private int[] treeEdges;
+    private int numTreeEdges;
+
+    // Edges handed to the heavy half's filter, and edges sorted and run through union.
+    private long filteredEdges;
+    private long unions;
+
+    private FilterKruskalMst(CompactGraph<?, ?> graph) {
+        this.graph = graph;
+        this.edgeWeights = graph.edgeWeights;
+        this.components = new IntDisjointSet(graph.numVertices());
+        this.treeEdges = new int[Math.max(graph.numVertices() - 1, 0)];
+        this.numTreeEdges = 0;
+    }
+
+    // Returns the ids of the edges in the minimum spanning forest of the graph, and adds the
+    // edges it looked at and its union operations to the counters, indexed by Metric.ordinal().
+    static int[] findTreeEdges(CompactGraph<?, ?> graph, long[] counters) {
+        int[] allEdges = new int[graph.numEdges()];
+        for (int i = 0; i < allEdges.length; i++) {
+            allEdges[i] = i;
+        }
+
+        FilterKruskalMst mst = new FilterKruskalMst(graph);
+        mst.run(allEdges);
+        counters[Metric.RELAXED_EDGES.ordinal()] += mst.filteredEdges + mst.unions;
+        counters[Metric.UNION_OPERATIONS.ordinal()] += mst.unions;
+
+        int[] result = new int[mst.numTreeEdges];
+        System.arraycopy(mst.treeEdges, 0, result, 0, mst.numTreeEdges);
+        return result;
+    }
+
+    // Adds the tree edges among the given edges, which must be in increasing order of id, and
+    // must all be heavier than any edge processed before them.
+    private void run(int[] edges) {
+        if (edges.length <= SORT_THRESHOLD) {
+            kruskal(edges);
+            return;
+        }
+
+        int pivot = choosePivot(edges);
+        int[] light = ParallelLoops.filter(edges, edgeId -> !graph.isCheaper(pivot, edgeId));
+        run(light);
+
+        filteredEdges += edges.length - light.length;
+        int[] heavy = ParallelLoops.filter(edges, edgeId -> graph.isCheaper(pivot, edgeId)
+                && components.findRoot(graph.edgeSources[edgeId]) != components.findRoot(graph.edgeTargets[edgeId]));
+        run(heavy);
+    }
+
+    // Sorts the edges and adds them in order unless they would form a cycle.
+    private void kruskal(int[] edges) {
+        unions += edges.length;
+        double[] weights = new double[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            weights[i] = edgeWeights[edges[i]];
+        }
+
+        // The sort is stable and the edges come in increasing order of id, so ties stay in order.
+        for (int index : Searcher.sortedIndices(weights)) {
+            int edgeId = edges[index];
+            if (components.union(graph.edgeSources[edgeId], graph.edgeTargets[edgeId])) {
+                treeEdges[numTreeEdges++] = edgeId;
+            }
+        }
+    }
+
+    // Returns the median of the first, middle and last edges. Since no two edges compare equal,
+    // it is never the heaviest edge, so the light half never contains every edge.
+    private int choosePivot(int[] edges) {
+        int a = edges[0];
+        int b = edges[edges.length / 2];
+        int c = edges[edges.length - 1];
+        if (graph.isCheaper(a, b)) {
+            return graph.isCheaper(b, c) ? b : (graph.isCheaper(a, c) ? c : a);
+        } else {
+            return graph.isCheaper(a, c) ? a : (graph.isCheaper(b, c) ? c : b);
+        }
+    }
+}
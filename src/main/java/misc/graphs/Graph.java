@@ -1,231 +1,943 @@
 package misc.graphs;
 
 import misc.Searcher;
-import datastructures.concrete.ArrayDisjointSet;
-import datastructures.concrete.ArrayHeap;
 import datastructures.concrete.ChainedHashSet;
 import datastructures.concrete.DoubleLinkedList;
-import datastructures.concrete.KVPair;
+import datastructures.concrete.IndexedMinHeap;
+import datastructures.concrete.IntDisjointSet;
 import datastructures.concrete.dictionaries.ChainedHashDictionary;
 import datastructures.interfaces.IDictionary;
-import datastructures.interfaces.IDisjointSet;
 import datastructures.interfaces.IList;
-import datastructures.interfaces.IPriorityQueue;
 import datastructures.interfaces.ISet;
 import misc.exceptions.NoPathExistsException;
+import misc.graphs.SearchStats.Metric;
+import misc.graphs.SearchStats.Operation;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Represents an undirected, weighted graph, possibly containing self-loops, parallel edges,
  * and unconnected components.
+ *
+ * Internally, the graph is stored as a CompactGraph: vertices and edges are assigned dense
+ * integer ids, and the algorithms below run over flat primitive arrays rather than over
+ * dictionaries keyed by the vertices themselves.
  */
 public class Graph<V, E extends Edge<V> & Comparable<E>> {
-    private IDictionary<V, IDictionary<V, IList<E>>> adjacencyList;
-    private int numVertices;
-    private int numEdges;
-    private ISet<V> verticesWithEdges;
-    private IList<E> edgesWithEdges;
-    
+    // The average number of edges per vertex at which MstAlgorithm.AUTOMATIC switches from
+    // Kruskal to Filter-Kruskal, and from Filter-Kruskal to Prim. Measured on random graphs.
+    private static final int FILTER_KRUSKAL_MIN_EDGES_PER_VERTEX = 4;
+    private static final int PRIM_MIN_EDGES_PER_VERTEX = 256;
+
+    private CompactGraph<V, E> compact;
+
+    // Reusable search state, one per thread that searches this graph. Bidirectional searches
+    // need a second one for their backward half.
+    private ThreadLocal<SearchContext> forwardContexts;
+    private ThreadLocal<SearchContext> backwardContexts;
+
+    // Receives the statistics of every search, or null to skip collecting them.
+    private volatile GraphSearchListener listener;
+
     // Constructs a new graph based on the given vertices and edges.
     // @throws IllegalArgumentException  if any of the edges have a negative weight
     // @throws IllegalArgumentException  if one of the edges connects to a vertex not present in the 'vertices' list
-    public Graph(IList<V> vertices, IList<E> edges) {    
-        adjacencyList = new ChainedHashDictionary<V, IDictionary<V, IList<E>>>(vertices.size());
-        verticesWithEdges = new ChainedHashSet<V>();
-        int numEdge = 0;
-        
-        for (V vertex : vertices) {
-            adjacencyList.put(vertex, null);
-        }
-        
-        for (E edge : edges) {
-            V vertex1 = edge.getVertex1();
-            V vertex2 = edge.getVertex2();
-            
-            if (edge.getWeight() < 0 || !adjacencyList.containsKey(vertex1) || 
-                    !adjacencyList.containsKey(vertex2)) {
-                throw new IllegalArgumentException();
-            }
-            
-            if (!verticesWithEdges.contains(vertex1)) {
-                verticesWithEdges.add(vertex1);
-            } 
-            
-            if (!verticesWithEdges.contains(vertex2)) {
-                verticesWithEdges.add(vertex2);
-            } 
-            
-            addEdgeToGraph(vertex1, vertex2, edge);         
-            addEdgeToGraph(vertex2, vertex1, edge);
-            
-            numEdge++;
-        }  
-        
-        numVertices = adjacencyList.size();
-        numEdges = numEdge;
-        edgesWithEdges = edges;
-    }
-    
-    // Checks if the vertex1 has any edges, if not adds a new dictionary with the new edge
-    private void addEdgeToGraph(V vertex1, V vertex2, E edge) {
-        if (adjacencyList.get(vertex1) == null) {  
-            IDictionary<V, IList<E>> edgeDict = new ChainedHashDictionary<V, IList<E>>(5); 
-            IList<E> edgeList = new DoubleLinkedList<E>();
-            edgeList.add(edge);
-            edgeDict.put(vertex2, edgeList);
-            adjacencyList.put(vertex1, edgeDict);
-        } else if (!adjacencyList.get(vertex1).containsKey(vertex2)) {
-            IList<E> edgeList = new DoubleLinkedList<E>();
-            edgeList.add(edge);
-            adjacencyList.get(vertex1).put(vertex2, edgeList);
-        } else {
-            if (adjacencyList.get(vertex1).get(vertex2).get(0).compareTo(edge) <= 0) {
-                adjacencyList.get(vertex1).get(vertex2).add(edge);
-            } else {
-                adjacencyList.get(vertex1).get(vertex2).insert(0, edge);
-            }     
-        }
+    public Graph(IList<V> vertices, IList<E> edges) {
+        this(new Builder<V, E>(vertices.size(), edges.size())
+                .addVertices(vertices.iterator())
+                .addEdges(edges.iterator())
+                .buildCompactGraph());
     }
 
     public Graph(ISet<V> vertices, ISet<E> edges) {
-        this(setToList(vertices), setToList(edges));
+        this(new Builder<V, E>(vertices.size(), edges.size())
+                .addVertices(vertices.iterator())
+                .addEdges(edges.iterator())
+                .buildCompactGraph());
     }
 
-    private static <T> IList<T> setToList(ISet<T> set) {
-        IList<T> output = new DoubleLinkedList<>();
-        for (T item : set) {
-            output.add(item);
-        }
-        return output;
+    private Graph(CompactGraph<V, E> compact) {
+        this.compact = compact;
+        this.forwardContexts = ThreadLocal.withInitial(() -> new SearchContext(compact.numVertices()));
+        this.backwardContexts = ThreadLocal.withInitial(() -> new SearchContext(compact.numVertices()));
     }
 
     // Returns the number of vertices contained within this graph.
     public int numVertices() {
-        return this.numVertices;
+        return this.compact.numVertices();
     }
 
     // Returns the number of edges contained within this graph.
     public int numEdges() {
-        return this.numEdges;
+        return this.compact.numEdges();
+    }
+
+    // Returns the compressed sparse row form of this graph, which also holds the mapping
+    // between vertices and their integer ids.
+    public CompactGraph<V, E> getCompactGraph() {
+        return this.compact;
+    }
+
+    // Returns a graph with the same vertices and edges as this one, where each edge weighs
+    // whatever the function says instead of its own getWeight(). The edges themselves are never
+    // touched, and everything except the weights is shared with this graph, so many threads can
+    // each lay their own weights over one graph at the same time.
+    // @throws IllegalArgumentException  if the function returns a negative (or NaN) weight
+    public Graph<V, E> withWeights(ToDoubleFunction<E> weightOf) {
+        double[] weights = new double[compact.numEdges()];
+        for (int edgeId = 0; edgeId < weights.length; edgeId++) {
+            weights[edgeId] = weightOf.applyAsDouble(compact.edgeAt(edgeId));
+        }
+        return reweighed(weights);
+    }
+
+    // Returns a graph with the same vertices and edges as this one, where the edge with id 'i'
+    // (see getCompactGraph) weighs weights[i] instead. The array is copied, so the caller is
+    // free to reuse it afterwards.
+    // @throws IllegalArgumentException  if the array does not hold exactly one weight per edge
+    // @throws IllegalArgumentException  if any of the weights is negative (or NaN)
+    public Graph<V, E> withWeights(double[] weights) {
+        if (weights.length != compact.numEdges()) {
+            throw new IllegalArgumentException();
+        }
+        return reweighed(Arrays.copyOf(weights, weights.length));
+    }
+
+    private Graph<V, E> reweighed(double[] weights) {
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException();
+            }
+        }
+        return new Graph<>(compact.withEdgeWeights(weights));
+    }
+
+    // Installs a listener that receives the statistics of every shortest path search and every
+    // minimum spanning tree computation on this graph, or removes it if the listener is null.
+    // Without a listener, searches only maintain a few local counters and never read the clock.
+    public void setSearchListener(GraphSearchListener listener) {
+        this.listener = listener;
+    }
+
+    // Returns the installed listener, or null if there is none.
+    public GraphSearchListener getSearchListener() {
+        return this.listener;
     }
 
-   
     // Returns the set of all edges that make up the minimum spanning tree of this graph.
     // Precondition: the graph does not contain any unconnected components.
     public ISet<E> findMinimumSpanningTree() {
-        if (adjacencyList == null || edgesWithEdges == null) {
-            throw new IllegalArgumentException();
+        return findMinimumSpanningTree(MstAlgorithm.AUTOMATIC);
+    }
+
+    // Returns the same minimum spanning tree as findMinimumSpanningTree(), computed with the
+    // given algorithm. Ties between edges of equal weight are always broken the same way, so
+    // every algorithm returns the same set.
+    // Precondition: the graph does not contain any unconnected components.
+    public ISet<E> findMinimumSpanningTree(MstAlgorithm algorithm) {
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+        if (algorithm == MstAlgorithm.AUTOMATIC) {
+            algorithm = chooseMstAlgorithm();
         }
 
-        IDisjointSet<V> disSet = new ArrayDisjointSet<V>(verticesWithEdges.size());  
-        for (V vertex : verticesWithEdges) {
-            disSet.makeSet(vertex);   
+        // Every algorithm adds the work it did to the counters, indexed by Metric.ordinal().
+        long[] counters = SearchStats.values(0, 0, 0, 0, 0, 0, 0, 0);
+        int[] treeEdges;
+        if (algorithm == MstAlgorithm.KRUSKAL) {
+            treeEdges = kruskal(counters);
+        } else if (algorithm == MstAlgorithm.FILTER_KRUSKAL) {
+            treeEdges = FilterKruskalMst.findTreeEdges(compact, counters);
+        } else if (algorithm == MstAlgorithm.PRIM) {
+            treeEdges = PrimMst.findTreeEdges(compact, counters);
+        } else if (algorithm == MstAlgorithm.PARALLEL_BORUVKA) {
+            treeEdges = BoruvkaMst.findTreeEdges(compact, counters);
+        } else {
+            throw new IllegalArgumentException();
         }
-        
+
         ISet<E> minSpanTree = new ChainedHashSet<E>();
-        IList<E> sortedEdges = Searcher.topKSort(numEdges, edgesWithEdges);
-        
-        for (E edge : sortedEdges) {
-            if (disSet.findSet(edge.getVertex1()) != disSet.findSet(edge.getVertex2())) {
-                minSpanTree.add(edge);
-                disSet.union(edge.getVertex1(), edge.getVertex2());
+        for (int edgeId : treeEdges) {
+            minSpanTree.add(compact.edgeAt(edgeId));
+        }
+
+        if (currentListener != null) {
+            counters[Metric.REJECTED_EDGES.ordinal()] = compact.numEdges() - treeEdges.length;
+            counters[Metric.ELAPSED_NANOS.ordinal()] = System.nanoTime() - startTime;
+            currentListener.searchFinished(new SearchStats(Operation.MINIMUM_SPANNING_TREE, counters));
+        }
+        return minSpanTree;
+    }
+
+    private MstAlgorithm chooseMstAlgorithm() {
+        long numEdges = compact.numEdges();
+        long numVertices = compact.numVertices();
+        if (numEdges >= PRIM_MIN_EDGES_PER_VERTEX * numVertices) {
+            return MstAlgorithm.PRIM;
+        } else if (numEdges >= FILTER_KRUSKAL_MIN_EDGES_PER_VERTEX * numVertices) {
+            return MstAlgorithm.FILTER_KRUSKAL;
+        } else {
+            return MstAlgorithm.KRUSKAL;
+        }
+    }
+
+    // Returns the ids of the minimum spanning tree edges, found by Kruskal's algorithm, and adds
+    // the edges it looked at and its union operations to the counters.
+    private int[] kruskal(long[] counters) {
+        IntDisjointSet disSet = new IntDisjointSet(compact.numVertices());
+        int[] treeEdges = new int[Math.max(compact.numVertices() - 1, 0)];
+        int numTreeEdges = 0;
+        long unions = 0;
+
+        for (int edgeId : Searcher.sortedIndices(compact.edgeWeights)) {
+            unions++;
+            if (disSet.union(compact.edgeSources[edgeId], compact.edgeTargets[edgeId])) {
+                treeEdges[numTreeEdges++] = edgeId;
             }
         }
-        
-        return minSpanTree;        
+
+        counters[Metric.RELAXED_EDGES.ordinal()] += unions;
+        counters[Metric.UNION_OPERATIONS.ordinal()] += unions;
+        return Arrays.copyOf(treeEdges, numTreeEdges);
+    }
+
+    // Returns the connected components of this graph, each as the set of its vertices. A vertex
+    // without edges forms a component of its own.
+    public IList<ISet<V>> connectedComponents() {
+        IList<ISet<V>> components = new DoubleLinkedList<>();
+        ISet<V>[] byLabel = makeArrayOfSets(compact.numComponents());
+        for (int label = 0; label < byLabel.length; label++) {
+            byLabel[label] = new ChainedHashSet<>();
+            components.add(byLabel[label]);
+        }
+        for (int v = 0; v < compact.numVertices(); v++) {
+            byLabel[compact.componentOf(v)].add(compact.vertexAt(v));
+        }
+        return components;
+    }
+
+    // Returns 'true' if there is a path between the two vertices, in O(1) once the components
+    // have been labelled (see CompactGraph.componentOf). Every vertex can reach itself.
+    // @throws IllegalArgumentException  if either vertex is not a part of this graph
+    public boolean isReachable(V a, V b) {
+        return compact.componentOf(compact.idOf(a)) == compact.componentOf(compact.idOf(b));
     }
-    
 
+    @SuppressWarnings("unchecked")
+    private ISet<V>[] makeArrayOfSets(int size) {
+        return (ISet<V>[]) new ISet[size];
+    }
 
     // Returns the edges that make up the shortest path from the start to the end.
     // Returns an empty list if the start and end vertices are the same.
     // @throws NoPathExistsException  if there does not exist a path from the start to the end
     public IList<E> findShortestPathBetween(V start, V end) {
-        if (start == null || end == null || !adjacencyList.containsKey(start) || !adjacencyList.containsKey(end)) {
+        return findShortestPath(start, end, null, null);
+    }
+
+    // Returns a shortest path of the same cost as findShortestPathBetween's, but runs A*:
+    // vertices are expanded in order of their cost so far plus the heuristic's estimate of the
+    // cost left to the end, so the search heads toward the end instead of growing evenly in every
+    // direction. Where several paths tie, the heuristic's estimates decide which one is found.
+    // The heuristic must never overestimate (see Heuristic); it is evaluated at most once per
+    // vertex the search reaches.
+    // @throws IllegalArgumentException  if the heuristic is null
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findShortestPathBetween(V start, V end, Heuristic<V> heuristic) {
+        if (heuristic == null) {
             throw new IllegalArgumentException();
         }
-        
-        if (adjacencyList.get(start) == null || adjacencyList.get(end) == null) {
+        return findShortestPath(start, end, heuristic, null);
+    }
+
+    // Runs A* from the start to the end, or plain Dijkstra if the heuristic is null, using the
+    // given search state, or the calling thread's if it is null.
+    private IList<E> findShortestPath(V start, V end, Heuristic<V> heuristic, SearchContext context) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+
+        // Fails right away between components, instead of exhausting the start's first.
+        if (compact.checkEndpoints(startId, endId)) {
+            return new DoubleLinkedList<E>();
+        }
+
+        if (context == null) {
+            context = forwardContexts.get();
+        }
+        if (!search(context, startId, endId, heuristic)) {
             throw new NoPathExistsException();
         }
-        
-        if (start.equals(end)) {
-           return new DoubleLinkedList<E>();
-        }
-        
-        IPriorityQueue<Vertex<V>> heap = new ArrayHeap<>();
-        IDictionary<V, Vertex<V>> vertexObjects = new ChainedHashDictionary<V, Vertex<V>>();
-        
-        for (KVPair<V, IDictionary<V, IList<E>>> vertices : adjacencyList) {
-            if (vertices.getValue() != null) {
-                Vertex<V> vertexOb;
-                if (start.equals(vertices.getKey())) {
-                    vertexOb = new Vertex<V>(start, 0.0);
-                } else {
-                    vertexOb = new Vertex<V>(vertices.getKey());
+        return buildPath(context, startId, endId);
+    }
+
+    // Runs a batch of shortest path queries in parallel on the common fork-join pool, and returns
+    // their results in the same order. See findShortestPaths(IList, Executor, int).
+    public IList<PathQueryResult<V, E>> findShortestPaths(IList<PathQuery<V>> queries) {
+        return findShortestPaths(queries, ForkJoinPool.commonPool(), ParallelLoops.parallelism());
+    }
+
+    // Runs a batch of shortest path queries on up to 'numWorkers' threads at once: the calling
+    // thread, plus numWorkers - 1 tasks handed to the executor. Each worker owns its search state
+    // for the whole batch and keeps taking the next unanswered query until none are left, so
+    // slow queries do not hold up the others. Any executor works, including one that starts a
+    // virtual thread per task; if it rejects a task, the batch simply runs on fewer workers.
+    //
+    // Returns one result per query, in the same order as the queries. A query that fails, for
+    // example with a NoPathExistsException, only fails its own result.
+    // @throws IllegalArgumentException  if numWorkers is not positive
+    public IList<PathQueryResult<V, E>> findShortestPaths(IList<PathQuery<V>> queries, Executor executor,
+                                                          int numWorkers) {
+        if (numWorkers <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        // Copied into an array, since IList.get may take linear time.
+        PathQuery<V>[] batch = makeArrayOfQueries(queries.size());
+        int index = 0;
+        for (PathQuery<V> query : queries) {
+            batch[index++] = query;
+        }
+        PathQueryResult<V, E>[] results = makeArrayOfResults(batch.length);
+        AtomicInteger nextQuery = new AtomicInteger(0);
+
+        int numTasks = Math.min(numWorkers, batch.length) - 1;
+        CountDownLatch finished = new CountDownLatch(Math.max(numTasks, 0));
+        AtomicReference<Throwable> crash = new AtomicReference<>();
+        Runnable worker = () -> {
+            try {
+                answerQueries(batch, results, nextQuery);
+            } catch (Throwable ex) {
+                crash.compareAndSet(null, ex);
+            } finally {
+                finished.countDown();
+            }
+        };
+        for (int i = 0; i < numTasks; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException ex) {
+                finished.countDown();
+            }
+        }
+
+        answerQueries(batch, results, nextQuery);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException ex) {
+                // The results are still being written; give up on waiting only once they are done.
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (crash.get() != null) {
+            throw new IllegalStateException("A worker crashed while answering queries", crash.get());
+        }
+
+        IList<PathQueryResult<V, E>> output = new DoubleLinkedList<>();
+        for (PathQueryResult<V, E> result : results) {
+            output.add(result);
+        }
+        return output;
+    }
+
+    // Answers queries from the batch, claiming them one at a time, until none are left.
+    private void answerQueries(PathQuery<V>[] batch, PathQueryResult<V, E>[] results, AtomicInteger nextQuery) {
+        SearchContext context = null;
+        for (int i = nextQuery.getAndIncrement(); i < batch.length; i = nextQuery.getAndIncrement()) {
+            PathQuery<V> query = batch[i];
+            if (context == null) {
+                context = new SearchContext(compact.numVertices());
+            }
+            try {
+                IList<E> path = findShortestPath(query.getStart(), query.getEnd(), null, context);
+                results[i] = new PathQueryResult<>(query, path, null);
+            } catch (RuntimeException ex) {
+                results[i] = new PathQueryResult<>(query, null, ex);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PathQuery<V>[] makeArrayOfQueries(int size) {
+        return (PathQuery<V>[]) new PathQuery[size];
+    }
+
+    @SuppressWarnings("unchecked")
+    private PathQueryResult<V, E>[] makeArrayOfResults(int size) {
+        return (PathQueryResult<V, E>[]) new PathQueryResult[size];
+    }
+
+    // Returns the shortest paths from the source to every vertex of the graph, found with a
+    // single search. This is much cheaper than calling findShortestPathBetween once per vertex
+    // when many vertices need to reach (or be reached from) the same source.
+    public ShortestPathTree<V, E> findShortestPathsFrom(V source) {
+        int sourceId = compact.idOf(source);
+        SearchContext context = forwardContexts.get();
+        search(context, sourceId, -1, null);
+
+        double[] cost = new double[compact.numVertices()];
+        int[] predecessorEdge = new int[compact.numVertices()];
+        for (int v = 0; v < cost.length; v++) {
+            cost[v] = context.costOf(v);
+            predecessorEdge[v] = context.predecessorOf(v);
+        }
+        return new ShortestPathTree<>(compact, sourceId, cost, predecessorEdge);
+    }
+
+    // Returns a shortest path tree with the same distances as findShortestPathsFrom's, found
+    // with a delta-stepping search that relaxes edges on every core of the common fork-join
+    // pool. Where a vertex has several shortest paths, the threads' timing decides which
+    // predecessor it keeps, so pathTo may return a different path of the same cost. The bucket
+    // width is chosen from the weights of the graph. Worth it on large graphs whose searches settle many
+    // vertices per bucket, such as big mazes; on small graphs, or with a single core, the
+    // ordinary search is faster.
+    public ShortestPathTree<V, E> findShortestPathsFromInParallel(V source) {
+        return findShortestPathsFromInParallel(source, DeltaStepping.chooseDelta(compact));
+    }
+
+    // Returns a shortest path tree with the same distances as findShortestPathsFrom's, found
+    // with a delta-stepping search whose buckets are 'delta' wide. Ties between paths of equal
+    // cost can be broken differently, as above. Wider buckets relax more vertices in parallel, but
+    // waste more work relaxing vertices whose distance has yet to drop.
+    // @throws IllegalArgumentException  if the source is not a part of this graph
+    // @throws IllegalArgumentException  if delta is not a positive, finite number
+    public ShortestPathTree<V, E> findShortestPathsFromInParallel(V source, double delta) {
+        int sourceId = compact.idOf(source);
+        if (!(delta > 0) || delta == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException();
+        }
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+
+        double[] cost = new double[compact.numVertices()];
+        int[] predecessorEdge = new int[compact.numVertices()];
+        DeltaStepping search = DeltaStepping.run(compact, sourceId, delta, cost, predecessorEdge);
+
+        if (currentListener != null) {
+            currentListener.searchFinished(new SearchStats(Operation.DELTA_STEPPING,
+                    SearchStats.values(search.settled, search.relaxed, search.pushes, 0, search.reopened, 0, 0,
+                            System.nanoTime() - startTime)));
+        }
+        return new ShortestPathTree<>(compact, sourceId, cost, predecessorEdge);
+    }
+
+    // Returns a path from the start to the end that crosses as few edges as possible, whatever
+    // they weigh. Runs a breadth-first search that expands every level in parallel, which is far
+    // cheaper than Dijkstra on large graphs and needs no heap at all.
+    // @throws IllegalArgumentException  if either vertex is not a part of this graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findFewestEdgesPathBetween(V start, V end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+        if (compact.checkEndpoints(startId, endId)) {
+            return new DoubleLinkedList<E>();
+        }
+
+        ParallelBfs search = breadthFirstSearch(startId, endId);
+        IList<E> path = new DoubleLinkedList<>();
+        for (int vertex = endId; vertex != startId; ) {
+            int edgeId = search.parentEdge(vertex);
+            path.insert(0, compact.edgeAt(edgeId));
+            vertex = compact.otherEndpoint(edgeId, vertex);
+        }
+        return path;
+    }
+
+    // Returns the number of edges on the path from the source to every vertex that crosses the
+    // fewest of them, indexed by the vertex ids of getCompactGraph(), with -1 for the vertices
+    // the source cannot reach. Runs the same parallel breadth-first search as
+    // findFewestEdgesPathBetween.
+    // @throws IllegalArgumentException  if the source is not a part of this graph
+    public int[] findHopDistancesFrom(V source) {
+        ParallelBfs search = breadthFirstSearch(compact.idOf(source), -1);
+        int[] hops = new int[compact.numVertices()];
+        for (int v = 0; v < hops.length; v++) {
+            hops[v] = search.hopsTo(v);
+        }
+        return hops;
+    }
+
+    private ParallelBfs breadthFirstSearch(int sourceId, int targetId) {
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+        ParallelBfs search = ParallelBfs.run(compact, sourceId, targetId);
+        if (currentListener != null) {
+            currentListener.searchFinished(new SearchStats(Operation.BREADTH_FIRST,
+                    SearchStats.values(search.reached, search.scanned.get(), search.reached, 0, 0, 0, 0,
+                            System.nanoTime() - startTime)));
+        }
+        return search;
+    }
+
+    // Returns the shortest path from any of the sources to any of the targets, along with the
+    // pair it joins. Runs a single search with every source starting at distance zero, which
+    // stops at the first target it settles, instead of one search per source or target.
+    // A vertex without edges has no path to anything, not even to itself, so it is ignored
+    // as a source or a target.
+    // @throws IllegalArgumentException  if either set is empty, or holds a vertex that is not a
+    //                                   part of this graph
+    // @throws NoPathExistsException  if no source can reach any target
+    public PathMatch<V, E> findShortestPathBetweenAny(ISet<V> sources, ISet<V> targets) {
+        IList<PathMatch<V, E>> matches = searchFromSources(sources, targets, true);
+        if (matches.isEmpty()) {
+            throw new NoPathExistsException();
+        }
+        return matches.get(0);
+    }
+
+    // Returns, for every target that some source can reach, the shortest path to it from the
+    // source nearest to it, in increasing order of cost. Runs a single search, which stops as
+    // soon as every reachable target is settled. Ignores vertices without edges, like
+    // findShortestPathBetweenAny.
+    // @throws IllegalArgumentException  if either set is empty, or holds a vertex that is not a
+    //                                   part of this graph
+    public IList<PathMatch<V, E>> findShortestPathsToEach(ISet<V> sources, ISet<V> targets) {
+        return searchFromSources(sources, targets, false);
+    }
+
+    // Runs Dijkstra from every source at once, and returns a match for every target it settles,
+    // in the order it settles them. Stops after the first one if 'firstOnly' is true.
+    private IList<PathMatch<V, E>> searchFromSources(ISet<V> sources, ISet<V> targets, boolean firstOnly) {
+        if (sources.isEmpty() || targets.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        int[] sourceIds = idsWithEdges(sources);
+        int[] targetIds = idsWithEdges(targets);
+        IList<PathMatch<V, E>> matches = new DoubleLinkedList<>();
+
+        // Targets in a component without any source are never settled; waiting for them would
+        // only exhaust the sources' components.
+        int[] sourceComponents = new int[sourceIds.length];
+        for (int i = 0; i < sourceIds.length; i++) {
+            sourceComponents[i] = compact.componentOf(sourceIds[i]);
+        }
+        Arrays.sort(sourceComponents);
+        int reachableTargets = 0;
+        for (int targetId : targetIds) {
+            if (Arrays.binarySearch(sourceComponents, compact.componentOf(targetId)) >= 0) {
+                reachableTargets++;
+            }
+        }
+        if (reachableTargets == 0) {
+            return matches;
+        }
+
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = sourceIds.length;
+        long decreases = 0;
+
+        SearchContext context = forwardContexts.get();
+        context.reset();
+        double[] cost = context.cost;
+        IndexedMinHeap heap = context.heap;
+        for (int sourceId : sourceIds) {
+            context.reach(sourceId);
+            cost[sourceId] = 0.0;
+            heap.insert(sourceId, 0.0);
+        }
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.removeMin();
+            settled++;
+
+            if (Arrays.binarySearch(targetIds, vertex) >= 0) {
+                matches.add(buildMatch(context, vertex));
+                if (firstOnly || matches.size() == reachableTargets) {
+                    break;
                 }
-                
-                heap.insert(vertexOb);
-                vertexObjects.put(vertexOb.vert, vertexOb);
             }
+
+            for (int i = compact.offsets[vertex]; i < compact.offsets[vertex + 1]; i++) {
+                int other = compact.targets[i];
+                double newCost = cost[vertex] + compact.weights[i];
+                context.reach(other);
+                relaxed++;
+
+                if (newCost < cost[other]) {
+                    cost[other] = newCost;
+                    context.predecessorEdge[other] = compact.edgeIds[i];
+                    if (heap.contains(other)) {
+                        decreases++;
+                    } else {
+                        pushes++;
+                    }
+                    heap.insertOrDecrease(other, newCost);
+                }
+            }
+        }
+
+        if (currentListener != null) {
+            currentListener.searchFinished(new SearchStats(Operation.MULTI_SOURCE,
+                    SearchStats.values(settled, relaxed, pushes, decreases, 0, 0, 0, System.nanoTime() - startTime)));
+        }
+        return matches;
+    }
+
+    // Returns the sorted ids of the vertices that have at least one edge.
+    // @throws IllegalArgumentException  if a vertex is not a part of this graph
+    private int[] idsWithEdges(ISet<V> vertices) {
+        int[] ids = new int[vertices.size()];
+        int size = 0;
+        for (V vertex : vertices) {
+            int id = compact.idOf(vertex);
+            if (compact.degree(id) > 0) {
+                ids[size++] = id;
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Walks the predecessor edges back from the target to the source its path starts at, which
+    // is the first vertex without a predecessor.
+    private PathMatch<V, E> buildMatch(SearchContext context, int targetId) {
+        IList<E> path = new DoubleLinkedList<E>();
+        int vertex = targetId;
+        while (context.predecessorEdge[vertex] != -1) {
+            int edgeId = context.predecessorEdge[vertex];
+            path.insert(0, compact.edgeAt(edgeId));
+            vertex = compact.otherEndpoint(edgeId, vertex);
         }
-        
+        return new PathMatch<>(compact.vertexAt(vertex), compact.vertexAt(targetId), context.cost[targetId], path);
+    }
+
+    // Runs Dijkstra from the start, or A* toward the end if the heuristic is not null, recording
+    // the cost and the predecessor edge of every vertex it reaches in the given context. Stops as
+    // soon as the end is settled; an end of -1 settles every reachable vertex. Returns 'true' if
+    // the end was settled.
+    private boolean search(SearchContext context, int startId, int endId, Heuristic<V> heuristic) {
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 1;
+        long decreases = 0;
+        long reopened = 0;
+
+        context.reset();
+        V goal = heuristic == null ? null : compact.vertexAt(endId);
+        double[] cost = context.cost;
+        double[] estimate = context.estimate;
+        IndexedMinHeap heap = context.heap;
+
+        context.reach(startId);
+        cost[startId] = 0.0;
+        heap.insert(startId, 0.0);
+
+        boolean found = false;
         while (!heap.isEmpty()) {
-            Vertex<V> vertPath = heap.removeMin();
-            
-            if (vertPath.vert.equals(end)) {
-                IList<E> fullPath = new DoubleLinkedList<E>();
-                
-                while (vertPath.predesessor != null) {
-                    fullPath.insert(0, adjacencyList.get(vertPath.vert).get(vertPath.predesessor.vert).get(0));
-                    vertPath = vertPath.predesessor;
+            int vertex = heap.removeMin();
+            settled++;
+
+            if (vertex == endId) {
+                found = true;
+                break;
+            }
+
+            for (int i = compact.offsets[vertex]; i < compact.offsets[vertex + 1]; i++) {
+                int other = compact.targets[i];
+                double newCost = cost[vertex] + compact.weights[i];
+                relaxed++;
+
+                boolean firstReach = context.reach(other);
+                if (firstReach && goal != null) {
+                    estimate[other] = heuristic.estimate(compact.vertexAt(other), goal);
                 }
-                
-                if (vertPath.vert.equals(start)) {
-                    return fullPath;
-                } else {
-                    throw new NoPathExistsException();
+
+                if (newCost < cost[other]) {
+                    cost[other] = newCost;
+                    context.predecessorEdge[other] = compact.edgeIds[i];
+
+                    if (heap.contains(other)) {
+                        decreases++;
+                    } else {
+                        pushes++;
+                        if (!firstReach) {
+                            reopened++;
+                        }
+                    }
+                    // With a heuristic that is admissible but not consistent, a vertex that was
+                    // already expanded can still improve; it is simply pushed back in.
+                    heap.insertOrDecrease(other, goal == null ? newCost : newCost + estimate[other]);
                 }
             }
-            
-            for (KVPair<V, IList<E>> vertEdges : adjacencyList.get(vertPath.vert)) {
-                if (!vertEdges.getKey().equals(vertPath.vert)) {   
-                    E shortEdge = vertEdges.getValue().get(0);
-                    Vertex<V> otherVert = vertexObjects.get(shortEdge.getOtherVertex(vertPath.vert));
-                    
-                    if (vertPath.cost + shortEdge.getWeight() < otherVert.cost) {
-                        Vertex<V> temp = new Vertex<V>(otherVert.vert, vertPath.cost + shortEdge.getWeight(), vertPath);
-                        heap.insert(temp); 
-                        vertexObjects.put(otherVert.vert, temp);
-                    }  
+        }
+
+        if (currentListener != null) {
+            Operation operation = endId == -1 ? Operation.SHORTEST_PATH_TREE
+                    : goal == null ? Operation.DIJKSTRA : Operation.A_STAR;
+            currentListener.searchFinished(new SearchStats(operation,
+                    SearchStats.values(settled, relaxed, pushes, decreases, reopened, 0, 0,
+                            System.nanoTime() - startTime)));
+        }
+        return found;
+    }
+
+    // Returns a shortest path of the same cost as findShortestPathBetween's, but searches from
+    // both ends at once: a forward search from the start and a backward search from the end,
+    // always growing whichever frontier is currently closer to its origin. The search stops once
+    // the two frontier minimums together reach the cost of the best meeting point found so far,
+    // so it settles roughly two disks of half the path length instead of one disk of the full
+    // length. Where several paths tie, the meeting point decides which one is returned.
+    // Returns an empty list if the start and end vertices are the same.
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findShortestPathBidirectional(V start, V end) {
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+
+        // Fails right away between components, instead of exhausting the start's first.
+        if (compact.checkEndpoints(startId, endId)) {
+            return new DoubleLinkedList<E>();
+        }
+
+        GraphSearchListener currentListener = this.listener;
+        long startTime = currentListener == null ? 0 : System.nanoTime();
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 2;
+        long decreases = 0;
+
+        SearchContext forwardContext = forwardContexts.get();
+        SearchContext backwardContext = backwardContexts.get();
+        forwardContext.reset();
+        backwardContext.reset();
+
+        forwardContext.reach(startId);
+        backwardContext.reach(endId);
+        forwardContext.cost[startId] = 0.0;
+        backwardContext.cost[endId] = 0.0;
+        forwardContext.heap.insert(startId, 0.0);
+        backwardContext.heap.insert(endId, 0.0);
+
+        double bestCost = Double.POSITIVE_INFINITY;
+        int meetingVertex = -1;
+
+        while (!forwardContext.heap.isEmpty() && !backwardContext.heap.isEmpty()) {
+            double forwardMin = forwardContext.heap.peekMinKey();
+            double backwardMin = backwardContext.heap.peekMinKey();
+            if (forwardMin + backwardMin >= bestCost) {
+                break;
+            }
+
+            SearchContext context = forwardMin <= backwardMin ? forwardContext : backwardContext;
+            SearchContext otherContext = context == forwardContext ? backwardContext : forwardContext;
+            double[] cost = context.cost;
+
+            int vertex = context.heap.removeMin();
+            settled++;
+            for (int i = compact.offsets[vertex]; i < compact.offsets[vertex + 1]; i++) {
+                int other = compact.targets[i];
+                double newCost = cost[vertex] + compact.weights[i];
+                context.reach(other);
+                relaxed++;
+
+                if (newCost < cost[other]) {
+                    cost[other] = newCost;
+                    context.predecessorEdge[other] = compact.edgeIds[i];
+                    if (context.heap.contains(other)) {
+                        decreases++;
+                    } else {
+                        pushes++;
+                    }
+                    context.heap.insertOrDecrease(other, newCost);
+
+                    double throughOther = newCost + otherContext.costOf(other);
+                    if (throughOther < bestCost) {
+                        bestCost = throughOther;
+                        meetingVertex = other;
+                    }
                 }
-            }    
+            }
+        }
+
+        if (currentListener != null) {
+            currentListener.searchFinished(new SearchStats(Operation.BIDIRECTIONAL,
+                    SearchStats.values(settled, relaxed, pushes, decreases, 0, 0, 0, System.nanoTime() - startTime)));
         }
-        
-        throw new NoPathExistsException();   
+        if (meetingVertex == -1) {
+            throw new NoPathExistsException();
+        }
+
+        IList<E> fullPath = buildPath(forwardContext, startId, meetingVertex);
+        int vertex = meetingVertex;
+        while (vertex != endId) {
+            int edgeId = backwardContext.predecessorEdge[vertex];
+            fullPath.add(compact.edgeAt(edgeId));
+            vertex = compact.otherEndpoint(edgeId, vertex);
+        }
+        return fullPath;
     }
-      
-    private static class Vertex<V> implements Comparable<Vertex<V>>  {
-        private V vert;
-        private Vertex<V> predesessor;
-        private double cost;
-        
-        public Vertex(V vertex, double cost, Vertex<V> pred) {
-            this.vert = vertex;
-            this.cost = cost;
-            this.predesessor = pred;
+
+    // Walks the predecessor edges back from the end and returns the edges in start-to-end order.
+    private IList<E> buildPath(SearchContext context, int startId, int endId) {
+        IList<E> fullPath = new DoubleLinkedList<E>();
+        int vertex = endId;
+
+        while (vertex != startId) {
+            int edgeId = context.predecessorEdge[vertex];
+            fullPath.insert(0, compact.edgeAt(edgeId));
+            vertex = compact.otherEndpoint(edgeId, vertex);
+        }
+
+        return fullPath;
+    }
+
+    /**
+     * Builds a Graph incrementally, one vertex and one edge at a time.
+     *
+     * Every vertex must be added before any edge that touches it. Each edge is validated as it
+     * is added, and costs exactly one dictionary lookup per endpoint: the builder appends the
+     * endpoint ids and the weight straight into primitive arrays sized by the expected counts,
+     * and the adjacency structure is laid out only once, when build() is called.
+     *
+     * A builder can only be used to build a single graph.
+     */
+    public static class Builder<V, E extends Edge<V> & Comparable<E>> {
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private IDictionary<V, Integer> vertexIds;
+        private V[] vertices;
+        private int numVertices;
+
+        private E[] edges;
+        private int[] edgeSources;
+        private int[] edgeTargets;
+        private double[] edgeWeights;
+        private int numEdges;
+
+        private boolean built;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
         }
-        
-        public Vertex(V vertex, double cost) {
-            this(vertex, cost, null);
+
+        // Constructs a builder with room for the given number of vertices and edges. Both are
+        // only hints: the builder grows past them if needed.
+        public Builder(int expectedVertices, int expectedEdges) {
+            int vertexCapacity = Math.max(expectedVertices, 1);
+            int edgeCapacity = Math.max(expectedEdges, 1);
+
+            vertexIds = new ChainedHashDictionary<>(vertexCapacity);
+            vertices = makeArrayOfV(vertexCapacity);
+            edges = makeArrayOfE(edgeCapacity);
+            edgeSources = new int[edgeCapacity];
+            edgeTargets = new int[edgeCapacity];
+            edgeWeights = new double[edgeCapacity];
         }
-        
-        public Vertex(V vertex) {
-            this(vertex, Double.POSITIVE_INFINITY);
+
+        // Adds the given vertex to the graph. Vertices that were already added are ignored.
+        // @throws IllegalArgumentException  if the vertex is null
+        public Builder<V, E> addVertex(V vertex) {
+            checkNotBuilt();
+            if (vertex == null) {
+                throw new IllegalArgumentException();
+            }
+
+            if (!vertexIds.containsKey(vertex)) {
+                if (numVertices == vertices.length) {
+                    vertices = Arrays.copyOf(vertices, vertices.length * 2);
+                }
+                vertexIds.put(vertex, numVertices);
+                vertices[numVertices] = vertex;
+                numVertices++;
+            }
+            return this;
+        }
+
+        // Adds every remaining vertex of the iterator.
+        public Builder<V, E> addVertices(Iterator<V> vertexIterator) {
+            while (vertexIterator.hasNext()) {
+                addVertex(vertexIterator.next());
+            }
+            return this;
+        }
+
+        // Adds the given edge to the graph.
+        // @throws IllegalArgumentException  if the edge has a negative (or NaN) weight
+        // @throws IllegalArgumentException  if the edge connects to a vertex that was not added yet
+        public Builder<V, E> addEdge(E edge) {
+            checkNotBuilt();
+            double weight = edge.getWeight();
+            Integer source = vertexIds.getOrDefault(edge.getVertex1(), null);
+            Integer target = vertexIds.getOrDefault(edge.getVertex2(), null);
+
+            if (!(weight >= 0) || source == null || target == null) {
+                throw new IllegalArgumentException();
+            }
+
+            if (numEdges == edges.length) {
+                int newCapacity = edges.length * 2;
+                edges = Arrays.copyOf(edges, newCapacity);
+                edgeSources = Arrays.copyOf(edgeSources, newCapacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, newCapacity);
+                edgeWeights = Arrays.copyOf(edgeWeights, newCapacity);
+            }
+
+            edges[numEdges] = edge;
+            edgeSources[numEdges] = source;
+            edgeTargets[numEdges] = target;
+            edgeWeights[numEdges] = weight;
+            numEdges++;
+            return this;
+        }
+
+        // Adds every remaining edge of the iterator.
+        public Builder<V, E> addEdges(Iterator<E> edgeIterator) {
+            while (edgeIterator.hasNext()) {
+                addEdge(edgeIterator.next());
+            }
+            return this;
+        }
+
+        // Returns the graph made of every vertex and edge added so far.
+        // @throws IllegalStateException  if this builder was already used to build a graph
+        public Graph<V, E> build() {
+            return new Graph<>(buildCompactGraph());
+        }
+
+        CompactGraph<V, E> buildCompactGraph() {
+            checkNotBuilt();
+            built = true;
+            return new CompactGraph<>(
+                    vertexIds,
+                    Arrays.copyOf(vertices, numVertices),
+                    Arrays.copyOf(edges, numEdges),
+                    Arrays.copyOf(edgeSources, numEdges),
+                    Arrays.copyOf(edgeTargets, numEdges),
+                    Arrays.copyOf(edgeWeights, numEdges));
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("This builder has already built a graph");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V[] makeArrayOfV(int size) {
+            return (V[]) new Object[size];
         }
 
-        public int compareTo(Vertex<V> other) {
-            return Double.compare(this.cost, other.cost);
+        @SuppressWarnings("unchecked")
+        private E[] makeArrayOfE(int size) {
+            return (E[]) new Edge[size];
         }
     }
-  
-}
\ No newline at end of file
+}
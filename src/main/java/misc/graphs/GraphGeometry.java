@@ -0,0 +1,33 @@
+package misc.graphs;
+
+import java.awt.Point;
+import java.awt.Polygon;
+
+/**
+ * Describes where a graph's vertices and edges sit on the screen, so that MappedGraph can store
+ * the drawing next to the graph itself.
+ *
+ * Every vertex has a location and an outline, and every edge a line segment, all in integer
+ * pixel coordinates.
+ */
+public interface GraphGeometry<V, E> {
+    /**
+     * Returns the point the vertex is centered on.
+     */
+    public Point locationOf(V vertex);
+
+    /**
+     * Returns the outline of the region the vertex covers.
+     */
+    public Polygon outlineOf(V vertex);
+
+    /**
+     * Returns one end of the line drawn for the edge.
+     */
+    public Point lineStartOf(E edge);
+
+    /**
+     * Returns the other end of the line drawn for the edge.
+     */
+    public Point lineEndOf(E edge);
+}
@@ -0,0 +1,17 @@
+package misc.graphs;
+
+/**
+ * Receives the statistics of every search a Graph runs, once a listener has been installed
+ * through Graph.setSearchListener.
+ *
+ * Searches call the listener from whichever thread ran them, right before returning or
+ * throwing, so a listener shared between threads must be thread-safe. SearchMetrics is one that
+ * aggregates the reports into histograms.
+ */
+public interface GraphSearchListener {
+    /**
+     * Called once for every search that ran. Calls that return without searching, such as a
+     * query from a vertex to itself or between two components, are not reported.
+     */
+    public void searchFinished(SearchStats stats);
+}
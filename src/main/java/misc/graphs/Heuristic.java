@@ -0,0 +1,18 @@
+package misc.graphs;
+
+/**
+ * Estimates the remaining cost from a vertex to a goal vertex, used to steer a shortest path
+ * search (A*) toward the goal.
+ *
+ * An estimate must never exceed the true shortest path cost between the two vertices (it must
+ * be 'admissible'), otherwise the search may return a path that is not the shortest.
+ *
+ * Searches run fastest when the estimate is also 'consistent': for every edge (u, v), the
+ * estimate from u is at most the weight of the edge plus the estimate from v.
+ */
+public interface Heuristic<V> {
+    /**
+     * Returns a lower bound on the cost of the shortest path from the vertex to the goal.
+     */
+    public double estimate(V vertex, V goal);
+}
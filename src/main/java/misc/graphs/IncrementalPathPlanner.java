@@ -0,0 +1,353 @@
+package misc.graphs;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.IndexedMinHeap;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import misc.exceptions.NoPathExistsException;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the shortest paths to one fixed goal vertex up to date while the edges of the graph
+ * change and the start moves, with Koenig and Likhachev's D* Lite.
+ *
+ * The search runs backward from the goal, and keeps two values for every vertex: g, the cost
+ * the search last settled on, and rhs, the cost one step ahead of it, computed from the g of
+ * the vertex's neighbors. A vertex whose two values differ is 'inconsistent', and sits in a
+ * priority queue. Editing an edge only recomputes rhs at its two endpoints, and the next query
+ * then expands inconsistent vertices in order until the start's cost is known to be final,
+ * just like A* would. Vertices the edit did not affect stay consistent and are never looked at
+ * again, so the work of a query depends on how much of the old shortest path tree the edits
+ * changed, rather than on the size of the graph.
+ *
+ * The heuristic, if any, estimates the cost from a vertex to the current start. When the start
+ * moves, keys already in the queue are not recomputed. Instead, every new key is raised by the
+ * distance the start has moved so far, which keeps the old keys valid lower bounds; a vertex
+ * whose key turns out to be too low is simply put back into the queue with its current one.
+ * This needs a consistent heuristic. D* Lite breaks ties between keys with a second key; here,
+ * vertices tied with the start are expanded as well instead, which keeps every cost along the
+ * returned path final without a second key in the heap.
+ *
+ * Unlike Graph, edge weights must be positive. With a zero-weight edge, two vertices can each
+ * keep their old cost by pointing at the other after the path they both relied on is cut, and
+ * the repair never notices that neither cost is reachable anymore.
+ *
+ * The vertices are fixed when the planner is built; edges come and go through addEdge and
+ * removeEdge. The planner keeps its own copy of every edge weight, just like DynamicGraph.
+ *
+ * This class is not thread-safe.
+ */
+public class IncrementalPathPlanner<V, E extends Edge<V>> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private IDictionary<V, Integer> vertexIds;
+    private V[] vertices;
+    private int numVertices;
+    private EdgeSlots<E> slots;
+
+    private Heuristic<V> heuristic;
+    private int goal;
+
+    // The search state, kept between queries. 'start' is the start of the last query, or -1
+    // before the first one, and 'keyOffset' is how far it has moved since then, summed up.
+    private double[] g;
+    private double[] rhs;
+    private IndexedMinHeap queue;
+    private int start;
+    private double keyOffset;
+    private long expansions;
+
+    // Scratch space for walking the path from the start to the goal. The context marks the
+    // vertices the walk has visited, and the edge it first reached each of them through.
+    private SearchContext walk;
+    private int[] stack;
+    private int[] stackPositions;
+
+    // Constructs a planner toward the goal over the given vertices and edges, without a
+    // heuristic.
+    // @throws IllegalArgumentException  if any of the edges have a weight that is not positive
+    // @throws IllegalArgumentException  if one of the edges connects to a vertex not present in the 'vertices' list
+    // @throws IllegalArgumentException  if the same edge is given twice, or the goal is not one of the vertices
+    public IncrementalPathPlanner(IList<V> vertices, IList<E> edges, V goal) {
+        this(vertices, edges, goal, (vertex, target) -> 0.0);
+    }
+
+    // Constructs a planner toward the goal over the given vertices and edges. The heuristic
+    // must be consistent.
+    // @throws IllegalArgumentException  if any of the edges have a weight that is not positive
+    // @throws IllegalArgumentException  if one of the edges connects to a vertex not present in the 'vertices' list
+    // @throws IllegalArgumentException  if the same edge is given twice, or the goal is not one of the vertices
+    public IncrementalPathPlanner(IList<V> vertices, IList<E> edges, V goal, Heuristic<V> heuristic) {
+        if (heuristic == null) {
+            throw new IllegalArgumentException();
+        }
+        this.heuristic = heuristic;
+
+        this.vertexIds = new ChainedHashDictionary<>(Math.max(2 * vertices.size(), DEFAULT_CAPACITY));
+        this.vertices = makeArrayOfV(vertices.size());
+        for (V vertex : vertices) {
+            if (vertex == null) {
+                throw new IllegalArgumentException();
+            }
+            if (!vertexIds.containsKey(vertex)) {
+                vertexIds.put(vertex, numVertices);
+                this.vertices[numVertices++] = vertex;
+            }
+        }
+        this.slots = new EdgeSlots<>(numVertices, edges.size());
+
+        this.g = new double[numVertices];
+        this.rhs = new double[numVertices];
+        Arrays.fill(g, Double.POSITIVE_INFINITY);
+        Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+        this.queue = new IndexedMinHeap(numVertices);
+        this.start = -1;
+        this.keyOffset = 0.0;
+
+        this.goal = idOf(goal);
+        rhs[this.goal] = 0.0;
+        queue.insert(this.goal, 0.0);
+
+        this.walk = new SearchContext(numVertices);
+        this.stack = new int[numVertices];
+        this.stackPositions = new int[numVertices];
+
+        for (E edge : edges) {
+            this.addEdge(edge);
+        }
+    }
+
+    // Returns the vertex all paths lead to.
+    public V getGoal() {
+        return this.vertices[goal];
+    }
+
+    // Returns the number of vertices of the graph.
+    public int numVertices() {
+        return this.numVertices;
+    }
+
+    // Returns the number of edges currently in the graph.
+    public int numEdges() {
+        return this.slots.size();
+    }
+
+    public boolean containsEdge(E edge) {
+        return this.slots.contains(edge);
+    }
+
+    // Returns the number of vertices expanded by all queries so far. The difference across one
+    // query is the work it took to repair the paths after the edits before it.
+    public long expansionCount() {
+        return this.expansions;
+    }
+
+    // Adds the edge to the graph. Paths are repaired on the next query.
+    // @throws IllegalArgumentException  if the edge is null or its weight is not positive
+    // @throws IllegalArgumentException  if either endpoint is not a vertex of this graph
+    // @throws IllegalArgumentException  if the edge is already part of this graph
+    public void addEdge(E edge) {
+        if (edge == null || !(edge.getWeight() > 0) || slots.contains(edge)) {
+            throw new IllegalArgumentException();
+        }
+        int source = idOf(edge.getVertex1());
+        int target = idOf(edge.getVertex2());
+        slots.add(edge, source, target, edge.getWeight());
+
+        // A new edge can only lower costs, so rhs does not need a full recomputation.
+        offer(source, edge.getWeight() + g[target]);
+        offer(target, edge.getWeight() + g[source]);
+    }
+
+    // Removes the edge from the graph. Paths are repaired on the next query.
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public void removeEdge(E edge) {
+        int slot = slots.remove(edge);
+        recompute(slots.sourceOf(slot));
+        recompute(slots.targetOf(slot));
+    }
+
+    // Changes the weight of the edge. Paths are repaired on the next query.
+    // @throws IllegalArgumentException  if the weight is not positive
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public void updateWeight(E edge, double weight) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException();
+        }
+        int slot = slots.slotOf(edge);
+        slots.setWeight(slot, weight);
+        recompute(slots.sourceOf(slot));
+        recompute(slots.targetOf(slot));
+    }
+
+    // Returns the weight this planner currently uses for the edge.
+    // @throws NoSuchElementException  if the edge is not part of this graph
+    public double weightOf(E edge) {
+        return slots.weightOf(slots.slotOf(edge));
+    }
+
+    // Returns the edges that make up the shortest path from the start to the goal, repairing
+    // whatever the edits since the last query affected on the way. The start may differ from
+    // one query to the next.
+    // Returns an empty list if the start and goal are the same.
+    // @throws IllegalArgumentException  if the start is not part of this graph
+    // @throws NoPathExistsException  if there does not exist a path from the start to the goal
+    public IList<E> findShortestPathFrom(V startVertex) {
+        int startId = idOf(startVertex);
+        if (slots.degree(startId) == 0 || slots.degree(goal) == 0) {
+            throw new NoPathExistsException();
+        }
+        if (startId == goal) {
+            return new DoubleLinkedList<>();
+        }
+
+        if (start != -1 && start != startId) {
+            keyOffset += heuristic.estimate(vertices[start], startVertex);
+        }
+        start = startId;
+        computeShortestPaths();
+
+        if (g[start] == Double.POSITIVE_INFINITY) {
+            throw new NoPathExistsException();
+        }
+        return walkToGoal();
+    }
+
+    // Expands inconsistent vertices, lowest key first, until no vertex left in the queue could
+    // still change the cost of the start.
+    private void computeShortestPaths() {
+        while (!queue.isEmpty() && (queue.peekMinKey() <= keyOf(start) || g[start] != rhs[start])) {
+            int vertex = queue.peekMin();
+            double oldKey = queue.peekMinKey();
+            double newKey = keyOf(vertex);
+            if (oldKey < newKey) {
+                // Queued before the start last moved; it is not due yet.
+                queue.remove(vertex);
+                queue.insert(vertex, newKey);
+                continue;
+            }
+
+            queue.removeMin();
+            expansions++;
+            if (g[vertex] > rhs[vertex]) {
+                // Overconsistent: its cost dropped, which can only lower its neighbors' costs.
+                g[vertex] = rhs[vertex];
+                for (int i = 0; i < slots.degree(vertex); i++) {
+                    int slot = slots.incidentSlot(vertex, i);
+                    offer(slots.otherEndpoint(slot, vertex), slots.weightOf(slot) + g[vertex]);
+                }
+            } else {
+                // Underconsistent: its cost rose. Neighbors relying on it, and the vertex itself,
+                // have to look for their best neighbor again.
+                double oldCost = g[vertex];
+                g[vertex] = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < slots.degree(vertex); i++) {
+                    int slot = slots.incidentSlot(vertex, i);
+                    int other = slots.otherEndpoint(slot, vertex);
+                    if (rhs[other] == slots.weightOf(slot) + oldCost) {
+                        recompute(other);
+                    }
+                }
+                recompute(vertex);
+            }
+        }
+    }
+
+    // Lowers rhs of the vertex to the given cost, if that is an improvement.
+    private void offer(int vertex, double cost) {
+        if (vertex != goal && cost < rhs[vertex]) {
+            rhs[vertex] = cost;
+            updateQueue(vertex);
+        }
+    }
+
+    // Recomputes rhs of the vertex from all of its neighbors.
+    private void recompute(int vertex) {
+        if (vertex == goal) {
+            return;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < slots.degree(vertex); i++) {
+            int slot = slots.incidentSlot(vertex, i);
+            best = Math.min(best, slots.weightOf(slot) + g[slots.otherEndpoint(slot, vertex)]);
+        }
+        rhs[vertex] = best;
+        updateQueue(vertex);
+    }
+
+    // Puts the vertex into the queue with its current key if it is inconsistent, or takes it out
+    // if it is not.
+    private void updateQueue(int vertex) {
+        if (queue.contains(vertex)) {
+            queue.remove(vertex);
+        }
+        if (g[vertex] != rhs[vertex]) {
+            queue.insert(vertex, keyOf(vertex));
+        }
+    }
+
+    private double keyOf(int vertex) {
+        double cost = Math.min(g[vertex], rhs[vertex]);
+        if (start == -1 || cost == Double.POSITIVE_INFINITY) {
+            return cost + keyOffset;
+        }
+        return cost + heuristic.estimate(vertices[vertex], vertices[start]) + keyOffset;
+    }
+
+    // Follows edges whose weight is exactly the drop in cost from the start to the goal. The
+    // walk backs up out of dead ends, which only vertices the last repair never had to reach
+    // can lead it into.
+    private IList<E> walkToGoal() {
+        walk.reset();
+        int size = 0;
+        stack[size++] = start;
+        stackPositions[start] = 0;
+        walk.reach(start);
+        while (size > 0 && stack[size - 1] != goal) {
+            int vertex = stack[size - 1];
+            int next = -1;
+            while (next == -1 && stackPositions[vertex] < slots.degree(vertex)) {
+                int slot = slots.incidentSlot(vertex, stackPositions[vertex]++);
+                int other = slots.otherEndpoint(slot, vertex);
+                if (!walk.isReached(other) && slots.weightOf(slot) + g[other] == g[vertex]) {
+                    next = other;
+                    walk.reach(next);
+                    walk.predecessorEdge[next] = slot;
+                }
+            }
+            if (next == -1) {
+                size--;
+            } else {
+                stackPositions[next] = 0;
+                stack[size++] = next;
+            }
+        }
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+
+        // Every vertex on the stack was reached from the one below it.
+        IList<E> path = new DoubleLinkedList<>();
+        for (int vertex = goal; vertex != start; ) {
+            int slot = walk.predecessorEdge[vertex];
+            path.insert(0, slots.edgeAt(slot));
+            vertex = slots.otherEndpoint(slot, vertex);
+        }
+        return path;
+    }
+
+    private int idOf(V vertex) {
+        Integer id = vertex == null ? null : vertexIds.getOrDefault(vertex, null);
+        if (id == null) {
+            throw new IllegalArgumentException();
+        }
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V[] makeArrayOfV(int size) {
+        return (V[]) new Object[size];
+    }
+}
@@ -0,0 +1,139 @@
+package misc.graphs;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the cost between two vertices from their precomputed distances to a few landmark
+ * vertices, using the triangle inequality (ALT: A*, landmarks, triangle inequality).
+ *
+ * For any landmark L, d(v, goal) >= |d(L, v) - d(L, goal)|, so the largest such difference over
+ * all landmarks is a lower bound on the cost of the path. Unlike a straight-line estimate, it
+ * follows the actual corridors of the maze: if the landmark lies behind the goal, a long detour
+ * between v and the goal shows up in full. With a handful of landmarks, A* settles a small
+ * fraction of the vertices plain Dijkstra would on long winding paths.
+ *
+ * Landmarks are chosen by farthest-point selection: every landmark is the vertex farthest from
+ * all landmarks chosen so far, which spreads them along the edges of the graph where they give
+ * the best bounds. Every component of the graph gets a landmark before any component gets a
+ * second one; the first one in a component is the vertex farthest from its lowest vertex. A
+ * vertex without edges never becomes a landmark, unless the graph has no edges at all: there is
+ * no path from or to it, so its distances would say nothing.
+ *
+ * On a directed graph, ALT keeps distances both to and from every landmark. Graph is
+ * undirected, so the two are the same, and a single float per landmark and vertex is enough:
+ * numLandmarks * numVertices floats in all. Rounding the distances to floats could make an
+ * estimate slightly too large, so every estimate gives up a tiny relative margin to stay a
+ * lower bound. The estimate is consistent up to that margin.
+ *
+ * The heuristic only fits the weights it was built with; a graph with other weights (see
+ * Graph.withWeights) needs its own landmarks. Estimates from several threads at once are safe.
+ */
+public class LandmarkHeuristic<V, E extends Edge<V> & Comparable<E>> implements Heuristic<V> {
+    // Twice the largest relative rounding error of a float, to cover both distances involved.
+    private static final double FLOAT_MARGIN = 0x1.0p-23;
+
+    private CompactGraph<V, E> compact;
+    private int numLandmarks;
+    private int[] landmarks;
+
+    // The distance between landmark i and vertex v at [v * numLandmarks + i], so the distances
+    // of one vertex are next to each other; infinity if the two are not connected.
+    private float[] distances;
+
+    // Picks the given number of landmarks by farthest-point selection, and records the distance
+    // between each of them and every vertex, with one full search per landmark.
+    // @throws IllegalArgumentException  if the number of landmarks is not positive, or exceeds
+    //                                   the number of vertices
+    public LandmarkHeuristic(Graph<V, E> graph, int numLandmarks) {
+        this.compact = graph.getCompactGraph();
+        int numVertices = compact.numVertices();
+        if (numLandmarks <= 0 || numLandmarks > numVertices) {
+            throw new IllegalArgumentException();
+        }
+        this.numLandmarks = numLandmarks;
+        this.landmarks = new int[numLandmarks];
+        this.distances = new float[numLandmarks * numVertices];
+
+        boolean anyEdges = false;
+        for (int v = 0; v < numVertices && !anyEdges; v++) {
+            anyEdges = compact.degree(v) > 0;
+        }
+
+        // How far every vertex is from the nearest landmark so far; infinity until its component
+        // has one.
+        double[] nearest = new double[numVertices];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < numLandmarks; i++) {
+            int landmark = farthest(nearest, anyEdges);
+            if (nearest[landmark] == Double.POSITIVE_INFINITY) {
+                // The first landmark of its component.
+                ShortestPathTree<V, E> seed = graph.findShortestPathsFrom(compact.vertexAt(landmark));
+                double[] fromSeed = new double[numVertices];
+                for (int v = 0; v < numVertices; v++) {
+                    double distance = seed.distanceTo(v);
+                    fromSeed[v] = distance == Double.POSITIVE_INFINITY ? -1.0 : distance;
+                }
+                landmark = farthest(fromSeed, anyEdges);
+            }
+
+            landmarks[i] = landmark;
+            ShortestPathTree<V, E> tree = graph.findShortestPathsFrom(compact.vertexAt(landmark));
+            for (int v = 0; v < numVertices; v++) {
+                double distance = tree.distanceTo(v);
+                distances[v * numLandmarks + i] = (float) distance;
+                nearest[v] = Math.min(nearest[v], distance);
+            }
+        }
+    }
+
+    // Returns the vertex with the largest distance, preferring the smallest id on ties. Only
+    // vertices with edges are considered, if there are any.
+    private int farthest(double[] distance, boolean anyEdges) {
+        int best = -1;
+        for (int v = 0; v < distance.length; v++) {
+            if ((!anyEdges || compact.degree(v) > 0) && (best == -1 || distance[v] > distance[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    // Returns the number of landmarks.
+    public int numLandmarks() {
+        return this.numLandmarks;
+    }
+
+    // Returns the i-th landmark, in the order they were chosen.
+    // @throws IndexOutOfBoundsException  if there is no such landmark
+    public V getLandmark(int i) {
+        if (i < 0 || i >= numLandmarks) {
+            throw new IndexOutOfBoundsException();
+        }
+        return compact.vertexAt(landmarks[i]);
+    }
+
+    // @throws IllegalArgumentException  if either vertex is not part of the graph
+    @Override
+    public double estimate(V vertex, V goal) {
+        return estimate(compact.idOf(vertex), compact.idOf(goal));
+    }
+
+    // Returns the same estimate as estimate(V, V), for the vertices with the given ids.
+    public double estimate(int vertexId, int goalId) {
+        int vertexBase = vertexId * numLandmarks;
+        int goalBase = goalId * numLandmarks;
+        double best = 0.0;
+        for (int i = 0; i < numLandmarks; i++) {
+            double toVertex = distances[vertexBase + i];
+            double toGoal = distances[goalBase + i];
+            if (toVertex == Double.POSITIVE_INFINITY || toGoal == Double.POSITIVE_INFINITY) {
+                // Either the landmark is in another component, and says nothing, or only one of
+                // the two is reachable from it, and there is no path anyway.
+                continue;
+            }
+            double bound = Math.abs(toVertex - toGoal) - (toVertex + toGoal) * FLOAT_MARGIN;
+            best = Math.max(best, bound);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,238 @@
+package misc.graphs;
+
+import java.util.Arrays;
+
+/**
+ * A forest of unrooted trees over integer nodes that supports linking two trees, cutting an
+ * edge, and finding the heaviest node on the path between two nodes, each in amortized
+ * O(log n) time.
+ *
+ * This is a link-cut tree: every tree is split into paths, each stored as a splay tree ordered by
+ * depth, and 'access' rearranges the paths so that the one from the root down to a given node
+ * becomes a single splay tree. Making a node the root just reverses that path, which is done
+ * lazily with a 'flip' flag.
+ *
+ * Every node carries a key, compared by weight and then by tie-break, and every splay tree node
+ * remembers the heaviest node in its subtree. DynamicGraph represents each spanning tree edge as
+ * a node of its own, linked between its two endpoints, so that the heaviest node on a path is
+ * the heaviest tree edge on it.
+ */
+final class LinkCutForest {
+    private int[] parent;
+    private int[] left;
+    private int[] right;
+    private boolean[] flipped;
+
+    private double[] weight;
+    private long[] tieBreak;
+    private int[] heaviest;
+
+    private int numNodes;
+
+    // Scratch space for splay, reused across calls.
+    private int[] pushStack;
+
+    LinkCutForest(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.parent = new int[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.flipped = new boolean[capacity];
+        this.weight = new double[capacity];
+        this.tieBreak = new long[capacity];
+        this.heaviest = new int[capacity];
+        this.numNodes = 0;
+        this.pushStack = new int[16];
+    }
+
+    // Adds a new node, in a tree of its own, and returns its id.
+    int addNode(double nodeWeight, long nodeTieBreak) {
+        if (numNodes == parent.length) {
+            int capacity = 2 * parent.length;
+            parent = Arrays.copyOf(parent, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            flipped = Arrays.copyOf(flipped, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            tieBreak = Arrays.copyOf(tieBreak, capacity);
+            heaviest = Arrays.copyOf(heaviest, capacity);
+        }
+        int node = numNodes++;
+        reset(node, nodeWeight, nodeTieBreak);
+        return node;
+    }
+
+    // Reuses a node that has been cut away from every other node, giving it a new key.
+    void reset(int node, double nodeWeight, long nodeTieBreak) {
+        parent[node] = -1;
+        left[node] = -1;
+        right[node] = -1;
+        flipped[node] = false;
+        weight[node] = nodeWeight;
+        tieBreak[node] = nodeTieBreak;
+        heaviest[node] = node;
+    }
+
+    // Changes the key of a node.
+    void setKey(int node, double nodeWeight, long nodeTieBreak) {
+        access(node);
+        weight[node] = nodeWeight;
+        tieBreak[node] = nodeTieBreak;
+        update(node);
+    }
+
+    // Returns 'true' if the two nodes are in the same tree.
+    boolean connected(int a, int b) {
+        return a == b || findRoot(a) == findRoot(b);
+    }
+
+    // Joins the trees of the two nodes with an edge between them.
+    // Precondition: the nodes are in different trees.
+    void link(int a, int b) {
+        makeRoot(a);
+        parent[a] = b;
+    }
+
+    // Removes the edge between the two nodes.
+    // Precondition: the nodes are joined by an edge.
+    void cut(int a, int b) {
+        makeRoot(a);
+        access(b);
+        // 'a' is now the only node shallower than 'b', so it is b's entire left subtree.
+        left[b] = -1;
+        parent[a] = -1;
+        update(b);
+    }
+
+    // Returns the heaviest node on the path between the two nodes, both included.
+    // Precondition: the nodes are in the same tree.
+    int heaviestOnPath(int a, int b) {
+        makeRoot(a);
+        access(b);
+        return heaviest[b];
+    }
+
+    private void makeRoot(int node) {
+        access(node);
+        flipped[node] = !flipped[node];
+    }
+
+    private int findRoot(int node) {
+        access(node);
+        int root = node;
+        push(root);
+        while (left[root] != -1) {
+            root = left[root];
+            push(root);
+        }
+        splay(root);
+        return root;
+    }
+
+    // Makes the path from the root of the tree to the node a single splay tree, rooted at the
+    // node, with nothing deeper than the node in it.
+    private void access(int node) {
+        int last = -1;
+        for (int current = node; current != -1; current = parent[current]) {
+            splay(current);
+            right[current] = last;
+            update(current);
+            last = current;
+        }
+        splay(node);
+    }
+
+    private boolean isSplayRoot(int node) {
+        int p = parent[node];
+        return p == -1 || (left[p] != node && right[p] != node);
+    }
+
+    // Pushes a pending reversal down to the children of the node.
+    private void push(int node) {
+        if (flipped[node]) {
+            int swap = left[node];
+            left[node] = right[node];
+            right[node] = swap;
+            if (left[node] != -1) {
+                flipped[left[node]] = !flipped[left[node]];
+            }
+            if (right[node] != -1) {
+                flipped[right[node]] = !flipped[right[node]];
+            }
+            flipped[node] = false;
+        }
+    }
+
+    private void update(int node) {
+        int best = node;
+        if (left[node] != -1 && heavier(heaviest[left[node]], best)) {
+            best = heaviest[left[node]];
+        }
+        if (right[node] != -1 && heavier(heaviest[right[node]], best)) {
+            best = heaviest[right[node]];
+        }
+        heaviest[node] = best;
+    }
+
+    private boolean heavier(int a, int b) {
+        return weight[a] > weight[b] || (weight[a] == weight[b] && tieBreak[a] > tieBreak[b]);
+    }
+
+    private void rotate(int node) {
+        int p = parent[node];
+        int grandparent = parent[p];
+        if (!isSplayRoot(p)) {
+            if (left[grandparent] == p) {
+                left[grandparent] = node;
+            } else {
+                right[grandparent] = node;
+            }
+        }
+        parent[node] = grandparent;
+
+        if (left[p] == node) {
+            left[p] = right[node];
+            if (right[node] != -1) {
+                parent[right[node]] = p;
+            }
+            right[node] = p;
+        } else {
+            right[p] = left[node];
+            if (left[node] != -1) {
+                parent[left[node]] = p;
+            }
+            left[node] = p;
+        }
+        parent[p] = node;
+        update(p);
+        update(node);
+    }
+
+    private void splay(int node) {
+        // Pending reversals must be pushed down from the top of the splay tree first.
+        int top = node;
+        int depth = 0;
+        while (!isSplayRoot(top)) {
+            top = parent[top];
+            depth++;
+        }
+        if (pushStack.length <= depth) {
+            pushStack = new int[2 * (depth + 1)];
+        }
+        for (int i = depth, current = node; i >= 0; i--, current = parent[current]) {
+            pushStack[i] = current;
+        }
+        for (int i = 0; i <= depth; i++) {
+            push(pushStack[i]);
+        }
+
+        while (!isSplayRoot(node)) {
+            int p = parent[node];
+            if (!isSplayRoot(p)) {
+                boolean zigZig = (left[p] == node) == (left[parent[p]] == p);
+                rotate(zigZig ? p : node);
+            }
+            rotate(node);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package misc.graphs;
+
+import datastructures.concrete.IndexedMinHeap;
+import misc.exceptions.NoPathExistsException;
+
+import java.awt.Point;
+import java.awt.Polygon;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only graph stored in a binary snapshot file and used straight from memory.
+ *
+ * Building a Graph means hashing every vertex and every edge, which takes seconds for large
+ * mazes. A snapshot instead stores the finished CSR arrays (see CompactGraph), along with the
+ * component labels and, optionally, the geometry of every vertex and edge. Opening one maps the
+ * file into memory and wraps the arrays in buffer views, without reading or converting anything,
+ * so it takes about as long as opening the file. The operating system pages the data in as
+ * queries touch it, and processes mapping the same file share a single copy of it.
+ *
+ * Vertices and edges are identified by the ids CompactGraph gave them when the snapshot was
+ * written; the vertex and edge objects themselves are not stored.
+ *
+ * The file starts with a fixed-size header: a magic number, the format version, a flags word,
+ * the element counts, and the byte offset of every section. The sections follow, each aligned to
+ * 8 bytes. Everything is little-endian.
+ *
+ * Shortest path queries follow the same rules as Graph's (see CompactGraph.checkEndpoints), but
+ * run a Dijkstra loop of their own: Graph's search reads CompactGraph's arrays directly, while
+ * this one reads the buffer views. Sharing one loop would mean either copying the arrays out of
+ * the file, which is what a snapshot avoids, or reading Graph's arrays through an interface,
+ * which would cost its hot loop an indirect call per edge. Nothing ever writes to the mapped
+ * file, so any number of threads can query it at once.
+ */
+public class MappedGraph {
+    private static final int MAGIC = 0x4D475350;
+    private static final int VERSION = 1;
+    private static final int FLAG_GEOMETRY = 1;
+
+    private static final int OFFSETS = 0;
+    private static final int TARGETS = 1;
+    private static final int ENTRY_EDGE_IDS = 2;
+    private static final int ENTRY_WEIGHTS = 3;
+    private static final int EDGE_SOURCES = 4;
+    private static final int EDGE_TARGETS = 5;
+    private static final int EDGE_WEIGHTS = 6;
+    private static final int COMPONENTS = 7;
+    private static final int LOCATIONS = 8;
+    private static final int OUTLINE_OFFSETS = 9;
+    private static final int OUTLINE_POINTS = 10;
+    private static final int LINES = 11;
+    private static final int NUM_SECTIONS = 12;
+
+    // Magic, version, flags and five counts, then the byte offset of every section.
+    private static final int COUNTS_SIZE = 8 * 4;
+    private static final int HEADER_SIZE = COUNTS_SIZE + NUM_SECTIONS * 8;
+
+    private final int numVertices;
+    private final int numEdges;
+    private final int numComponents;
+    private final boolean hasGeometry;
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer entryEdgeIds;
+    private final DoubleBuffer entryWeights;
+    private final IntBuffer edgeSources;
+    private final IntBuffer edgeTargets;
+    private final DoubleBuffer edgeWeights;
+    private final IntBuffer components;
+    private final IntBuffer locations;
+    private final IntBuffer outlineOffsets;
+    private final IntBuffer outlinePoints;
+    private final IntBuffer lines;
+
+    private final ThreadLocal<SearchContext> contexts;
+
+    private MappedGraph(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a graph snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported graph snapshot version " + buffer.getInt(4));
+        }
+        this.hasGeometry = (buffer.getInt(8) & FLAG_GEOMETRY) != 0;
+        this.numVertices = buffer.getInt(12);
+        this.numEdges = buffer.getInt(16);
+        int numEntries = buffer.getInt(20);
+        int numOutlinePoints = buffer.getInt(24);
+        this.numComponents = buffer.getInt(28);
+        if (numVertices < 0 || numEdges < 0 || numEntries < 0 || numOutlinePoints < 0) {
+            throw new IOException("Corrupt graph snapshot header");
+        }
+
+        int geometryVertices = hasGeometry ? numVertices : 0;
+        int geometryEdges = hasGeometry ? numEdges : 0;
+        this.offsets = ints(buffer, OFFSETS, numVertices + 1);
+        this.targets = ints(buffer, TARGETS, numEntries);
+        this.entryEdgeIds = ints(buffer, ENTRY_EDGE_IDS, numEntries);
+        this.entryWeights = doubles(buffer, ENTRY_WEIGHTS, numEntries);
+        this.edgeSources = ints(buffer, EDGE_SOURCES, numEdges);
+        this.edgeTargets = ints(buffer, EDGE_TARGETS, numEdges);
+        this.edgeWeights = doubles(buffer, EDGE_WEIGHTS, numEdges);
+        this.components = ints(buffer, COMPONENTS, numVertices);
+        this.locations = ints(buffer, LOCATIONS, 2 * geometryVertices);
+        this.outlineOffsets = ints(buffer, OUTLINE_OFFSETS, hasGeometry ? numVertices + 1 : 0);
+        this.outlinePoints = ints(buffer, OUTLINE_POINTS, 2 * numOutlinePoints);
+        this.lines = ints(buffer, LINES, 4 * geometryEdges);
+
+        this.contexts = ThreadLocal.withInitial(() -> new SearchContext(this.numVertices));
+    }
+
+    // Returns a view of the given section as 'count' ints.
+    private static IntBuffer ints(ByteBuffer buffer, int section, int count) throws IOException {
+        return slice(buffer, section, 4L * count).asIntBuffer();
+    }
+
+    // Returns a view of the given section as 'count' doubles.
+    private static DoubleBuffer doubles(ByteBuffer buffer, int section, int count) throws IOException {
+        return slice(buffer, section, 8L * count).asDoubleBuffer();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int section, long size) throws IOException {
+        long start = buffer.getLong(COUNTS_SIZE + 8 * section);
+        if (start < HEADER_SIZE || start + size > buffer.capacity()) {
+            throw new IOException("Corrupt graph snapshot: section " + section + " is out of bounds");
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) start);
+        view.limit((int) (start + size));
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Maps the snapshot stored in the given file. The file must not change while it is mapped.
+    // @throws IOException  if the file cannot be read, or is not a snapshot this version
+    //                      understands
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Graph snapshot is too large to map");
+            }
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedGraph(buffer.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    // Writes a snapshot of the graph, without any geometry, replacing the file if it exists.
+    public static <V, E extends Edge<V> & Comparable<E>> void write(Graph<V, E> graph, Path file)
+            throws IOException {
+        write(graph, null, file);
+    }
+
+    // Writes a snapshot of the graph and of its geometry, replacing the file if it exists. The
+    // geometry may be null.
+    // @throws IllegalArgumentException  if the graph is too large to fit in a single snapshot
+    public static <V, E extends Edge<V> & Comparable<E>> void write(Graph<V, E> graph,
+                                                                    GraphGeometry<V, E> geometry,
+                                                                    Path file) throws IOException {
+        CompactGraph<V, E> compact = graph.getCompactGraph();
+        int n = compact.numVertices();
+        int m = compact.numEdges();
+        int numEntries = compact.targets.length;
+
+        Polygon[] outlines = null;
+        long numOutlinePoints = 0;
+        if (geometry != null) {
+            outlines = new Polygon[n];
+            for (int v = 0; v < n; v++) {
+                outlines[v] = geometry.outlineOf(compact.vertexAt(v));
+                numOutlinePoints += outlines[v].npoints;
+            }
+        }
+
+        long[] sizes = new long[NUM_SECTIONS];
+        sizes[OFFSETS] = 4L * (n + 1);
+        sizes[TARGETS] = 4L * numEntries;
+        sizes[ENTRY_EDGE_IDS] = 4L * numEntries;
+        sizes[ENTRY_WEIGHTS] = 8L * numEntries;
+        sizes[EDGE_SOURCES] = 4L * m;
+        sizes[EDGE_TARGETS] = 4L * m;
+        sizes[EDGE_WEIGHTS] = 8L * m;
+        sizes[COMPONENTS] = 4L * n;
+        if (geometry != null) {
+            sizes[LOCATIONS] = 8L * n;
+            sizes[OUTLINE_OFFSETS] = 4L * (n + 1);
+            sizes[OUTLINE_POINTS] = 8L * numOutlinePoints;
+            sizes[LINES] = 16L * m;
+        }
+
+        long[] starts = new long[NUM_SECTIONS];
+        long total = HEADER_SIZE;
+        for (int section = 0; section < NUM_SECTIONS; section++) {
+            starts[section] = total;
+            total += (sizes[section] + 7) & ~7L;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The graph is too large for a single snapshot");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, geometry != null ? FLAG_GEOMETRY : 0);
+            buffer.putInt(12, n);
+            buffer.putInt(16, m);
+            buffer.putInt(20, numEntries);
+            buffer.putInt(24, (int) numOutlinePoints);
+            buffer.putInt(28, compact.numComponents());
+            for (int section = 0; section < NUM_SECTIONS; section++) {
+                buffer.putLong(COUNTS_SIZE + 8 * section, starts[section]);
+            }
+
+            ints(buffer, OFFSETS, n + 1).put(compact.offsets);
+            ints(buffer, TARGETS, numEntries).put(compact.targets);
+            ints(buffer, ENTRY_EDGE_IDS, numEntries).put(compact.edgeIds);
+            doubles(buffer, ENTRY_WEIGHTS, numEntries).put(compact.weights);
+            ints(buffer, EDGE_SOURCES, m).put(compact.edgeSources);
+            ints(buffer, EDGE_TARGETS, m).put(compact.edgeTargets);
+            doubles(buffer, EDGE_WEIGHTS, m).put(compact.edgeWeights);
+            IntBuffer componentView = ints(buffer, COMPONENTS, n);
+            for (int v = 0; v < n; v++) {
+                componentView.put(compact.componentOf(v));
+            }
+
+            if (geometry != null) {
+                writeGeometry(buffer, compact, geometry, outlines, (int) numOutlinePoints);
+            }
+            buffer.force();
+        }
+    }
+
+    private static <V, E extends Edge<V>> void writeGeometry(ByteBuffer buffer, CompactGraph<V, E> compact,
+                                                             GraphGeometry<V, E> geometry, Polygon[] outlines,
+                                                             int numOutlinePoints) throws IOException {
+        int n = compact.numVertices();
+        int m = compact.numEdges();
+        IntBuffer locationView = ints(buffer, LOCATIONS, 2 * n);
+        IntBuffer outlineOffsetView = ints(buffer, OUTLINE_OFFSETS, n + 1);
+        IntBuffer outlinePointView = ints(buffer, OUTLINE_POINTS, 2 * numOutlinePoints);
+        int numPoints = 0;
+        for (int v = 0; v < n; v++) {
+            Point location = geometry.locationOf(compact.vertexAt(v));
+            locationView.put(location.x).put(location.y);
+            outlineOffsetView.put(numPoints);
+            for (int i = 0; i < outlines[v].npoints; i++) {
+                outlinePointView.put(outlines[v].xpoints[i]).put(outlines[v].ypoints[i]);
+            }
+            numPoints += outlines[v].npoints;
+        }
+        outlineOffsetView.put(numPoints);
+
+        IntBuffer lineView = ints(buffer, LINES, 4 * m);
+        for (int e = 0; e < m; e++) {
+            Point start = geometry.lineStartOf(compact.edgeAt(e));
+            Point end = geometry.lineEndOf(compact.edgeAt(e));
+            lineView.put(start.x).put(start.y).put(end.x).put(end.y);
+        }
+    }
+
+    // Returns the number of vertices contained within this graph.
+    public int numVertices() {
+        return this.numVertices;
+    }
+
+    // Returns the number of edges contained within this graph.
+    public int numEdges() {
+        return this.numEdges;
+    }
+
+    // Returns the number of adjacency entries of the given vertex. Self-loops count once.
+    public int degree(int vertex) {
+        checkVertex(vertex);
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    // Returns the label of the connected component containing the given vertex, as labelled by
+    // CompactGraph.componentOf.
+    public int componentOf(int vertex) {
+        checkVertex(vertex);
+        return components.get(vertex);
+    }
+
+    // Returns the number of connected components.
+    public int numComponents() {
+        return this.numComponents;
+    }
+
+    // Returns the id of one endpoint of the given edge.
+    public int edgeSource(int edge) {
+        checkEdge(edge);
+        return edgeSources.get(edge);
+    }
+
+    // Returns the id of the other endpoint of the given edge.
+    public int edgeTarget(int edge) {
+        checkEdge(edge);
+        return edgeTargets.get(edge);
+    }
+
+    // Returns the weight of the given edge.
+    public double edgeWeight(int edge) {
+        checkEdge(edge);
+        return edgeWeights.get(edge);
+    }
+
+    // Returns 'true' if the snapshot was written with geometry.
+    public boolean hasGeometry() {
+        return this.hasGeometry;
+    }
+
+    // Returns the point the given vertex is centered on.
+    // @throws IllegalStateException  if the snapshot has no geometry
+    public Point locationOf(int vertex) {
+        checkVertex(vertex);
+        checkGeometry();
+        return new Point(locations.get(2 * vertex), locations.get(2 * vertex + 1));
+    }
+
+    // Returns the outline of the region the given vertex covers.
+    // @throws IllegalStateException  if the snapshot has no geometry
+    public Polygon outlineOf(int vertex) {
+        checkVertex(vertex);
+        checkGeometry();
+        int first = outlineOffsets.get(vertex);
+        int count = outlineOffsets.get(vertex + 1) - first;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = outlinePoints.get(2 * (first + i));
+            ys[i] = outlinePoints.get(2 * (first + i) + 1);
+        }
+        return new Polygon(xs, ys, count);
+    }
+
+    // Returns one end of the line drawn for the given edge.
+    // @throws IllegalStateException  if the snapshot has no geometry
+    public Point lineStartOf(int edge) {
+        checkEdge(edge);
+        checkGeometry();
+        return new Point(lines.get(4 * edge), lines.get(4 * edge + 1));
+    }
+
+    // Returns the other end of the line drawn for the given edge.
+    // @throws IllegalStateException  if the snapshot has no geometry
+    public Point lineEndOf(int edge) {
+        checkEdge(edge);
+        checkGeometry();
+        return new Point(lines.get(4 * edge + 2), lines.get(4 * edge + 3));
+    }
+
+    // Returns the vertex whose location is closest to the given point, or -1 if the graph has
+    // no vertices. Scans every vertex.
+    // @throws IllegalStateException  if the snapshot has no geometry
+    public int findNearestVertex(int x, int y) {
+        checkGeometry();
+        int nearest = -1;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int v = 0; v < numVertices; v++) {
+            long dx = locations.get(2 * v) - x;
+            long dy = locations.get(2 * v + 1) - y;
+            if (dx * dx + dy * dy < nearestDistance) {
+                nearestDistance = dx * dx + dy * dy;
+                nearest = v;
+            }
+        }
+        return nearest;
+    }
+
+    // Returns the ids of the edges on the shortest path between the two vertices, in order,
+    // following the same rules as Graph.findShortestPathBetween. Returns an empty array if the
+    // start and end vertices are the same.
+    // @throws IllegalArgumentException  if either vertex id is out of range
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public int[] findShortestPathBetween(int start, int end) {
+        if (checkEndpoints(start, end)) {
+            return new int[0];
+        }
+        SearchContext context = contexts.get();
+        search(context, start, end);
+
+        int[] path = new int[16];
+        int length = 0;
+        for (int vertex = end; vertex != start; ) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, 2 * length);
+            }
+            int edge = context.predecessorEdge[vertex];
+            path[length++] = edge;
+            vertex = edgeSources.get(edge) == vertex ? edgeTargets.get(edge) : edgeSources.get(edge);
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    // Returns the total weight of the shortest path between the two vertices.
+    // @throws IllegalArgumentException  if either vertex id is out of range
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public double findPathLength(int start, int end) {
+        if (checkEndpoints(start, end)) {
+            return 0.0;
+        }
+        SearchContext context = contexts.get();
+        search(context, start, end);
+        return context.cost[end];
+    }
+
+    // Returns 'true' if the start and end are the same vertex; see CompactGraph.checkEndpoints.
+    // @throws IllegalArgumentException  if either vertex id is out of range
+    private boolean checkEndpoints(int start, int end) {
+        return CompactGraph.checkEndpoints(start, end, degree(start), degree(end),
+                components.get(start) == components.get(end));
+    }
+
+    // Runs Dijkstra from the start until the end is settled, reading the adjacency arrays
+    // straight from the mapped file.
+    private void search(SearchContext context, int start, int end) {
+        context.reset();
+        double[] cost = context.cost;
+        IndexedMinHeap heap = context.heap;
+
+        context.reach(start);
+        cost[start] = 0.0;
+        heap.insert(start, 0.0);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.removeMin();
+            if (vertex == end) {
+                return;
+            }
+
+            int last = offsets.get(vertex + 1);
+            for (int i = offsets.get(vertex); i < last; i++) {
+                int other = targets.get(i);
+                double newCost = cost[vertex] + entryWeights.get(i);
+                context.reach(other);
+                if (newCost < cost[other]) {
+                    cost[other] = newCost;
+                    context.predecessorEdge[other] = entryEdgeIds.get(i);
+                    heap.insertOrDecrease(other, newCost);
+                }
+            }
+        }
+        throw new NoPathExistsException();
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= numVertices) {
+            throw new IllegalArgumentException("No vertex with id " + vertex);
+        }
+    }
+
+    private void checkEdge(int edge) {
+        if (edge < 0 || edge >= numEdges) {
+            throw new IllegalArgumentException("No edge with id " + edge);
+        }
+    }
+
+    private void checkGeometry() {
+        if (!hasGeometry) {
+            throw new IllegalStateException("The snapshot was written without geometry");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package misc.graphs;
+
+/**
+ * The algorithms Graph.findMinimumSpanningTree can use.
+ *
+ * Every algorithm breaks ties between edges of equal weight by the order the edges were added to
+ * the graph, so they all return exactly the same tree for the same graph.
+ */
+public enum MstAlgorithm {
+    /**
+     * Sorts every edge by weight, then adds them in order unless they would form a cycle.
+     */
+    KRUSKAL,
+
+    /**
+     * Kruskal's algorithm, but partitions the edges around a pivot instead of sorting them all,
+     * and filters out the heavy edges already connected by lighter ones before sorting them.
+     * The filtering runs in parallel. Best on graphs of medium density; on mazes, most edges
+     * end up in the tree anyway, so there is little to filter out.
+     */
+    FILTER_KRUSKAL,
+
+    /**
+     * Grows each tree from a single vertex, keeping only the cheapest known edge into every
+     * other vertex in a heap. Never sorts the edges, so it is best on dense graphs.
+     */
+    PRIM,
+
+    /**
+     * Repeatedly has every component pick its cheapest outgoing edge, in parallel, and merges
+     * the components along those edges. Takes O(log n) rounds.
+     */
+    PARALLEL_BORUVKA,
+
+    /**
+     * Picks an algorithm based on the average number of edges per vertex: KRUSKAL for very
+     * sparse graphs such as mazes, where most edges end up in the tree anyway and filtering
+     * them does not pay off, PRIM for very dense graphs, and FILTER_KRUSKAL in between.
+     */
+    AUTOMATIC
+}
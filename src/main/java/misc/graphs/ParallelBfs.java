@@ -0,0 +1,229 @@
+package misc.graphs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the fewest edges between one source and every vertex with a level-synchronous,
+ * direction-optimizing breadth-first search, expanding each level in parallel.
+ *
+ * Every level starts from the frontier (the vertices first reached on the previous level) and
+ * claims the unreached vertices next to it. While the frontier is small, this is done top-down:
+ * each frontier vertex looks at its neighbors and claims the unreached ones with a
+ * compare-and-set, appending them to the next frontier's queue. Once the frontier's edges
+ * outnumber a fraction of the edges left to explore, it switches to bottom-up: each unreached
+ * vertex looks for any neighbor in the frontier and stops at the first one, which skips most
+ * edges when the frontier covers a large part of the graph. Bottom-up levels keep the frontier
+ * as a bitmap, and every thread owns whole words of the next one, so neither the bitmap nor the
+ * vertices' levels need atomic updates. The search goes back to top-down once the frontier
+ * shrinks again. This is Beamer, Asanovic and Patterson's switching rule, with their constants.
+ */
+final class ParallelBfs {
+    // Switch to bottom-up when the frontier's edges exceed 1/ALPHA of the unexplored edges, and
+    // back to top-down when the frontier holds fewer than 1/BETA of the vertices.
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    private static final int GRAIN_SIZE = 1 << 8;
+
+    private CompactGraph<?, ?> graph;
+
+    // The level every vertex was reached on, or -1 if it was not, and the edge it was reached
+    // through. The level is only updated with a compare-and-set while going top-down.
+    private AtomicIntegerArray hops;
+    private int[] parentEdges;
+
+    // The current frontier, as a queue while going top-down and as a bitmap while going
+    // bottom-up, and the next one as it is being built.
+    private int[] queue;
+    private int[] nextQueue;
+    private AtomicInteger nextQueueSize;
+    private long[] bitmap;
+    private long[] nextBitmap;
+
+    // The adjacency entries of the vertices in the next frontier, and how many it holds.
+    private AtomicLong nextFrontierEdges;
+    private AtomicInteger nextFrontierSize;
+
+    // Counters reported to the graph's listener.
+    long reached;
+    AtomicLong scanned;
+
+    private ParallelBfs(CompactGraph<?, ?> graph) {
+        this.graph = graph;
+        int numVertices = graph.numVertices();
+        this.hops = new AtomicIntegerArray(numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            this.hops.set(v, -1);
+        }
+        this.parentEdges = new int[numVertices];
+        this.queue = new int[numVertices];
+        this.nextQueue = new int[numVertices];
+        this.nextQueueSize = new AtomicInteger(0);
+        this.nextFrontierEdges = new AtomicLong(0);
+        this.nextFrontierSize = new AtomicInteger(0);
+        this.scanned = new AtomicLong(0);
+    }
+
+    // Returns a search from the source that has already run. It stops once the target is
+    // reached, or reaches every vertex it can if the target is -1.
+    static ParallelBfs run(CompactGraph<?, ?> graph, int source, int target) {
+        ParallelBfs search = new ParallelBfs(graph);
+        search.search(source, target);
+        return search;
+    }
+
+    // Returns the number of edges between the source and the vertex, or -1 if the search did not
+    // reach it.
+    int hopsTo(int vertex) {
+        return hops.get(vertex);
+    }
+
+    // Returns the edge the vertex was reached through. Only meaningful for reached vertices other
+    // than the source.
+    int parentEdge(int vertex) {
+        return parentEdges[vertex];
+    }
+
+    private void search(int source, int target) {
+        int numVertices = graph.numVertices();
+        hops.set(source, 0);
+        parentEdges[source] = -1;
+        queue[0] = source;
+        int frontierSize = 1;
+        long frontierEdges = graph.degree(source);
+        long unexploredEdges = graph.offsets[numVertices] - frontierEdges;
+        reached = 1;
+
+        boolean bottomUp = false;
+        for (int level = 0; frontierSize > 0; level++) {
+            if (target != -1 && hops.get(target) != -1) {
+                break;
+            }
+
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                queueToBitmap(frontierSize);
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < numVertices / BETA) {
+                bitmapToQueue();
+                bottomUp = false;
+            }
+
+            nextFrontierEdges.set(0);
+            nextFrontierSize.set(0);
+            if (bottomUp) {
+                stepBottomUp(level);
+                long[] swap = bitmap;
+                bitmap = nextBitmap;
+                nextBitmap = swap;
+            } else {
+                stepTopDown(frontierSize, level);
+                int[] swap = queue;
+                queue = nextQueue;
+                nextQueue = swap;
+            }
+
+            frontierSize = nextFrontierSize.get();
+            frontierEdges = nextFrontierEdges.get();
+            unexploredEdges -= frontierEdges;
+            reached += frontierSize;
+        }
+    }
+
+    // Claims the unreached neighbors of every vertex in the queue.
+    private void stepTopDown(int frontierSize, int level) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] edgeIds = graph.edgeIds;
+        nextQueueSize.set(0);
+
+        ParallelLoops.forRange(0, frontierSize, GRAIN_SIZE, (from, to) -> {
+            long edges = 0;
+            long looked = 0;
+            int claimed = 0;
+            for (int i = from; i < to; i++) {
+                int vertex = queue[i];
+                looked += offsets[vertex + 1] - offsets[vertex];
+                for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                    int other = targets[j];
+                    if (hops.get(other) == -1 && hops.compareAndSet(other, -1, level + 1)) {
+                        parentEdges[other] = edgeIds[j];
+                        nextQueue[nextQueueSize.getAndIncrement()] = other;
+                        edges += offsets[other + 1] - offsets[other];
+                        claimed++;
+                    }
+                }
+            }
+            nextFrontierEdges.addAndGet(edges);
+            nextFrontierSize.addAndGet(claimed);
+            scanned.addAndGet(looked);
+        });
+    }
+
+    // Has every unreached vertex look for a neighbor in the bitmap. Each piece of the loop covers
+    // whole words of the next bitmap, so no two threads ever write to the same word.
+    private void stepBottomUp(int level) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] edgeIds = graph.edgeIds;
+        int numVertices = graph.numVertices();
+
+        ParallelLoops.forRange(0, bitmap.length, GRAIN_SIZE / 16, (fromWord, toWord) -> {
+            long edges = 0;
+            long looked = 0;
+            int claimed = 0;
+            for (int word = fromWord; word < toWord; word++) {
+                long bits = 0;
+                int end = Math.min((word + 1) << 6, numVertices);
+                for (int vertex = word << 6; vertex < end; vertex++) {
+                    if (hops.get(vertex) != -1) {
+                        continue;
+                    }
+                    for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+                        looked++;
+                        int other = targets[j];
+                        if ((bitmap[other >>> 6] & (1L << other)) != 0) {
+                            hops.set(vertex, level + 1);
+                            parentEdges[vertex] = edgeIds[j];
+                            bits |= 1L << vertex;
+                            edges += offsets[vertex + 1] - offsets[vertex];
+                            claimed++;
+                            break;
+                        }
+                    }
+                }
+                nextBitmap[word] = bits;
+            }
+            nextFrontierEdges.addAndGet(edges);
+            nextFrontierSize.addAndGet(claimed);
+            scanned.addAndGet(looked);
+        });
+    }
+
+    private void queueToBitmap(int frontierSize) {
+        int numWords = (graph.numVertices() + 63) >>> 6;
+        if (bitmap == null) {
+            bitmap = new long[numWords];
+            nextBitmap = new long[numWords];
+        } else {
+            for (int word = 0; word < numWords; word++) {
+                bitmap[word] = 0;
+            }
+        }
+        for (int i = 0; i < frontierSize; i++) {
+            bitmap[queue[i] >>> 6] |= 1L << queue[i];
+        }
+    }
+
+    private void bitmapToQueue() {
+        int size = 0;
+        for (int word = 0; word < bitmap.length; word++) {
+            long bits = bitmap[word];
+            while (bits != 0) {
+                queue[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package misc.graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * Runs loops over ranges of integers on the common fork-join pool, or on the pool of the calling
+ * thread if it is already running inside one. Submitting work to a pool of your own therefore
+ * limits (or raises) the number of threads it uses.
+ *
+ * A range is split in halves until the pieces are no larger than the given grain size, and the
+ * pieces are then run in parallel. Ranges that are already small enough run directly on the
+ * calling thread, so small graphs pay nothing for parallelism.
+ *
+ * filter builds on the same pieces to compact an array in parallel while keeping its order.
+ */
+final class ParallelLoops {
+    private static final int FILTER_CHUNK_SIZE = 1 << 13;
+
+    private ParallelLoops() {
+    }
+
+    /**
+     * The body of a loop, run once for each piece [from, to) of the range.
+     */
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // Runs the body over [from, to), in parallel pieces of at most 'grainSize' integers.
+    static void forRange(int from, int to, int grainSize, RangeBody body) {
+        if (to - from <= grainSize || parallelism() <= 1) {
+            if (from < to) {
+                body.run(from, to);
+            }
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            new RangeTask(from, to, grainSize, body).invoke();
+        } else {
+            ForkJoinPool.commonPool().invoke(new RangeTask(from, to, grainSize, body));
+        }
+    }
+
+    // Returns the values the predicate keeps, in their original order. Each chunk of values counts
+    // the ones it keeps first, so every chunk knows where to write its own without coordinating
+    // with the others. The predicate is called twice per value, and must be safe to call from
+    // several threads.
+    static int[] filter(int[] values, IntPredicate keep) {
+        if (values.length <= FILTER_CHUNK_SIZE || parallelism() <= 1) {
+            int[] kept = new int[values.length];
+            int numKept = 0;
+            for (int value : values) {
+                if (keep.test(value)) {
+                    kept[numKept++] = value;
+                }
+            }
+            return Arrays.copyOf(kept, numKept);
+        }
+
+        int numChunks = (values.length + FILTER_CHUNK_SIZE - 1) / FILTER_CHUNK_SIZE;
+        int[] chunkStarts = new int[numChunks + 1];
+        forRange(0, numChunks, 1, (fromChunk, toChunk) -> {
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                int count = 0;
+                int end = Math.min((chunk + 1) * FILTER_CHUNK_SIZE, values.length);
+                for (int i = chunk * FILTER_CHUNK_SIZE; i < end; i++) {
+                    if (keep.test(values[i])) {
+                        count++;
+                    }
+                }
+                chunkStarts[chunk + 1] = count;
+            }
+        });
+        for (int chunk = 0; chunk < numChunks; chunk++) {
+            chunkStarts[chunk + 1] += chunkStarts[chunk];
+        }
+
+        int[] kept = new int[chunkStarts[numChunks]];
+        forRange(0, numChunks, 1, (fromChunk, toChunk) -> {
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                int out = chunkStarts[chunk];
+                int end = Math.min((chunk + 1) * FILTER_CHUNK_SIZE, values.length);
+                for (int i = chunk * FILTER_CHUNK_SIZE; i < end; i++) {
+                    if (keep.test(values[i])) {
+                        kept[out++] = values[i];
+                    }
+                }
+            }
+        });
+        return kept;
+    }
+
+    // Returns the number of threads that forRange can use at once.
+    static int parallelism() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return Math.max(pool == null ? ForkJoinPool.getCommonPoolParallelism() : pool.getParallelism(), 1);
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private int from;
+        private int to;
+        private int grainSize;
+        private RangeBody body;
+
+        public RangeTask(int from, int to, int grainSize, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                body.run(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new RangeTask(from, middle, grainSize, body),
+                        new RangeTask(middle, to, grainSize, body));
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package misc.graphs;
+
+import datastructures.interfaces.IList;
+
+/**
+ * A shortest path found by one of Graph's multi-source searches, along with the source it starts
+ * from and the target it ends at.
+ */
+public class PathMatch<V, E extends Edge<V>> {
+    private V source;
+    private V target;
+    private double cost;
+    private IList<E> path;
+
+    PathMatch(V source, V target, double cost, IList<E> path) {
+        this.source = source;
+        this.target = target;
+        this.cost = cost;
+        this.path = path;
+    }
+
+    // Returns the source the path starts from.
+    public V getSource() {
+        return this.source;
+    }
+
+    // Returns the target the path ends at.
+    public V getTarget() {
+        return this.target;
+    }
+
+    // Returns the total weight of the path.
+    public double getCost() {
+        return this.cost;
+    }
+
+    // Returns the edges that make up the path, from the source to the target. Empty if the
+    // source is the target.
+    public IList<E> getPath() {
+        return this.path;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PathMatch(source=%s, target=%s, cost=%s)", this.source, this.target, this.cost);
+    }
+}
@@ -0,0 +1,30 @@
+package misc.graphs;
+
+/**
+ * A request for the shortest path between two vertices, as passed to
+ * Graph.findShortestPaths.
+ */
+public class PathQuery<V> {
+    private V start;
+    private V end;
+
+    public PathQuery(V start, V end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    // Returns the vertex the path should start from.
+    public V getStart() {
+        return this.start;
+    }
+
+    // Returns the vertex the path should end at.
+    public V getEnd() {
+        return this.end;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PathQuery(start=%s, end=%s)", this.start, this.end);
+    }
+}
@@ -0,0 +1,50 @@
+package misc.graphs;
+
+import datastructures.interfaces.IList;
+
+/**
+ * The outcome of one PathQuery in a batch run by Graph.findShortestPaths: either the path, or
+ * the exception the query failed with.
+ */
+public class PathQueryResult<V, E extends Edge<V>> {
+    private PathQuery<V> query;
+    private IList<E> path;
+    private RuntimeException failure;
+
+    PathQueryResult(PathQuery<V> query, IList<E> path, RuntimeException failure) {
+        this.query = query;
+        this.path = path;
+        this.failure = failure;
+    }
+
+    // Returns the query this is the result of.
+    public PathQuery<V> getQuery() {
+        return this.query;
+    }
+
+    // Returns 'true' if a path was found.
+    public boolean isSuccessful() {
+        return this.failure == null;
+    }
+
+    // Returns the shortest path, exactly as findShortestPathBetween would have returned it.
+    // @throws IllegalStateException  if the query failed; see getFailure
+    public IList<E> getPath() {
+        if (this.failure != null) {
+            throw new IllegalStateException("The query failed", this.failure);
+        }
+        return this.path;
+    }
+
+    // Returns the exception findShortestPathBetween would have thrown for the query, such as a
+    // NoPathExistsException, or null if the query succeeded.
+    public RuntimeException getFailure() {
+        return this.failure;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PathQueryResult(query=%s, %s)", this.query,
+                this.failure == null ? "length=" + this.path.size() : "failure=" + this.failure);
+    }
+}
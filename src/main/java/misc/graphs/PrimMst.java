@@ -0,0 +1,91 @@
+package misc.graphs;
+
+import datastructures.concrete.IndexedMinHeap;
+import misc.graphs.SearchStats.Metric;
+
+/**
+ * Finds a minimum spanning forest with Prim's algorithm.
+ *
+ * Each tree is grown from a single vertex by repeatedly adding the cheapest edge that leaves it.
+ * For every vertex outside the tree, only the cheapest known edge into it is kept in the heap;
+ * when a cheaper one shows up, it replaces the old one in place. The heap therefore never holds
+ * more than one edge per vertex, and nothing is ever sorted, which makes this the fastest choice
+ * on dense graphs where most edges would otherwise be sorted only to be rejected.
+ *
+ * The heap is keyed by edge id rather than by vertex, so that edges of equal weight come out in
+ * the order they were added to the graph, exactly as they do in Kruskal's algorithm.
+ */
+final class PrimMst {
+    private PrimMst() {
+    }
+
+    // Returns the ids of the edges in the minimum spanning forest of the graph, and adds the
+    // vertices it settled, the adjacency entries it looked at, and its heap operations to the
+    // counters, indexed by Metric.ordinal().
+    static int[] findTreeEdges(CompactGraph<?, ?> graph, long[] counters) {
+        int numVertices = graph.numVertices();
+        double[] edgeWeights = graph.edgeWeights;
+
+        boolean[] inTree = new boolean[numVertices];
+        int[] cheapestEdge = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            cheapestEdge[v] = -1;
+        }
+        IndexedMinHeap heap = new IndexedMinHeap(graph.numEdges());
+
+        int[] treeEdges = new int[Math.max(numVertices - 1, 0)];
+        int numTreeEdges = 0;
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 0;
+        long decreases = 0;
+
+        for (int root = 0; root < numVertices; root++) {
+            if (inTree[root] || graph.degree(root) == 0) {
+                continue;
+            }
+
+            int vertex = root;
+            while (true) {
+                inTree[vertex] = true;
+                settled++;
+                relaxed += graph.degree(vertex);
+                for (int i = graph.offsets[vertex]; i < graph.offsets[vertex + 1]; i++) {
+                    int neighbor = graph.targets[i];
+                    int edgeId = graph.edgeIds[i];
+                    if (inTree[neighbor]) {
+                        continue;
+                    }
+
+                    int current = cheapestEdge[neighbor];
+                    if (current == -1) {
+                        heap.insert(edgeId, edgeWeights[edgeId]);
+                        cheapestEdge[neighbor] = edgeId;
+                        pushes++;
+                    } else if (graph.isCheaper(edgeId, current)) {
+                        heap.remove(current);
+                        heap.insert(edgeId, edgeWeights[edgeId]);
+                        cheapestEdge[neighbor] = edgeId;
+                        decreases++;
+                    }
+                }
+
+                if (heap.isEmpty()) {
+                    break;
+                }
+                int edgeId = heap.removeMin();
+                treeEdges[numTreeEdges++] = edgeId;
+                vertex = inTree[graph.edgeSources[edgeId]] ? graph.edgeTargets[edgeId] : graph.edgeSources[edgeId];
+            }
+        }
+
+        counters[Metric.SETTLED_VERTICES.ordinal()] += settled;
+        counters[Metric.RELAXED_EDGES.ordinal()] += relaxed;
+        counters[Metric.HEAP_PUSHES.ordinal()] += pushes;
+        counters[Metric.DECREASED_KEYS.ordinal()] += decreases;
+
+        int[] result = new int[numTreeEdges];
+        System.arraycopy(treeEdges, 0, result, 0, numTreeEdges);
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package misc.graphs;
+
+import datastructures.concrete.IndexedMinHeap;
+
+/**
+ * Scratch space for one shortest path search over a graph with a fixed number of vertices, meant
+ * to be reused across many searches.
+ *
+ * Instead of refilling the cost and predecessor arrays before every search, each entry carries
+ * the 'epoch' of the search that last wrote it. Starting a new search just bumps the epoch, which
+ * makes every entry written by earlier searches read as unreached. A search therefore only ever
+ * touches the vertices it actually reaches, and reusing a context allocates nothing.
+ *
+ * A context must only be used by one search at a time; Graph keeps one per thread. It is
+ * public for the maze solvers that run searches of their own over a CompactGraph.
+ */
+public final class SearchContext {
+    private int[] stamps;
+    private int epoch;
+
+    // Only meaningful for vertices reached during the current epoch (see isReached).
+    public final double[] cost;
+    public final int[] predecessorEdge;
+    public final double[] estimate;
+
+    public final IndexedMinHeap heap;
+
+    public SearchContext(int numVertices) {
+        this.stamps = new int[numVertices];
+        this.epoch = 0;
+        this.cost = new double[numVertices];
+        this.predecessorEdge = new int[numVertices];
+        this.estimate = new double[numVertices];
+        this.heap = new IndexedMinHeap(numVertices);
+    }
+
+    // Forgets the previous search. Costs O(1), plus the number of vertices the previous search
+    // left inside the heap.
+    public void reset() {
+        heap.clear();
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            // Practically never happens, but stale stamps must not wrap around into validity.
+            for (int v = 0; v < stamps.length; v++) {
+                stamps[v] = 0;
+            }
+            epoch = 1;
+        }
+    }
+
+    // Returns 'true' if the vertex has been reached during the current search.
+    public boolean isReached(int vertex) {
+        return stamps[vertex] == epoch;
+    }
+
+    // Marks the vertex as reached, with an infinite cost and no predecessor. Returns 'false'
+    // and changes nothing if it was already reached during the current search.
+    public boolean reach(int vertex) {
+        if (stamps[vertex] == epoch) {
+            return false;
+        }
+        stamps[vertex] = epoch;
+        cost[vertex] = Double.POSITIVE_INFINITY;
+        predecessorEdge[vertex] = -1;
+        return true;
+    }
+
+    // Returns the cost of the vertex in the current search, or infinity if it was not reached.
+    public double costOf(int vertex) {
+        return stamps[vertex] == epoch ? cost[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    // Returns the predecessor edge of the vertex in the current search, or -1 if it has none.
+    public int predecessorOf(int vertex) {
+        return stamps[vertex] == epoch ? predecessorEdge[vertex] : -1;
+    }
+}
@@ -0,0 +1,140 @@
+package misc.graphs;
+
+import misc.graphs.SearchStats.Metric;
+import misc.graphs.SearchStats.Operation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A GraphSearchListener that aggregates every report it receives: per operation, the number of
+ * searches, the total of every counter, and a histogram of every counter.
+ *
+ * The histograms have power-of-two buckets: bucket 0 counts the searches where the counter was
+ * zero, and bucket b > 0 the ones where it was at least 2^(b - 1) and below 2^b. That is coarse,
+ * but recording a report costs a few atomic increments and no allocation, and it is plenty to
+ * tell a typical search from the slow tail.
+ *
+ * Safe to share between threads and graphs.
+ */
+public class SearchMetrics implements GraphSearchListener {
+    private static final int NUM_BUCKETS = 64;
+
+    private static final int NUM_OPERATIONS = Operation.values().length;
+    private static final int NUM_METRICS = Metric.values().length;
+
+    // Indexed by operation.
+    private final AtomicLongArray searches;
+
+    // Indexed by operation, then metric.
+    private final AtomicLongArray totals;
+
+    // Indexed by operation, then metric, then bucket.
+    private final AtomicLongArray buckets;
+
+    public SearchMetrics() {
+        this.searches = new AtomicLongArray(NUM_OPERATIONS);
+        this.totals = new AtomicLongArray(NUM_OPERATIONS * NUM_METRICS);
+        this.buckets = new AtomicLongArray(NUM_OPERATIONS * NUM_METRICS * NUM_BUCKETS);
+    }
+
+    @Override
+    public void searchFinished(SearchStats stats) {
+        int operation = stats.getOperation().ordinal();
+        searches.incrementAndGet(operation);
+        for (Metric metric : Metric.values()) {
+            long value = stats.get(metric);
+            int index = operation * NUM_METRICS + metric.ordinal();
+            totals.addAndGet(index, value);
+            buckets.incrementAndGet(index * NUM_BUCKETS + bucketOf(value));
+        }
+    }
+
+    private static int bucketOf(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    // Returns the number of searches of the given kind reported so far.
+    public long numSearches(Operation operation) {
+        return searches.get(operation.ordinal());
+    }
+
+    // Returns the sum of the counter over every search of the given kind.
+    public long total(Operation operation, Metric metric) {
+        return totals.get(operation.ordinal() * NUM_METRICS + metric.ordinal());
+    }
+
+    // Returns the average of the counter over every search of the given kind, or 0 if there
+    // were none.
+    public double mean(Operation operation, Metric metric) {
+        long count = numSearches(operation);
+        return count == 0 ? 0.0 : 1.0 * total(operation, metric) / count;
+    }
+
+    // Returns a copy of the histogram of the counter over every search of the given kind. See
+    // the class comment for the bucket boundaries.
+    public long[] histogram(Operation operation, Metric metric) {
+        int first = (operation.ordinal() * NUM_METRICS + metric.ordinal()) * NUM_BUCKETS;
+        long[] histogram = new long[NUM_BUCKETS];
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            histogram[b] = buckets.get(first + b);
+        }
+        return histogram;
+    }
+
+    // Returns an upper bound, tight to within a factor of two, on the value of the counter that
+    // the given fraction of the searches of the given kind stayed at or below. For example,
+    // 0.99 gives the 99th percentile. Returns 0 if there were no searches.
+    // @throws IllegalArgumentException  if the fraction is not between 0 and 1
+    public long percentile(Operation operation, Metric metric, double fraction) {
+        if (!(fraction >= 0.0 && fraction <= 1.0)) {
+            throw new IllegalArgumentException();
+        }
+        long[] histogram = histogram(operation, metric);
+        long count = 0;
+        for (long bucketCount : histogram) {
+            count += bucketCount;
+        }
+        long needed = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            seen += histogram[b];
+            if (seen >= needed && seen > 0) {
+                return b == 0 ? 0 : (1L << b) - 1;
+            }
+        }
+        return 0;
+    }
+
+    // Forgets every report received so far. Reports arriving at the same time may be partly
+    // forgotten.
+    public void reset() {
+        for (int i = 0; i < NUM_OPERATIONS; i++) {
+            searches.set(i, 0);
+        }
+        for (int i = 0; i < totals.length(); i++) {
+            totals.set(i, 0);
+        }
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("SearchMetrics(");
+        boolean first = true;
+        for (Operation operation : Operation.values()) {
+            if (numSearches(operation) == 0) {
+                continue;
+            }
+            result.append(first ? "" : "; ").append(operation)
+                    .append(": searches=").append(numSearches(operation));
+            for (Metric metric : Metric.values()) {
+                String name = metric.toString().toLowerCase();
+                result.append(String.format(", mean %s=%.1f", name, mean(operation, metric)));
+            }
+            first = false;
+        }
+        return result.append(')').toString();
+    }
+}
@@ -0,0 +1,155 @@
+package misc.graphs;
+
+/**
+ * What a single call to one of Graph's search methods did, as reported to a
+ * GraphSearchListener.
+ *
+ * The counters separate problems with the search itself from problems with the graph: a search
+ * that settles most of the graph to find a short path points at a weak heuristic (or none),
+ * re-opened vertices point at an inconsistent one, many key decreases per push point at heap
+ * churn, and many settled vertices with a good heuristic point at a maze whose shortest paths
+ * wind far away from the straight line.
+ */
+public final class SearchStats {
+    /**
+     * The search methods that report statistics.
+     */
+    public enum Operation {
+        /**
+         * findShortestPathBetween, without a heuristic.
+         */
+        DIJKSTRA,
+
+        /**
+         * findShortestPathBetween, with a heuristic.
+         */
+        A_STAR,
+
+        /**
+         * findShortestPathBidirectional. Its counters add up both directions.
+         */
+        BIDIRECTIONAL,
+
+        /**
+         * findShortestPathsFrom, which settles the source's whole component.
+         */
+        SHORTEST_PATH_TREE,
+
+        /**
+         * findShortestPathBetweenAny and findShortestPathsToEach. Heap pushes include the
+         * sources.
+         */
+        MULTI_SOURCE,
+
+        /**
+         * findShortestPathsFromInParallel. Heap pushes count bucket insertions, and re-opened
+         * vertices count expansions of a vertex whose distance dropped after it was expanded.
+         */
+        DELTA_STEPPING,
+
+        /**
+         * findFewestEdgesPathBetween and findHopDistancesFrom. Settled vertices and heap pushes
+         * both count the vertices reached, and relaxed edges count the adjacency entries looked
+         * at, which bottom-up levels keep well below the number of edges.
+         */
+        BREADTH_FIRST,
+
+        /**
+         * findMinimumSpanningTree, with any algorithm. Each algorithm counts the work it does
+         * its own way; see the counters below.
+         */
+        MINIMUM_SPANNING_TREE
+    }
+
+    /**
+     * The counters every report carries. Counters that do not apply to an operation are zero.
+     */
+    public enum Metric {
+        /**
+         * Vertices removed from the heap and expanded. For a minimum spanning tree, the
+         * vertices Prim's algorithm added to the tree; the other algorithms settle none.
+         */
+        SETTLED_VERTICES,
+
+        /**
+         * Edges looked at from an expanded vertex. For a minimum spanning tree, the edges the
+         * algorithm looked at: Prim counts adjacency entries, Kruskal every edge once, Boruvka
+         * every edge once per round it still joined two components, and Filter-Kruskal every
+         * edge once per filter that checked its endpoints, plus once when sorted.
+         */
+        RELAXED_EDGES,
+
+        /**
+         * Vertices inserted into the heap. For Prim's algorithm, edges.
+         */
+        HEAP_PUSHES,
+
+        /**
+         * Keys lowered for vertices already inside the heap.
+         */
+        DECREASED_KEYS,
+
+        /**
+         * Vertices pushed back into the heap after being expanded already. The heap updates
+         * keys in place, so it never holds stale duplicate entries; this is the wasted work
+         * that takes their place. Only an inconsistent heuristic causes any.
+         */
+        REOPENED_VERTICES,
+
+        /**
+         * Edges left out of a minimum spanning tree, because they would have closed a cycle.
+         * The same for every algorithm, since they all find the same tree.
+         */
+        REJECTED_EDGES,
+
+        /**
+         * Union operations on the disjoint sets of a minimum spanning tree algorithm, whether
+         * they merged two components or found the edge closing a cycle. Prim's algorithm uses
+         * none, and Filter-Kruskal none for the edges its filters drop.
+         */
+        UNION_OPERATIONS,
+
+        /**
+         * Wall-clock time the call took, in nanoseconds.
+         */
+        ELAPSED_NANOS
+    }
+
+    private final Operation operation;
+    private final long[] values;
+
+    // The values are indexed by Metric.ordinal(), and are used as-is without being copied.
+    SearchStats(Operation operation, long[] values) {
+        this.operation = operation;
+        this.values = values;
+    }
+
+    // Builds the values array for the constructor.
+    static long[] values(long settled, long relaxed, long pushes, long decreases, long reopened,
+                         long rejected, long unions, long elapsedNanos) {
+        return new long[] {settled, relaxed, pushes, decreases, reopened, rejected, unions, elapsedNanos};
+    }
+
+    // Returns the search method that was called.
+    public Operation getOperation() {
+        return this.operation;
+    }
+
+    // Returns the value of the given counter.
+    public long get(Metric metric) {
+        return this.values[metric.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(operation.toString());
+        result.append('(');
+        for (Metric metric : Metric.values()) {
+            if (metric.ordinal() > 0) {
+                result.append(", ");
+            }
+            result.append(metric.toString().toLowerCase()).append('=').append(get(metric));
+        }
+        return result.append(')').toString();
+    }
+}
@@ -0,0 +1,223 @@
+package misc.graphs;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+/**
+ * Answers repeated shortest path queries against the same graph by caching shortest path trees.
+ *
+ * The first query from a vertex runs a single-source search and keeps the resulting
+ * ShortestPathTree; every later query that starts or ends at that vertex is answered from the
+ * tree in time proportional to the length of the path. Because the graph is undirected, a tree
+ * rooted at the end of a query serves it just as well as one rooted at its start, although
+ * among paths of equal cost it may pick a different one.
+ *
+ * At most 'capacity' trees are kept. When the cache is full, the least recently used tree is
+ * evicted. Every tree is tied to the graph it was computed on: pointing the cache at a different
+ * graph through setGraph discards all of them.
+ *
+ * This class is not thread-safe.
+ */
+public class ShortestPathCache<V, E extends Edge<V> & Comparable<E>> {
+    private Graph<V, E> graph;
+    private int capacity;
+    private IDictionary<V, Entry<V, E>> entries;
+
+    // The most and least recently used entries, linked through Entry.newer and Entry.older.
+    private Entry<V, E> newest;
+    private Entry<V, E> oldest;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Constructs an empty cache that keeps at most 'capacity' trees. A graph must be supplied
+    // through setGraph before the cache can answer queries.
+    // @throws IllegalArgumentException  if the capacity is not positive
+    public ShortestPathCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.entries = new ChainedHashDictionary<>(capacity);
+    }
+
+    public ShortestPathCache(Graph<V, E> graph, int capacity) {
+        this(capacity);
+        this.setGraph(graph);
+    }
+
+    // Returns the graph queries currently run against.
+    public Graph<V, E> getGraph() {
+        return this.graph;
+    }
+
+    // Makes the cache answer queries against the given graph. If it is not the graph the cache
+    // was already using, every cached tree is discarded.
+    public void setGraph(Graph<V, E> graph) {
+        if (graph != this.graph) {
+            this.graph = graph;
+            this.invalidate();
+        }
+    }
+
+    // Discards every cached tree. The hit and miss counters are left untouched.
+    public void invalidate() {
+        this.entries = new ChainedHashDictionary<>(this.capacity);
+        this.newest = null;
+        this.oldest = null;
+    }
+
+    // Returns a shortest path between the two vertices, of the same cost as the one
+    // Graph.findShortestPathBetween returns. Where several paths tie, it may be a different one:
+    // a tree rooted at the end yields its own path to the start, reversed.
+    // @throws IllegalStateException  if no graph has been set
+    // @throws NoPathExistsException  if there does not exist a path from the start to the end
+    public IList<E> findShortestPathBetween(V start, V end) {
+        CompactGraph<V, E> compact = requireGraph().getCompactGraph();
+        int startId = compact.idOf(start);
+        int endId = compact.idOf(end);
+        if (compact.checkEndpoints(startId, endId)) {
+            return new DoubleLinkedList<>();
+        }
+
+        Entry<V, E> fromStart = entries.getOrDefault(start, null);
+        if (fromStart != null) {
+            hits++;
+            moveToFront(fromStart);
+            return fromStart.tree.pathTo(end);
+        }
+
+        Entry<V, E> fromEnd = entries.getOrDefault(end, null);
+        if (fromEnd != null) {
+            hits++;
+            moveToFront(fromEnd);
+            return reverse(fromEnd.tree.pathTo(start));
+        }
+
+        misses++;
+        return computeTree(start).pathTo(end);
+    }
+
+    // Returns the shortest path tree rooted at the given source, computing and caching it if
+    // needed.
+    // @throws IllegalStateException  if no graph has been set
+    public ShortestPathTree<V, E> findShortestPathsFrom(V source) {
+        requireGraph();
+        Entry<V, E> entry = entries.getOrDefault(source, null);
+        if (entry != null) {
+            hits++;
+            moveToFront(entry);
+            return entry.tree;
+        }
+
+        misses++;
+        return computeTree(source);
+    }
+
+    // Returns the number of trees currently cached.
+    public int size() {
+        return this.entries.size();
+    }
+
+    // Returns the maximum number of trees this cache keeps.
+    public int capacity() {
+        return this.capacity;
+    }
+
+    // Returns the number of queries answered from a cached tree.
+    public long hitCount() {
+        return this.hits;
+    }
+
+    // Returns the number of queries that needed a new search.
+    public long missCount() {
+        return this.misses;
+    }
+
+    // Returns the number of trees discarded to make room for newer ones.
+    public long evictionCount() {
+        return this.evictions;
+    }
+
+    private Graph<V, E> requireGraph() {
+        if (this.graph == null) {
+            throw new IllegalStateException("No graph has been set");
+        }
+        return this.graph;
+    }
+
+    // Runs a new search from the source and stores its tree as the most recently used entry,
+    // evicting the least recently used one if the cache is full.
+    private ShortestPathTree<V, E> computeTree(V source) {
+        ShortestPathTree<V, E> tree = graph.findShortestPathsFrom(source);
+
+        if (entries.size() == capacity) {
+            Entry<V, E> victim = oldest;
+            unlink(victim);
+            entries.remove(victim.source);
+            evictions++;
+        }
+
+        Entry<V, E> entry = new Entry<>(source, tree);
+        entries.put(source, entry);
+        linkAsNewest(entry);
+        return tree;
+    }
+
+    private void moveToFront(Entry<V, E> entry) {
+        if (entry != newest) {
+            unlink(entry);
+            linkAsNewest(entry);
+        }
+    }
+
+    private void linkAsNewest(Entry<V, E> entry) {
+        entry.older = newest;
+        entry.newer = null;
+        if (newest != null) {
+            newest.newer = entry;
+        }
+        newest = entry;
+        if (oldest == null) {
+            oldest = entry;
+        }
+    }
+
+    private void unlink(Entry<V, E> entry) {
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            newest = entry.older;
+        }
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            oldest = entry.newer;
+        }
+        entry.newer = null;
+        entry.older = null;
+    }
+
+    private static <T> IList<T> reverse(IList<T> list) {
+        IList<T> output = new DoubleLinkedList<>();
+        for (T item : list) {
+            output.insert(0, item);
+        }
+        return output;
+    }
+
+    private static class Entry<V, E extends Edge<V>> {
+        private V source;
+        private ShortestPathTree<V, E> tree;
+        private Entry<V, E> newer;
+        private Entry<V, E> older;
+
+        public Entry(V source, ShortestPathTree<V, E> tree) {
+            this.source = source;
+            this.tree = tree;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package misc.graphs;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.exceptions.NoPathExistsException;
+
+/**
+ * The result of a single-source shortest path search: the distance from the source to every
+ * vertex, and the last edge on a shortest path to every vertex.
+ *
+ * Both are stored as primitive arrays indexed by the vertex ids of the graph's CompactGraph, so
+ * the tree takes O(n) memory no matter how many paths are later read out of it.
+ *
+ * Since the graph is undirected, the same tree also describes the shortest way from every
+ * vertex back to the source: following predecessor edges from any vertex walks a shortest path
+ * to the source. This is what flowField() exposes.
+ */
+public class ShortestPathTree<V, E extends Edge<V>> {
+    private CompactGraph<V, E> graph;
+    private int sourceId;
+    private double[] distances;
+    private int[] predecessorEdges;
+
+    ShortestPathTree(CompactGraph<V, E> graph, int sourceId, double[] distances, int[] predecessorEdges) {
+        this.graph = graph;
+        this.sourceId = sourceId;
+        this.distances = distances;
+        this.predecessorEdges = predecessorEdges;
+    }
+
+    // Returns the graph this tree was computed on, which maps between vertices and their ids.
+    public CompactGraph<V, E> getCompactGraph() {
+        return this.graph;
+    }
+
+    // Returns the vertex the search started from.
+    public V getSource() {
+        return graph.vertexAt(this.sourceId);
+    }
+
+    // Returns 'true' if there is a path between the source and the given vertex.
+    // @throws IllegalArgumentException  if the vertex is not a part of the graph
+    public boolean hasPathTo(V vertex) {
+        return distances[graph.idOf(vertex)] != Double.POSITIVE_INFINITY;
+    }
+
+    // Returns the cost of the shortest path between the source and the given vertex, or
+    // infinity if there is none.
+    // @throws IllegalArgumentException  if the vertex is not a part of the graph
+    public double distanceTo(V vertex) {
+        return distances[graph.idOf(vertex)];
+    }
+
+    // Returns the cost of the shortest path between the source and the vertex with the given id,
+    // or infinity if there is none.
+    public double distanceTo(int vertexId) {
+        return distances[vertexId];
+    }
+
+    // Returns the id of the last edge on the shortest path from the source to the vertex with
+    // the given id, or -1 for the source itself and for unreachable vertices.
+    public int predecessorEdge(int vertexId) {
+        return predecessorEdges[vertexId];
+    }
+
+    // Returns the edges that make up the shortest path from the source to the given vertex.
+    // Returns an empty list if the vertex is the source.
+    // @throws IllegalArgumentException  if the vertex is not a part of the graph
+    // @throws NoPathExistsException  if there does not exist a path from the source to the vertex
+    public IList<E> pathTo(V vertex) {
+        int vertexId = graph.idOf(vertex);
+        if (distances[vertexId] == Double.POSITIVE_INFINITY) {
+            throw new NoPathExistsException();
+        }
+
+        IList<E> path = new DoubleLinkedList<>();
+        while (vertexId != sourceId) {
+            int edgeId = predecessorEdges[vertexId];
+            path.insert(0, graph.edgeAt(edgeId));
+            vertexId = graph.otherEndpoint(edgeId, vertexId);
+        }
+        return path;
+    }
+
+    // Returns the first edge to take from the given vertex to head toward the source along a
+    // shortest path, or null if the vertex is the source or cannot reach it.
+    // @throws IllegalArgumentException  if the vertex is not a part of the graph
+    public E nextStepFrom(V vertex) {
+        int edgeId = predecessorEdges[graph.idOf(vertex)];
+        return edgeId == -1 ? null : graph.edgeAt(edgeId);
+    }
+
+    // Returns a flow field toward the source: for every vertex id, the id of the next vertex to
+    // move to along a shortest path to the source, or -1 for the source itself and for vertices
+    // that cannot reach it.
+    public int[] flowField() {
+        int[] next = new int[distances.length];
+        for (int v = 0; v < next.length; v++) {
+            int edgeId = predecessorEdges[v];
+            next[v] = edgeId == -1 ? -1 : graph.otherEndpoint(edgeId, v);
+        }
+        return next;
+    }
+}
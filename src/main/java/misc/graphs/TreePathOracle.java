@@ -0,0 +1,271 @@
+package misc.graphs;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.IntDisjointSet;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import misc.exceptions.NoPathExistsException;
+
+/**
+ * Answers path queries over a tree (or a forest), such as the minimum spanning tree returned by
+ * Graph.findMinimumSpanningTree or the passages carved by KruskalMazeCarver.
+ *
+ * In a tree there is exactly one path between two vertices, and it always passes through their
+ * lowest common ancestor (LCA). The constructor roots every tree, records the depth and the
+ * weighted distance of every vertex from its root, and builds a sparse table over the depth-first
+ * visiting order. Afterwards:
+ *
+ *  - the length of the path between two vertices is found in O(1);
+ *  - the edges of that path are found in time proportional to the number of edges in it.
+ *
+ * The oracle takes O(n log n) memory, where n is the number of vertices touched by the edges.
+ */
+public class TreePathOracle<V, E extends Edge<V>> {
+    private IDictionary<V, Integer> vertexIds;
+    private E[] edges;
+
+    // The parent of every vertex, and the id of the edge leading to it; -1 for roots.
+    private int[] parent;
+    private int[] parentEdge;
+    private int[] depth;
+    private double[] distanceFromRoot;
+    private int[] treeId;
+
+    // visitOrder[v] is the position of vertex v in the depth-first visiting order, and
+    // sparseTable[k][i] holds, among the parents of the vertices at positions i through
+    // i + 2^k - 1, the one with the smallest depth.
+    private int[] visitOrder;
+    private int[][] sparseTable;
+
+    // Constructs an oracle over the given tree edges.
+    // @throws IllegalArgumentException  if the edges contain a cycle (including self-loops)
+    // @throws IllegalArgumentException  if any of the edges have a negative weight
+    public TreePathOracle(ISet<E> treeEdges) {
+        this.vertexIds = new ChainedHashDictionary<>(Math.max(2 * treeEdges.size(), 1));
+        this.edges = makeArrayOfE(treeEdges.size());
+
+        int numEdges = 0;
+        int[] edgeSources = new int[treeEdges.size()];
+        int[] edgeTargets = new int[treeEdges.size()];
+        for (E edge : treeEdges) {
+            if (!(edge.getWeight() >= 0)) {
+                throw new IllegalArgumentException();
+            }
+            edges[numEdges] = edge;
+            edgeSources[numEdges] = idFor(edge.getVertex1());
+            edgeTargets[numEdges] = idFor(edge.getVertex2());
+            numEdges++;
+        }
+
+        int numVertices = vertexIds.size();
+        IntDisjointSet cycleCheck = new IntDisjointSet(numVertices);
+        int[] offsets = new int[numVertices + 1];
+        for (int i = 0; i < numEdges; i++) {
+            if (!cycleCheck.union(edgeSources[i], edgeTargets[i])) {
+                throw new IllegalArgumentException("The given edges do not form a tree");
+            }
+            offsets[edgeSources[i] + 1]++;
+            offsets[edgeTargets[i] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] adjacentEdges = new int[2 * numEdges];
+        int[] next = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            next[v] = offsets[v];
+        }
+        for (int i = 0; i < numEdges; i++) {
+            adjacentEdges[next[edgeSources[i]]++] = i;
+            adjacentEdges[next[edgeTargets[i]]++] = i;
+        }
+
+        rootTrees(offsets, adjacentEdges, edgeSources, edgeTargets);
+        buildSparseTable();
+    }
+
+    // Assigns the vertex an id if it does not have one yet, and returns its id.
+    private int idFor(V vertex) {
+        Integer id = vertexIds.getOrDefault(vertex, null);
+        if (id == null) {
+            id = vertexIds.size();
+            vertexIds.put(vertex, id);
+        }
+        return id;
+    }
+
+    // Roots every tree at its lowest-numbered vertex using an explicit stack, filling in the
+    // parent, depth, distance and visiting order of every vertex.
+    private void rootTrees(int[] offsets, int[] adjacentEdges, int[] edgeSources, int[] edgeTargets) {
+        int numVertices = vertexIds.size();
+        parent = new int[numVertices];
+        parentEdge = new int[numVertices];
+        depth = new int[numVertices];
+        distanceFromRoot = new double[numVertices];
+        treeId = new int[numVertices];
+        visitOrder = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            treeId[v] = -1;
+        }
+
+        int[] stack = new int[numVertices];
+        int visited = 0;
+        for (int root = 0; root < numVertices; root++) {
+            if (treeId[root] != -1) {
+                continue;
+            }
+
+            parent[root] = -1;
+            parentEdge[root] = -1;
+            treeId[root] = root;
+            int stackSize = 0;
+            stack[stackSize++] = root;
+
+            while (stackSize > 0) {
+                int vertex = stack[--stackSize];
+                visitOrder[vertex] = visited++;
+
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                    int edgeId = adjacentEdges[i];
+                    int child = edgeSources[edgeId] == vertex ? edgeTargets[edgeId] : edgeSources[edgeId];
+                    if (child == parent[vertex]) {
+                        continue;
+                    }
+
+                    parent[child] = vertex;
+                    parentEdge[child] = edgeId;
+                    depth[child] = depth[vertex] + 1;
+                    distanceFromRoot[child] = distanceFromRoot[vertex] + edges[edgeId].getWeight();
+                    treeId[child] = root;
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+    }
+
+    private void buildSparseTable() {
+        int numVertices = vertexIds.size();
+        int levels = 1;
+        while ((1 << levels) <= numVertices) {
+            levels++;
+        }
+
+        sparseTable = new int[levels][];
+        sparseTable[0] = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            sparseTable[0][visitOrder[v]] = parent[v];
+        }
+
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int[] previous = sparseTable[k - 1];
+            int[] current = new int[numVertices - (1 << k) + 1];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = shallower(previous[i], previous[i + half]);
+            }
+            sparseTable[k] = current;
+        }
+    }
+
+    // Returns whichever of the two vertices is closer to its root. Roots have no parent (-1),
+    // but they never appear inside a queried range.
+    private int shallower(int a, int b) {
+        if (a == -1) {
+            return b;
+        } else if (b == -1) {
+            return a;
+        }
+        return depth[a] <= depth[b] ? a : b;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E[] makeArrayOfE(int size) {
+        return (E[]) new Edge[size];
+    }
+
+    // Returns the number of vertices touched by the tree edges.
+    public int numVertices() {
+        return this.vertexIds.size();
+    }
+
+    // Returns 'true' if the two vertices are part of the same tree.
+    // @throws IllegalArgumentException  if either vertex is not touched by the tree edges
+    public boolean isConnected(V a, V b) {
+        return treeId[idOf(a)] == treeId[idOf(b)];
+    }
+
+    // Returns the total weight of the unique path between the two vertices.
+    // @throws IllegalArgumentException  if either vertex is not touched by the tree edges
+    // @throws NoPathExistsException  if the vertices are in different trees
+    public double findPathLength(V a, V b) {
+        int aId = idOf(a);
+        int bId = idOf(b);
+        int ancestor = lowestCommonAncestor(aId, bId);
+        return distanceFromRoot[aId] + distanceFromRoot[bId] - 2 * distanceFromRoot[ancestor];
+    }
+
+    // Returns the number of edges along the unique path between the two vertices.
+    // @throws IllegalArgumentException  if either vertex is not touched by the tree edges
+    // @throws NoPathExistsException  if the vertices are in different trees
+    public int numEdgesBetween(V a, V b) {
+        int aId = idOf(a);
+        int bId = idOf(b);
+        int ancestor = lowestCommonAncestor(aId, bId);
+        return depth[aId] + depth[bId] - 2 * depth[ancestor];
+    }
+
+    // Returns the edges along the unique path from 'a' to 'b', in order.
+    // Returns an empty list if the two vertices are the same.
+    // @throws IllegalArgumentException  if either vertex is not touched by the tree edges
+    // @throws NoPathExistsException  if the vertices are in different trees
+    public IList<E> findPathBetween(V a, V b) {
+        int aId = idOf(a);
+        int bId = idOf(b);
+        int ancestor = lowestCommonAncestor(aId, bId);
+
+        IList<E> path = new DoubleLinkedList<>();
+        for (int v = aId; v != ancestor; v = parent[v]) {
+            path.add(edges[parentEdge[v]]);
+        }
+
+        int[] descent = new int[depth[bId] - depth[ancestor]];
+        int count = 0;
+        for (int v = bId; v != ancestor; v = parent[v]) {
+            descent[count++] = parentEdge[v];
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            path.add(edges[descent[i]]);
+        }
+
+        return path;
+    }
+
+    private int idOf(V vertex) {
+        Integer id = vertex == null ? null : vertexIds.getOrDefault(vertex, null);
+        if (id == null) {
+            throw new IllegalArgumentException();
+        }
+        return id;
+    }
+
+    // Returns the lowest common ancestor of the two vertices.
+    // @throws NoPathExistsException  if the vertices are in different trees
+    private int lowestCommonAncestor(int a, int b) {
+        if (treeId[a] != treeId[b]) {
+            throw new NoPathExistsException();
+        }
+        if (a == b) {
+            return a;
+        }
+
+        // Every vertex visited after 'a' up to and including 'b' lies below the ancestor, and
+        // the shallowest parent among them is the ancestor itself.
+        int from = Math.min(visitOrder[a], visitOrder[b]) + 1;
+        int to = Math.max(visitOrder[a], visitOrder[b]);
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        return shallower(sparseTable[level][from], sparseTable[level][to - (1 << level) + 1]);
+    }
+}
@@ -0,0 +1,115 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.Graph;
+import misc.graphs.PathQuery;
+import misc.graphs.PathQueryResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestBatchQueries extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    private IList<PathQuery<Integer>> randomQueries(int numVertices, int numQueries, long seed) {
+        Random rand = new Random(seed);
+        IList<PathQuery<Integer>> queries = new DoubleLinkedList<>();
+        for (int i = 0; i < numQueries; i++) {
+            queries.add(new PathQuery<>(rand.nextInt(numVertices), rand.nextInt(numVertices)));
+        }
+        return queries;
+    }
+
+    // Checks every result against the same query answered on its own.
+    private void assertMatchesSingleQueries(Graph<Integer, SimpleEdge<Integer>> graph,
+                                            IList<PathQuery<Integer>> queries,
+                                            IList<PathQueryResult<Integer, SimpleEdge<Integer>>> results) {
+        assertEquals(queries.size(), results.size());
+        int index = 0;
+        for (PathQueryResult<Integer, SimpleEdge<Integer>> result : results) {
+            PathQuery<Integer> query = queries.get(index++);
+            assertTrue(result.getQuery() == query);
+            int start = query.getStart();
+            int end = query.getEnd();
+            try {
+                double expected = graphs.pathCost(graph.findShortestPathBetween(start, end), start, end);
+                assertTrue(result.isSuccessful());
+                assertEquals(expected, graphs.pathCost(result.getPath(), start, end), 0.0001);
+            } catch (NoPathExistsException ex) {
+                assertFalse(result.isSuccessful());
+                assertTrue(result.getFailure() instanceof NoPathExistsException);
+            }
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testBatchMatchesSingleQueries() {
+        for (long seed = 0; seed < 3; seed++) {
+            // Sparse enough to leave some vertices unreachable from others.
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(300, 350, seed);
+            IList<PathQuery<Integer>> queries = randomQueries(300, 200, seed);
+            assertMatchesSingleQueries(graph, queries, graph.findShortestPaths(queries));
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testBatchOnOwnExecutor() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(500, 1500, 7);
+        IList<PathQuery<Integer>> queries = randomQueries(500, 300, 7);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertMatchesSingleQueries(graph, queries, graph.findShortestPaths(queries, executor, 4));
+            // More workers than queries, and a single worker on the calling thread.
+            IList<PathQuery<Integer>> few = randomQueries(500, 2, 8);
+            assertMatchesSingleQueries(graph, few, graph.findShortestPaths(few, executor, 16));
+            assertMatchesSingleQueries(graph, few, graph.findShortestPaths(few, executor, 1));
+        } finally {
+            executor.shutdown();
+        }
+
+        // A shut down executor rejects every task, leaving the calling thread to do the work.
+        assertMatchesSingleQueries(graph, queries, graph.findShortestPaths(queries, executor, 4));
+    }
+
+    @Test(timeout=SECOND)
+    public void testFailuresStayWithTheirQuery() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        IList<PathQuery<String>> queries = new DoubleLinkedList<>();
+        queries.add(new PathQuery<>("a", "e"));
+        queries.add(new PathQuery<>("a", "h"));
+        queries.add(new PathQuery<>("a", "nowhere"));
+        queries.add(new PathQuery<>("a", "a"));
+
+        IList<PathQueryResult<String, SimpleEdge<String>>> results = graph.findShortestPaths(queries);
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals(graph.findShortestPathBetween("a", "e").size(), results.get(0).getPath().size());
+        assertTrue(results.get(1).getFailure() instanceof NoPathExistsException);
+        assertTrue(results.get(2).getFailure() instanceof IllegalArgumentException);
+        assertTrue(results.get(3).isSuccessful());
+        assertTrue(results.get(3).getPath().isEmpty());
+        try {
+            results.get(1).getPath();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // All ok -- expected result
+        }
+
+        assertTrue(graph.findShortestPaths(new DoubleLinkedList<>()).isEmpty());
+        try {
+            graph.findShortestPaths(queries, Runnable::run, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.ContractionHierarchy;
+import misc.graphs.Graph;
+import org.junit.Test;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+public class TestContractionHierarchy extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    @Test(timeout=SECOND)
+    public void testSimpleGraph() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildSimpleGraph();
+        ContractionHierarchy<String, SimpleEdge<String>> hierarchy = new ContractionHierarchy<>(graph);
+
+        assertEquals(12, graphs.pathCost(hierarchy.findShortestPathBetween("c", "f"), "c", "f"), 0.0001);
+        assertEquals(7, graphs.pathCost(hierarchy.findShortestPathBetween("f", "a"), "f", "a"), 0.0001);
+        assertEquals(12, hierarchy.findPathLength("c", "f"), 0.0001);
+        assertEquals(0, hierarchy.findShortestPathBetween("a", "a").size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDisconnectedGraph() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        ContractionHierarchy<String, SimpleEdge<String>> hierarchy = new ContractionHierarchy<>(graph);
+
+        assertEquals(graphs.pathCost(graph.findShortestPathBetween("a", "e"), "a", "e"),
+                graphs.pathCost(hierarchy.findShortestPathBetween("a", "e"), "a", "e"), 0.0001);
+        try {
+            hierarchy.findShortestPathBetween("a", "h");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+        try {
+            hierarchy.findPathLength("a", "z");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMatchesDijkstraOnRandomGraphs() {
+        for (long seed = 0; seed < 10; seed++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(400, 900, seed);
+            ContractionHierarchy<Integer, SimpleEdge<Integer>> hierarchy = new ContractionHierarchy<>(graph);
+            assertMatchesDijkstra(graph, hierarchy, 200, seed);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMatchesDijkstraOnGrid() {
+        // Grids with many equal weights are the worst case for witness searches and ties.
+        int side = 60;
+        Random rand = new Random(3);
+        Graph.Builder<Integer, SimpleEdge<Integer>> builder = new Graph.Builder<>();
+        for (int i = 0; i < side * side; i++) {
+            builder.addVertex(i);
+        }
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int id = row * side + col;
+                if (col + 1 < side && rand.nextInt(10) < 8) {
+                    builder.addEdge(graphs.edge(id, id + 1, 1 + rand.nextInt(3)));
+                }
+                if (row + 1 < side && rand.nextInt(10) < 8) {
+                    builder.addEdge(graphs.edge(id, id + side, 1 + rand.nextInt(3)));
+                }
+            }
+        }
+        Graph<Integer, SimpleEdge<Integer>> graph = builder.build();
+        ContractionHierarchy<Integer, SimpleEdge<Integer>> hierarchy = new ContractionHierarchy<>(graph);
+        assertMatchesDijkstra(graph, hierarchy, 300, 3);
+    }
+
+    private void assertMatchesDijkstra(Graph<Integer, SimpleEdge<Integer>> graph,
+                                      ContractionHierarchy<Integer, SimpleEdge<Integer>> hierarchy,
+                                      int numQueries, long seed) {
+        Random rand = new Random(seed);
+        for (int i = 0; i < numQueries; i++) {
+            int start = rand.nextInt(graph.numVertices());
+            int end = rand.nextInt(graph.numVertices());
+
+            double expected;
+            try {
+                expected = graphs.pathCost(graph.findShortestPathBetween(start, end), start, end);
+            } catch (NoPathExistsException ex) {
+                expected = -1;
+            }
+
+            double actual;
+            double length;
+            try {
+                actual = graphs.pathCost(hierarchy.findShortestPathBetween(start, end), start, end);
+                length = hierarchy.findPathLength(start, end);
+            } catch (NoPathExistsException ex) {
+                actual = -1;
+                length = -1;
+            }
+
+            assertEquals(expected, actual, 0.0001);
+            assertEquals(expected, length, 0.0001);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.graphs.Graph;
+import misc.graphs.SearchStats;
+import misc.graphs.SearchStats.Metric;
+import misc.graphs.SearchStats.Operation;
+import misc.graphs.ShortestPathTree;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestDeltaStepping extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    // Checks that both trees agree on every distance, and that the parallel one's paths add up to
+    // its distances.
+    private <V> void assertSameTree(ShortestPathTree<V, SimpleEdge<V>> expected,
+                                    ShortestPathTree<V, SimpleEdge<V>> actual) {
+        V source = expected.getSource();
+        for (int v = 0; v < expected.getCompactGraph().numVertices(); v++) {
+            V vertex = expected.getCompactGraph().vertexAt(v);
+            assertEquals(expected.distanceTo(v), actual.distanceTo(v), 0.0);
+            if (actual.hasPathTo(vertex)) {
+                assertEquals(actual.distanceTo(v), graphs.pathCost(actual.pathTo(vertex), source, vertex), 0.0);
+            } else {
+                assertEquals(-1, actual.predecessorEdge(v));
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMatchesDijkstraOnRandomGraphs() {
+        for (long seed = 0; seed < 5; seed++) {
+            // Sparse enough to leave some vertices unreachable, with plenty of zero-weight edges.
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(2000, 2600 + 1000 * (int) seed, seed);
+            Random rand = new Random(seed);
+            for (int i = 0; i < 3; i++) {
+                int source = rand.nextInt(graph.numVertices());
+                ShortestPathTree<Integer, SimpleEdge<Integer>> expected = graph.findShortestPathsFrom(source);
+                assertSameTree(expected, graph.findShortestPathsFromInParallel(source));
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testAnyDeltaGivesTheSameDistances() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(1000, 4000, 11);
+        ShortestPathTree<Integer, SimpleEdge<Integer>> expected = graph.findShortestPathsFrom(0);
+        for (double delta : new double[] {1e-9, 0.5, 7.0, 99.0, 1e9}) {
+            assertSameTree(expected, graph.findShortestPathsFromInParallel(0, delta));
+        }
+    }
+
+    // Builds a side-by-side grid of rooms where each passage between neighbors is open with the
+    // given probability, and costs between 1 and 10 to walk through.
+    private Graph<Integer, SimpleEdge<Integer>> buildGrid(int side, double openProbability, long seed) {
+        Random rand = new Random(seed);
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int room = row * side + column;
+                vertices.add(room);
+                if (column + 1 < side && rand.nextDouble() < openProbability) {
+                    edges.add(graphs.edge(room, room + 1, 1 + 9 * rand.nextDouble()));
+                }
+                if (row + 1 < side && rand.nextDouble() < openProbability) {
+                    edges.add(graphs.edge(room, room + side, 1 + 9 * rand.nextDouble()));
+                }
+            }
+        }
+        return new Graph<>(vertices, edges);
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMatchesDijkstraOnPoolsOfAnySize() throws InterruptedException, ExecutionException {
+        Graph<Integer, SimpleEdge<Integer>> graph = buildGrid(120, 0.7, 1);
+        ShortestPathTree<Integer, SimpleEdge<Integer>> expected = graph.findShortestPathsFrom(0);
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                assertSameTree(expected, pool.submit(() -> graph.findShortestPathsFromInParallel(0)).get());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testZeroWeightEdges() {
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        for (int i = 0; i < 5; i++) {
+            vertices.add(i);
+        }
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        edges.add(graphs.edge(0, 1, 0));
+        edges.add(graphs.edge(1, 2, 0));
+        edges.add(graphs.edge(2, 0, 0));
+        edges.add(graphs.edge(2, 3, 5));
+        edges.add(graphs.edge(3, 3, 0));
+        Graph<Integer, SimpleEdge<Integer>> graph = new Graph<>(vertices, edges);
+
+        ShortestPathTree<Integer, SimpleEdge<Integer>> tree = graph.findShortestPathsFromInParallel(1);
+        assertSameTree(graph.findShortestPathsFrom(1), tree);
+        assertEquals(5.0, tree.distanceTo(3), 0.0);
+        assertFalse(tree.hasPathTo(4));
+        assertTrue(tree.pathTo(1).isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testReportsAndRejectsBadDeltas() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildSimpleGraph();
+        IList<SearchStats> reports = new DoubleLinkedList<>();
+        graph.setSearchListener(reports::add);
+        graph.findShortestPathsFromInParallel("a");
+        assertEquals(Operation.DELTA_STEPPING, reports.get(0).getOperation());
+        assertTrue(reports.get(0).get(Metric.SETTLED_VERTICES) >= graph.numVertices());
+
+        for (double delta : new double[] {0.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY}) {
+            try {
+                graph.findShortestPathsFromInParallel("a", delta);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException ex) {
+                // All ok -- expected result
+            }
+        }
+        try {
+            graph.findShortestPathsFromInParallel("nowhere");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.DynamicGraph;
+import misc.graphs.Graph;
+import misc.graphs.MstAlgorithm;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class TestDynamicGraph extends BaseTest {
+    protected DynamicGraph<String, SimpleEdge<String>> buildSimpleGraph() {
+        IList<String> vertices = new DoubleLinkedList<>();
+        for (String vertex : new String[] {"a", "b", "c", "d", "e"}) {
+            vertices.add(vertex);
+        }
+
+        IList<SimpleEdge<String>> edges = new DoubleLinkedList<>();
+        edges.add(edge("a", "b", 1));
+        edges.add(edge("b", "c", 2));
+        edges.add(edge("c", "d", 3));
+        edges.add(edge("d", "e", 4));
+        edges.add(edge("a", "e", 5));
+        edges.add(edge("b", "d", 6));
+
+        return new DynamicGraph<>(vertices, edges);
+    }
+
+    protected <T> SimpleEdge<T> edge(T v1, T v2, double weight) {
+        return new SimpleEdge<>(v1, v2, weight);
+    }
+
+    @Test(timeout=SECOND)
+    public void testInsertSwapsHeaviestEdgeOnCycle() {
+        DynamicGraph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+        assertEquals(10.0, graph.minimumSpanningTreeWeight(), 0.0);
+        assertFalse(graph.isInMinimumSpanningTree(edge("a", "e", 5)));
+
+        // Closes the cycle a-b-c-d-e; d-e is its heaviest edge and must leave the tree.
+        graph.addEdge(edge("c", "e", 0.5));
+        assertTrue(graph.isInMinimumSpanningTree(edge("c", "e", 0.5)));
+        assertFalse(graph.isInMinimumSpanningTree(edge("d", "e", 4)));
+        assertEquals(6.5, graph.minimumSpanningTreeWeight(), 0.0);
+
+        // Heavier than everything on its cycle: stays out.
+        graph.addEdge(edge("a", "c", 9));
+        assertFalse(graph.isInMinimumSpanningTree(edge("a", "c", 9)));
+        assertEquals(4, graph.findMinimumSpanningTree().size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDeleteFindsReplacementAcrossCut() {
+        DynamicGraph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+        graph.removeEdge(edge("c", "d", 3));
+
+        // The cheapest edge across the cut {a, b, c} / {d, e} is a-e.
+        assertTrue(graph.isInMinimumSpanningTree(edge("a", "e", 5)));
+        assertEquals(12.0, graph.minimumSpanningTreeWeight(), 0.0);
+
+        // Removing a-e and b-d disconnects the graph into a forest of two trees.
+        graph.removeEdge(edge("a", "e", 5));
+        assertTrue(graph.isInMinimumSpanningTree(edge("b", "d", 6)));
+        graph.removeEdge(edge("b", "d", 6));
+        assertEquals(3, graph.findMinimumSpanningTree().size());
+        assertEquals(7.0, graph.minimumSpanningTreeWeight(), 0.0);
+        assertEquals(3, graph.numEdges());
+    }
+
+    @Test(timeout=SECOND)
+    public void testUpdateWeight() {
+        DynamicGraph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+
+        // A tree edge becoming heavier than an edge outside the tree is replaced by it.
+        graph.updateWeight(edge("c", "d", 3), 10);
+        assertEquals(10.0, graph.weightOf(edge("c", "d", 3)), 0.0);
+        assertFalse(graph.isInMinimumSpanningTree(edge("c", "d", 3)));
+        assertTrue(graph.isInMinimumSpanningTree(edge("a", "e", 5)));
+
+        // An edge outside the tree becoming lighter joins it.
+        graph.updateWeight(edge("c", "d", 3), 0);
+        assertTrue(graph.isInMinimumSpanningTree(edge("c", "d", 3)));
+        assertFalse(graph.isInMinimumSpanningTree(edge("a", "e", 5)));
+        assertEquals(7.0, graph.minimumSpanningTreeWeight(), 0.0);
+    }
+
+    @Test(timeout=SECOND)
+    public void testShortestPathUsesCurrentWeights() {
+        DynamicGraph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+        assertEquals(1, graph.findShortestPathBetween("a", "e").size());
+
+        graph.updateWeight(edge("a", "e", 5), 100);
+        IList<SimpleEdge<String>> path = graph.findShortestPathBetween("a", "e");
+        assertEquals(4, path.size());
+        assertEquals(edge("a", "b", 1), path.get(0));
+        assertEquals(edge("d", "e", 4), path.get(3));
+
+        graph.addVertex("f");
+        try {
+            graph.findShortestPathBetween("a", "f");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testInvalidEditsThrow() {
+        DynamicGraph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+        try {
+            graph.addEdge(edge("a", "b", 1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.addEdge(edge("a", "z", 1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.updateWeight(edge("a", "b", 1), -1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.removeEdge(edge("a", "c", 1));
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testRandomEditsMatchRebuiltGraph() {
+        // Few distinct weights, so ties must be broken exactly like Graph does.
+        int numVertices = 40;
+        Random rand = new Random(7);
+        DynamicGraph<Integer, SimpleEdge<Integer>> graph = new DynamicGraph<>();
+        for (int i = 0; i < numVertices; i++) {
+            graph.addVertex(i);
+        }
+
+        // The edges currently in the graph, in the order they were added, and their weights.
+        IList<SimpleEdge<Integer>> present = new DoubleLinkedList<>();
+        IList<Double> weights = new DoubleLinkedList<>();
+        ISet<String> pairs = new ChainedHashSet<>();
+
+        for (int step = 0; step < 3000; step++) {
+            int choice = rand.nextInt(10);
+            if (choice < 5 || present.size() < 10) {
+                int u = rand.nextInt(numVertices);
+                int v = rand.nextInt(numVertices);
+                SimpleEdge<Integer> added = edge(Math.min(u, v), Math.max(u, v), rand.nextInt(5));
+                if (!pairs.contains(pairOf(added))) {
+                    pairs.add(pairOf(added));
+                    graph.addEdge(added);
+                    present.add(added);
+                    weights.add(added.getWeight());
+                }
+            } else if (choice < 8) {
+                int index = rand.nextInt(present.size());
+                SimpleEdge<Integer> removed = present.delete(index);
+                graph.removeEdge(removed);
+                weights.delete(index);
+                pairs.remove(pairOf(removed));
+            } else {
+                int index = rand.nextInt(present.size());
+                double weight = rand.nextInt(5);
+                graph.updateWeight(present.get(index), weight);
+                weights.set(index, weight);
+            }
+
+            if (step % 10 == 0) {
+                assertMatchesRebuiltGraph(graph, numVertices, present, weights);
+            }
+        }
+    }
+
+    private String pairOf(SimpleEdge<Integer> edge) {
+        return edge.getVertex1() + "-" + edge.getVertex2();
+    }
+
+    // Rebuilds the graph from scratch and checks that the maintained tree is the same.
+    private void assertMatchesRebuiltGraph(DynamicGraph<Integer, SimpleEdge<Integer>> graph, int numVertices,
+                                           IList<SimpleEdge<Integer>> present, IList<Double> weights) {
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        for (int i = 0; i < numVertices; i++) {
+            vertices.add(i);
+        }
+        IList<SimpleEdge<Integer>> reweighted = new DoubleLinkedList<>();
+        for (int i = 0; i < present.size(); i++) {
+            SimpleEdge<Integer> original = present.get(i);
+            reweighted.add(edge(original.getVertex1(), original.getVertex2(), weights.get(i)));
+        }
+
+        ISet<SimpleEdge<Integer>> expected = new Graph<>(vertices, reweighted)
+                .findMinimumSpanningTree(MstAlgorithm.KRUSKAL);
+        ISet<String> expectedPairs = new ChainedHashSet<>();
+        double expectedWeight = 0.0;
+        for (SimpleEdge<Integer> treeEdge : expected) {
+            expectedPairs.add(pairOf(treeEdge));
+            expectedWeight += treeEdge.getWeight();
+        }
+
+        ISet<SimpleEdge<Integer>> actual = graph.findMinimumSpanningTree();
+        assertEquals(expected.size(), actual.size());
+        for (SimpleEdge<Integer> treeEdge : actual) {
+            assertTrue(expectedPairs.contains(pairOf(treeEdge)));
+        }
+        assertEquals(expectedWeight, graph.minimumSpanningTreeWeight(), 0.0001);
+    }
+}
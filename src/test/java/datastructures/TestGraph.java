@@ -1,16 +1,27 @@
 package datastructures;
 
+import datastructures.concrete.ChainedHashSet;
 import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
 import datastructures.interfaces.ISet;
 import misc.BaseTest;
 import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
 import misc.graphs.Edge;
 import misc.graphs.Graph;
+import misc.graphs.Heuristic;
+import misc.graphs.MstAlgorithm;
+import misc.graphs.PathMatch;
+import misc.graphs.ShortestPathTree;
 import org.junit.Test;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Random;
+
 public class TestGraph extends BaseTest {
     public static class SimpleEdge<V> implements Edge<V>, Comparable<SimpleEdge<V>> {
         private V vertex1;
@@ -329,5 +340,608 @@ public class TestGraph extends BaseTest {
             // All ok -- expected result
         }
     }
+
+    @Test(timeout=SECOND)
+    public void testCompactGraphAssignsDenseIds() {
+        Graph<String, SimpleEdge<String>> graph = this.buildComplexGraph();
+        CompactGraph<String, SimpleEdge<String>> compact = graph.getCompactGraph();
+
+        assertEquals(7, compact.numVertices());
+        assertEquals(13, compact.numEdges());
+
+        String[] names = {"a", "b", "c", "d", "e", "f", "g"};
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(i, compact.idOf(names[i]));
+            assertEquals(names[i], compact.vertexAt(i));
+        }
+
+        // 'd' has three neighbors plus a self-loop that is only listed once.
+        assertEquals(4, compact.degree(compact.idOf("d")));
+        // 'g' has one edge each to 'a' and 'd', and three parallel edges to 'e'.
+        assertEquals(5, compact.degree(compact.idOf("g")));
+        assertEquals(edge("a", "b", 1), compact.edgeAt(0));
+
+        try {
+            compact.idOf("z");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testFindingShortestPathVertexWithoutEdges() {
+        IList<String> vertices = new DoubleLinkedList<>();
+        vertices.add("a");
+        vertices.add("b");
+        vertices.add("c");
+
+        IList<SimpleEdge<String>> edges = new DoubleLinkedList<>();
+        edges.add(edge("a", "b", 1));
+        Graph<String, SimpleEdge<String>> graph = new Graph<>(vertices, edges);
+
+        try {
+            graph.findShortestPathBetween("a", "c");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testBuilderMatchesConstructor() {
+        Graph.Builder<String, SimpleEdge<String>> builder = new Graph.Builder<>(7, 13);
+        for (String vertex : new String[] {"a", "b", "c", "d", "e", "f", "g", "a"}) {
+            builder.addVertex(vertex);
+        }
+
+        IList<SimpleEdge<String>> edges = new DoubleLinkedList<>();
+        edges.add(edge("a", "b", 1));
+        edges.add(edge("a", "c", 4));
+        edges.add(edge("b", "c", 2));
+        edges.add(edge("c", "f", 0));
+        edges.add(edge("c", "d", 3));
+        edges.add(edge("e", "f", 1));
+        edges.add(edge("e", "g", 2));
+        builder.addEdges(edges.iterator());
+        Graph<String, SimpleEdge<String>> graph = builder.build();
+
+        assertEquals(7, graph.numVertices());
+        assertEquals(7, graph.numEdges());
+        checkPathMatches(graph, 6, new String[] {"a", "b", "c", "f", "e", "g"});
+        assertEquals(6, graph.findMinimumSpanningTree().size());
+
+        try {
+            builder.addVertex("h");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testBuilderGrowsPastCapacityHints() {
+        Graph.Builder<Integer, SimpleEdge<Integer>> builder = new Graph.Builder<>(1, 1);
+        for (int i = 0; i < 1000; i++) {
+            builder.addVertex(i);
+            if (i > 0) {
+                builder.addEdge(edge(i - 1, i, 1));
+            }
+        }
+        Graph<Integer, SimpleEdge<Integer>> graph = builder.build();
+
+        assertEquals(1000, graph.numVertices());
+        assertEquals(999, graph.numEdges());
+        assertEquals(999, graph.findShortestPathBetween(0, 999).size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testBuilderRejectsBadEdges() {
+        Graph.Builder<String, SimpleEdge<String>> builder = new Graph.Builder<>();
+        builder.addVertex("a");
+        builder.addVertex("b");
+
+        try {
+            builder.addEdge(edge("a", "b", -1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        try {
+            builder.addEdge(edge("a", "c", 1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    /**
+     * Builds a graph over the integers [0, numVertices) with the given number of random edges,
+     * including the occasional self-loop or parallel edge.
+     */
+    public Graph<Integer, SimpleEdge<Integer>> buildRandomGraph(int numVertices, int numEdges, long seed) {
+        Random rand = new Random(seed);
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        for (int i = 0; i < numVertices; i++) {
+            vertices.add(i);
+        }
+
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int i = 0; i < numEdges; i++) {
+            edges.add(edge(rand.nextInt(numVertices), rand.nextInt(numVertices), rand.nextInt(100)));
+        }
+        return new Graph<>(vertices, edges);
+    }
+
+    /**
+     * Returns the total weight of the given path, checking that it walks from 'start' to 'end'.
+     * Returns -1 if there is no path.
+     */
+    public <V> double pathCost(IList<SimpleEdge<V>> path, V start, V end) {
+        double cost = 0.0;
+        V curr = start;
+        for (SimpleEdge<V> edge : path) {
+            curr = edge.getOtherVertex(curr);
+            cost += edge.getWeight();
+        }
+        assertEquals(end, curr);
+        return cost;
+    }
+
+    @Test(timeout=SECOND)
+    public void testBidirectionalMatchesSimpleAndComplex() {
+        Graph<String, SimpleEdge<String>> simple = this.buildSimpleGraph();
+        assertEquals(12, pathCost(simple.findShortestPathBidirectional("c", "f"), "c", "f"), 0.0001);
+        assertEquals(7, pathCost(simple.findShortestPathBidirectional("f", "a"), "f", "a"), 0.0001);
+
+        Graph<String, SimpleEdge<String>> complex = this.buildComplexGraph();
+        assertEquals(6, pathCost(complex.findShortestPathBidirectional("a", "g"), "a", "g"), 0.0001);
+        assertEquals(1, pathCost(complex.findShortestPathBidirectional("b", "a"), "b", "a"), 0.0001);
+        assertEquals(0, complex.findShortestPathBidirectional("d", "d").size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testBidirectionalDisconnectedComponents() {
+        Graph<String, SimpleEdge<String>> graph = this.buildDisconnectedGraph();
+        assertEquals(2, pathCost(graph.findShortestPathBidirectional("i", "k"), "i", "k"), 0.0001);
+
+        try {
+            graph.findShortestPathBidirectional("a", "i");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testBidirectionalMatchesDijkstraOnRandomGraphs() {
+        for (int seed = 0; seed < 5; seed++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = buildRandomGraph(300, 700, seed);
+            Random rand = new Random(seed);
+
+            for (int query = 0; query < 100; query++) {
+                int start = rand.nextInt(300);
+                int end = rand.nextInt(300);
+
+                double expected;
+                try {
+                    expected = pathCost(graph.findShortestPathBetween(start, end), start, end);
+                } catch (NoPathExistsException ex) {
+                    expected = -1;
+                }
+
+                double actual;
+                try {
+                    actual = pathCost(graph.findShortestPathBidirectional(start, end), start, end);
+                } catch (NoPathExistsException ex) {
+                    actual = -1;
+                }
+                assertEquals(expected, actual, 0.0001);
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testAStarWithZeroHeuristicMatchesDijkstra() {
+        Graph<String, SimpleEdge<String>> graph = this.buildComplexGraph();
+        Heuristic<String> zero = (vertex, goal) -> 0.0;
+
+        assertEquals(6, pathCost(graph.findShortestPathBetween("a", "g", zero), "a", "g"), 0.0001);
+        assertEquals(6, pathCost(graph.findShortestPathBetween("d", "g", zero), "d", "g"), 0.0001);
+        assertEquals(0, graph.findShortestPathBetween("a", "a", zero).size());
+
+        try {
+            graph.findShortestPathBetween("a", "g", null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testAStarRecoversFromInconsistentHeuristic() {
+        // Admissible but not consistent: 'd' looks far away even though it is on the best path.
+        Graph<String, SimpleEdge<String>> graph = this.buildSimpleGraph();
+        Heuristic<String> bumpy = (vertex, goal) -> vertex.equals("d") ? 6 : 0;
+
+        assertEquals(7, pathCost(graph.findShortestPathBetween("a", "f", bumpy), "a", "f"), 0.0001);
+        assertEquals(6, pathCost(graph.findShortestPathBetween("d", "e", bumpy), "d", "e"), 0.0001);
+    }
+
+    @Test(timeout=SECOND)
+    public void testShortestPathsFromSource() {
+        Graph<String, SimpleEdge<String>> graph = this.buildDisconnectedGraph();
+        ShortestPathTree<String, SimpleEdge<String>> tree = graph.findShortestPathsFrom("a");
+
+        assertEquals("a", tree.getSource());
+        assertEquals(0, tree.distanceTo("a"), 0.0);
+        assertEquals(6, tree.distanceTo("g"), 0.0001);
+        assertEquals(6, tree.distanceTo("d"), 0.0001);
+        assertEquals(6, pathCost(tree.pathTo("g"), "a", "g"), 0.0001);
+        assertEquals(0, tree.pathTo("a").size());
+
+        assertFalse(tree.hasPathTo("i"));
+        assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo("i"), 0.0);
+        try {
+            tree.pathTo("i");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testFlowFieldLeadsToSource() {
+        Graph<String, SimpleEdge<String>> graph = this.buildDisconnectedGraph();
+        ShortestPathTree<String, SimpleEdge<String>> tree = graph.findShortestPathsFrom("g");
+        CompactGraph<String, SimpleEdge<String>> compact = tree.getCompactGraph();
+        int[] next = tree.flowField();
+
+        assertEquals(-1, next[compact.idOf("g")]);
+        assertEquals(-1, next[compact.idOf("h")]);
+        assertEquals(compact.idOf("e"), next[compact.idOf("f")]);
+        assertEquals(edge("e", "g", 2), tree.nextStepFrom("e"));
+        assertEquals(null, tree.nextStepFrom("g"));
+
+        // Following the field from every reachable vertex must reach the source at the
+        // advertised cost.
+        for (String start : new String[] {"a", "b", "c", "d", "e", "f"}) {
+            int vertex = compact.idOf(start);
+            int steps = 0;
+            while (next[vertex] != -1) {
+                vertex = next[vertex];
+                steps++;
+            }
+            assertEquals(compact.idOf("g"), vertex);
+            assertEquals(tree.pathTo(start).size(), steps);
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testShortestPathsFromMatchesPointQueries() {
+        Graph<Integer, SimpleEdge<Integer>> graph = buildRandomGraph(300, 600, 42);
+        ShortestPathTree<Integer, SimpleEdge<Integer>> tree = graph.findShortestPathsFrom(0);
+
+        for (int target = 0; target < 300; target++) {
+            double expected;
+            try {
+                expected = pathCost(graph.findShortestPathBetween(0, target), 0, target);
+            } catch (NoPathExistsException ex) {
+                expected = Double.POSITIVE_INFINITY;
+            }
+            assertEquals(expected, tree.distanceTo(target), 0.0001);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testConcurrentQueriesUseSeparateSearchState() throws InterruptedException {
+        Graph<Integer, SimpleEdge<Integer>> graph = buildRandomGraph(400, 1200, 7);
+        ShortestPathTree<Integer, SimpleEdge<Integer>> fromZero = graph.findShortestPathsFrom(0);
+        boolean[] failed = new boolean[1];
+
+        Runnable worker = () -> {
+            for (int round = 0; round < 20; round++) {
+                for (int target = 1; target < 400; target += 7) {
+                    double expected = fromZero.distanceTo(target);
+                    double actual;
+                    try {
+                        actual = pathCost(graph.findShortestPathBidirectional(0, target), 0, target);
+                    } catch (NoPathExistsException ex) {
+                        actual = Double.POSITIVE_INFINITY;
+                    }
+                    if (Math.abs(expected - actual) > 0.0001 && expected != actual) {
+                        failed[0] = true;
+                    }
+                }
+            }
+        };
+
+        Thread first = new Thread(worker);
+        Thread second = new Thread(worker);
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+        assertFalse(failed[0]);
+    }
+
+    @Test(timeout=SECOND)
+    public void testEveryMstAlgorithmMatchesKruskal() {
+        for (MstAlgorithm algorithm : MstAlgorithm.values()) {
+            Graph<String, SimpleEdge<String>> simple = this.buildSimpleGraph();
+            ISet<SimpleEdge<String>> mst = simple.findMinimumSpanningTree(algorithm);
+            assertEquals(5, mst.size());
+            assertTrue(mst.contains(edge("a", "d", 1)));
+            assertTrue(mst.contains(edge("a", "b", 2)));
+            assertTrue(mst.contains(edge("b", "e", 3)));
+            assertTrue(mst.contains(edge("a", "c", 5)));
+            assertTrue(mst.contains(edge("d", "f", 6)));
+
+            // Spanning forest of a graph with two components, self-loops and parallel edges.
+            Graph<String, SimpleEdge<String>> disconnected = this.buildDisconnectedGraph();
+            assertSameEdges(
+                    disconnected.findMinimumSpanningTree(MstAlgorithm.KRUSKAL),
+                    disconnected.findMinimumSpanningTree(algorithm));
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testEveryMstAlgorithmMatchesKruskalWithTies() {
+        // Few distinct weights means many ties; every algorithm must break them identically.
+        // The larger graphs are big enough for Filter-Kruskal to partition and to run in
+        // parallel, and the dense one is dense enough for AUTOMATIC to pick Prim.
+        int[][] sizes = {{50, 150}, {5000, 15000}, {5000, 60000}, {60000, 180000}, {300, 90000}};
+        for (int[] size : sizes) {
+            Random rand = new Random(size[1]);
+            IList<Integer> vertices = new DoubleLinkedList<>();
+            for (int i = 0; i < size[0]; i++) {
+                vertices.add(i);
+            }
+            IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+            for (int i = 0; i < size[1]; i++) {
+                edges.add(edge(rand.nextInt(size[0]), rand.nextInt(size[0]), rand.nextInt(4)));
+            }
+            Graph<Integer, SimpleEdge<Integer>> graph = new Graph<>(vertices, edges);
+
+            ISet<SimpleEdge<Integer>> expected = graph.findMinimumSpanningTree(MstAlgorithm.KRUSKAL);
+            for (MstAlgorithm algorithm : MstAlgorithm.values()) {
+                assertSameEdges(expected, graph.findMinimumSpanningTree(algorithm));
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testConnectedComponents() {
+        Graph<String, SimpleEdge<String>> graph = this.buildDisconnectedGraph();
+        IList<ISet<String>> components = graph.connectedComponents();
+        assertEquals(2, components.size());
+        assertEquals(7, components.get(0).size());
+        assertEquals(4, components.get(1).size());
+        assertTrue(components.get(0).contains("g"));
+        assertTrue(components.get(1).contains("k"));
+
+        assertTrue(graph.isReachable("a", "g"));
+        assertTrue(graph.isReachable("k", "h"));
+        assertTrue(graph.isReachable("d", "d"));
+        assertFalse(graph.isReachable("a", "h"));
+
+        try {
+            graph.isReachable("a", "z");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=2 * SECOND)
+    public void testQueriesAcrossComponentsFailFast() {
+        // Two large components: every query between them would otherwise exhaust one of them.
+        int size = 20000;
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int i = 0; i < 2 * size; i++) {
+            vertices.add(i);
+            if (i % size != 0) {
+                edges.add(edge(i - 1, i, 1));
+            }
+        }
+        Graph<Integer, SimpleEdge<Integer>> graph = new Graph<>(vertices, edges);
+        assertEquals(2, graph.connectedComponents().size());
+
+        for (int i = 0; i < 10000; i++) {
+            try {
+                graph.findShortestPathBetween(i, size + i);
+                fail("Expected NoPathExistsException");
+            } catch (NoPathExistsException ex) {
+                // All ok -- expected result
+            }
+        }
+        assertEquals(size - 1, graph.findShortestPathBetween(0, size - 1).size());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testMultiSourceMatchesPairwiseSearches() {
+        Random rand = new Random(4);
+        for (long seed = 0; seed < 10; seed++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = buildRandomGraph(300, 400, seed);
+            ISet<Integer> sources = new ChainedHashSet<>();
+            ISet<Integer> targets = new ChainedHashSet<>();
+            for (int i = 0; i < 5; i++) {
+                sources.add(rand.nextInt(graph.numVertices()));
+            }
+            for (int i = 0; i < 8; i++) {
+                targets.add(rand.nextInt(graph.numVertices()));
+            }
+
+            // The cheapest way to reach every target from any source, one search per pair.
+            IDictionary<Integer, Double> nearest = new ChainedHashDictionary<>();
+            double best = Double.POSITIVE_INFINITY;
+            for (int target : targets) {
+                for (int source : sources) {
+                    try {
+                        double cost = pathCost(graph.findShortestPathBetween(source, target), source, target);
+                        if (cost < nearest.getOrDefault(target, Double.POSITIVE_INFINITY)) {
+                            nearest.put(target, cost);
+                        }
+                        best = Math.min(best, cost);
+                    } catch (NoPathExistsException ex) {
+                        // Not every pair is connected.
+                    }
+                }
+            }
+
+            try {
+                PathMatch<Integer, SimpleEdge<Integer>> match = graph.findShortestPathBetweenAny(sources, targets);
+                assertTrue(sources.contains(match.getSource()));
+                assertTrue(targets.contains(match.getTarget()));
+                assertEquals(best, match.getCost(), 0.0001);
+                assertEquals(best, pathCost(match.getPath(), match.getSource(), match.getTarget()), 0.0001);
+            } catch (NoPathExistsException ex) {
+                assertEquals(Double.POSITIVE_INFINITY, best, 0.0);
+            }
+
+            IList<PathMatch<Integer, SimpleEdge<Integer>>> matches = graph.findShortestPathsToEach(sources, targets);
+            assertEquals(nearest.size(), matches.size());
+            double previous = 0.0;
+            for (PathMatch<Integer, SimpleEdge<Integer>> match : matches) {
+                assertTrue(sources.contains(match.getSource()));
+                assertEquals(nearest.get(match.getTarget()), match.getCost(), 0.0001);
+                assertEquals(match.getCost(), pathCost(match.getPath(), match.getSource(), match.getTarget()), 0.0001);
+                assertTrue(match.getCost() >= previous);
+                previous = match.getCost();
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testMultiSourceEdgeCases() {
+        Graph<String, SimpleEdge<String>> graph = this.buildDisconnectedGraph();
+        ISet<String> sources = new ChainedHashSet<>();
+        ISet<String> targets = new ChainedHashSet<>();
+        try {
+            graph.findShortestPathBetweenAny(sources, targets);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        sources.add("a");
+        targets.add("h");
+        try {
+            graph.findShortestPathBetweenAny(sources, targets);
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+        assertEquals(0, graph.findShortestPathsToEach(sources, targets).size());
+
+        // A source that is also a target matches itself at no cost.
+        targets.add("a");
+        PathMatch<String, SimpleEdge<String>> match = graph.findShortestPathBetweenAny(sources, targets);
+        assertEquals("a", match.getTarget());
+        assertEquals(0.0, match.getCost(), 0.0);
+        assertEquals(0, match.getPath().size());
+
+        targets.add("z");
+        try {
+            graph.findShortestPathsToEach(sources, targets);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    /**
+     * Checks that the two sets contain the exact same edge objects.
+     */
+    public <T> void assertSameEdges(ISet<T> expected, ISet<T> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (T item : expected) {
+            assertTrue(actual.contains(item));
+        }
+    }
     
+
+    // A weight that depends only on the endpoints of an edge, so it can be recomputed from any
+    // edge a search hands back.
+    private double scrambledWeight(SimpleEdge<Integer> edge) {
+        return (edge.getVertex1() * 31 + edge.getVertex2() * 17) % 50;
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testWeightOverlayMatchesRebuiltGraph() {
+        Graph<Integer, SimpleEdge<Integer>> base = buildRandomGraph(200, 800, 3);
+        CompactGraph<Integer, SimpleEdge<Integer>> compact = base.getCompactGraph();
+
+        // The same weights, once laid over the base graph and once baked into new edges.
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int v = 0; v < compact.numVertices(); v++) {
+            vertices.add(compact.vertexAt(v));
+        }
+        for (int e = 0; e < compact.numEdges(); e++) {
+            SimpleEdge<Integer> edge = compact.edgeAt(e);
+            edges.add(edge(edge.getVertex1(), edge.getVertex2(), scrambledWeight(edge)));
+        }
+        Graph<Integer, SimpleEdge<Integer>> overlaid = base.withWeights(this::scrambledWeight);
+        Graph<Integer, SimpleEdge<Integer>> rebuilt = new Graph<>(vertices, edges);
+
+        double overlaidTree = 0.0;
+        for (SimpleEdge<Integer> edge : overlaid.findMinimumSpanningTree()) {
+            overlaidTree += scrambledWeight(edge);
+        }
+        double rebuiltTree = 0.0;
+        for (SimpleEdge<Integer> edge : rebuilt.findMinimumSpanningTree()) {
+            rebuiltTree += edge.getWeight();
+        }
+        assertEquals(rebuiltTree, overlaidTree, 0.0001);
+
+        Random rand = new Random(3);
+        for (int i = 0; i < 50; i++) {
+            int start = rand.nextInt(base.numVertices());
+            int end = rand.nextInt(base.numVertices());
+            if (!base.isReachable(start, end)) {
+                continue;
+            }
+            double overlaidCost = 0.0;
+            for (SimpleEdge<Integer> edge : overlaid.findShortestPathBetween(start, end)) {
+                overlaidCost += scrambledWeight(edge);
+            }
+            double expected = pathCost(rebuilt.findShortestPathBetween(start, end), start, end);
+            assertEquals(expected, overlaidCost, 0.0001);
+        }
+
+        // The base graph still weighs its edges the way they say.
+        for (int e = 0; e < compact.numEdges(); e++) {
+            assertEquals(compact.edgeAt(e).getWeight(), compact.weightOf(e), 0.0);
+            assertEquals(scrambledWeight(compact.edgeAt(e)), overlaid.getCompactGraph().weightOf(e), 0.0);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testWeightOverlayRejectsBadWeights() {
+        Graph<String, SimpleEdge<String>> graph = buildSimpleGraph();
+        double[] weights = new double[graph.numEdges()];
+        graph.withWeights(weights);
+        weights[0] = -1.0;
+        try {
+            graph.withWeights(weights);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.withWeights(new double[graph.numEdges() + 1]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.withWeights(edge -> Double.NaN);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.Graph;
+import misc.graphs.Heuristic;
+import misc.graphs.IncrementalPathPlanner;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class TestIncrementalPathPlanner extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    // Checks the planner's path from the start against Dijkstra on a freshly built graph.
+    private void assertMatchesDijkstra(IncrementalPathPlanner<Integer, SimpleEdge<Integer>> planner,
+                                       IList<Integer> vertices, IList<SimpleEdge<Integer>> edges, int start) {
+        int goal = planner.getGoal();
+        double expected;
+        try {
+            expected = graphs.pathCost(new Graph<>(vertices, edges).findShortestPathBetween(start, goal), start, goal);
+        } catch (NoPathExistsException ex) {
+            expected = -1;
+        }
+
+        double actual;
+        try {
+            actual = graphs.pathCost(planner.findShortestPathFrom(start), start, goal);
+        } catch (NoPathExistsException ex) {
+            actual = -1;
+        }
+        assertEquals(expected, actual, 0.0001);
+    }
+
+    private IList<Integer> range(int size) {
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        for (int i = 0; i < size; i++) {
+            vertices.add(i);
+        }
+        return vertices;
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testRandomEditsMatchDijkstra() {
+        Random rand = new Random(21);
+        IList<Integer> vertices = range(300);
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int i = 0; i < 700; i++) {
+            SimpleEdge<Integer> edge = graphs.edge(rand.nextInt(300), rand.nextInt(300), 1 + rand.nextInt(100));
+            if (!edges.contains(edge)) {
+                edges.add(edge);
+            }
+        }
+
+        IncrementalPathPlanner<Integer, SimpleEdge<Integer>> planner = new IncrementalPathPlanner<>(vertices, edges, 0);
+        int start = 1;
+        for (int round = 0; round < 150; round++) {
+            int numEdits = 1 + rand.nextInt(4);
+            for (int i = 0; i < numEdits; i++) {
+                if (rand.nextBoolean() && !edges.isEmpty()) {
+                    SimpleEdge<Integer> edge = edges.delete(rand.nextInt(edges.size()));
+                    planner.removeEdge(edge);
+                    assertTrue(!planner.containsEdge(edge));
+                } else {
+                    // Light edges, so that many paths tie.
+                    SimpleEdge<Integer> edge = graphs.edge(rand.nextInt(300), rand.nextInt(300), 1 + rand.nextInt(10));
+                    if (!edges.contains(edge)) {
+                        edges.add(edge);
+                        planner.addEdge(edge);
+                    }
+                }
+            }
+            if (rand.nextInt(3) == 0) {
+                start = rand.nextInt(300);
+            }
+            assertMatchesDijkstra(planner, vertices, edges, start);
+        }
+        assertEquals(edges.size(), planner.numEdges());
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testMovingStartWithHeuristic() {
+        // A grid with unit weights, where the Manhattan distance is a consistent heuristic.
+        int size = 30;
+        IList<Integer> vertices = range(size * size);
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (cell % size + 1 < size) {
+                edges.add(graphs.edge(cell, cell + 1, 1));
+            }
+            if (cell + size < size * size) {
+                edges.add(graphs.edge(cell, cell + size, 1));
+            }
+        }
+        Heuristic<Integer> manhattan = (vertex, goal) ->
+                Math.abs(vertex % size - goal % size) + Math.abs(vertex / size - goal / size);
+        IncrementalPathPlanner<Integer, SimpleEdge<Integer>> planner =
+                new IncrementalPathPlanner<>(vertices, edges, size * size - 1, manhattan);
+
+        // Walks the path one step at a time while walls close in around it.
+        Random rand = new Random(23);
+        int position = 0;
+        while (position != planner.getGoal()) {
+            assertMatchesDijkstra(planner, vertices, edges, position);
+            IList<SimpleEdge<Integer>> path;
+            try {
+                path = planner.findShortestPathFrom(position);
+            } catch (NoPathExistsException ex) {
+                break;
+            }
+            position = path.get(0).getOtherVertex(position);
+
+            for (int i = 0; i < 3; i++) {
+                planner.removeEdge(edges.delete(rand.nextInt(edges.size())));
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testSmallEditsRepairLittle() {
+        int size = 60;
+        IList<Integer> vertices = range(size * size);
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (cell % size + 1 < size) {
+                edges.add(graphs.edge(cell, cell + 1, 1 + cell % 7));
+            }
+            if (cell + size < size * size) {
+                edges.add(graphs.edge(cell, cell + size, 1 + cell % 5));
+            }
+        }
+        IncrementalPathPlanner<Integer, SimpleEdge<Integer>> planner =
+                new IncrementalPathPlanner<>(vertices, edges, size * size - 1);
+        planner.findShortestPathFrom(0);
+        long initial = planner.expansionCount();
+
+        // An edge in the far corner, away from every shortest path to the goal, barely matters.
+        SimpleEdge<Integer> corner = graphs.edge(size * (size - 1), size * (size - 1) + 1, 1 + size * (size - 1) % 7);
+        planner.removeEdge(corner);
+        edges.delete(edges.indexOf(corner));
+        assertMatchesDijkstra(planner, vertices, edges, 0);
+        long repaired = planner.expansionCount() - initial;
+        assertTrue(repaired < initial / 20);
+    }
+
+    @Test(timeout=SECOND)
+    public void testEdgeCases() {
+        IList<Integer> vertices = range(4);
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        edges.add(graphs.edge(0, 1, 2));
+        edges.add(graphs.edge(1, 2, 3));
+        IncrementalPathPlanner<Integer, SimpleEdge<Integer>> planner = new IncrementalPathPlanner<>(vertices, edges, 2);
+
+        assertTrue(planner.findShortestPathFrom(2).isEmpty());
+        assertEquals(2, planner.findShortestPathFrom(0).size());
+        try {
+            planner.findShortestPathFrom(3);
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+
+        planner.updateWeight(graphs.edge(0, 1, 2), 10);
+        assertEquals(10.0, planner.weightOf(graphs.edge(0, 1, 2)), 0.0);
+        planner.addEdge(graphs.edge(0, 3, 1));
+        planner.addEdge(graphs.edge(3, 2, 1));
+        assertEquals(2, graphs.pathCost(planner.findShortestPathFrom(0), 0, 2), 0.0);
+        planner.removeEdge(graphs.edge(3, 2, 1));
+        assertEquals(2, planner.findShortestPathFrom(0).size());
+        assertEquals(graphs.edge(0, 1, 2), planner.findShortestPathFrom(0).get(0));
+
+        try {
+            planner.addEdge(graphs.edge(0, 3, 1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            planner.addEdge(graphs.edge(1, 3, 0));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            planner.addEdge(graphs.edge(0, 9, 1));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            planner.removeEdge(graphs.edge(3, 2, 1));
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new IncrementalPathPlanner<>(vertices, edges, 7);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+}
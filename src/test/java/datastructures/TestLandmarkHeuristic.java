@@ -0,0 +1,136 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+import misc.graphs.LandmarkHeuristic;
+import misc.graphs.ShortestPathTree;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+public class TestLandmarkHeuristic extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    @Test(timeout=10 * SECOND)
+    public void testEstimatesAreLowerBounds() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(2000, 5000, 31);
+        CompactGraph<Integer, SimpleEdge<Integer>> compact = graph.getCompactGraph();
+        LandmarkHeuristic<Integer, SimpleEdge<Integer>> landmarks = new LandmarkHeuristic<>(graph, 8);
+
+        Random rand = new Random(31);
+        for (int trial = 0; trial < 5; trial++) {
+            int goal = rand.nextInt(graph.numVertices());
+            ShortestPathTree<Integer, SimpleEdge<Integer>> tree = graph.findShortestPathsFrom(goal);
+            for (int v = 0; v < compact.numVertices(); v++) {
+                double estimate = landmarks.estimate(v, compact.idOf(goal));
+                assertTrue(estimate >= 0.0);
+                assertTrue(estimate <= tree.distanceTo(v));
+            }
+        }
+
+        // A landmark's distance to any vertex is known exactly.
+        Integer landmark = landmarks.getLandmark(0);
+        ShortestPathTree<Integer, SimpleEdge<Integer>> tree = graph.findShortestPathsFrom(landmark);
+        for (int v = 0; v < compact.numVertices(); v++) {
+            if (tree.hasPathTo(compact.vertexAt(v))) {
+                assertEquals(tree.distanceTo(v), landmarks.estimate(compact.idOf(landmark), v), 0.001);
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testAStarWithLandmarksMatchesDijkstra() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(3000, 6000, 37);
+        LandmarkHeuristic<Integer, SimpleEdge<Integer>> landmarks = new LandmarkHeuristic<>(graph, 4);
+
+        Random rand = new Random(37);
+        for (int trial = 0; trial < 100; trial++) {
+            int start = rand.nextInt(graph.numVertices());
+            int end = rand.nextInt(graph.numVertices());
+
+            double expected;
+            try {
+                expected = graphs.pathCost(graph.findShortestPathBetween(start, end), start, end);
+            } catch (NoPathExistsException ex) {
+                expected = -1;
+            }
+
+            double actual;
+            try {
+                actual = graphs.pathCost(graph.findShortestPathBetween(start, end, landmarks), start, end);
+            } catch (NoPathExistsException ex) {
+                actual = -1;
+            }
+            assertEquals(expected, actual, 0.0001);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testFarthestPointSelection() {
+        // 'd' and 'g' are the farthest from 'a', and tie at 6. The other component comes next,
+        // where 'i' is the farthest from 'h'. Then 'a' and 'g' are the farthest from 'd', and
+        // farther than anything is from 'i'.
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        LandmarkHeuristic<String, SimpleEdge<String>> landmarks = new LandmarkHeuristic<>(graph, 3);
+        assertEquals(3, landmarks.numLandmarks());
+        assertEquals("d", landmarks.getLandmark(0));
+        assertEquals("i", landmarks.getLandmark(1));
+        assertEquals("a", landmarks.getLandmark(2));
+        assertEquals(5, landmarks.estimate("b", "g"), 0.001);
+        assertEquals(0, landmarks.estimate("b", "h"), 0.0);
+
+        try {
+            new LandmarkHeuristic<>(graph, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new LandmarkHeuristic<>(graph, graph.numVertices() + 1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            landmarks.getLandmark(3);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException ex) {
+            // All ok -- expected result
+        }
+        try {
+            landmarks.estimate("a", "nowhere");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testIsolatedVertexIsNeverALandmark() {
+        // Vertex 0 has no edges; the others form a path 1 - 2 - 3 - 4 - 5.
+        IList<Integer> vertices = new DoubleLinkedList<>();
+        IList<SimpleEdge<Integer>> edges = new DoubleLinkedList<>();
+        for (int i = 0; i <= 5; i++) {
+            vertices.add(i);
+            if (i >= 2) {
+                edges.add(graphs.edge(i - 1, i, 1));
+            }
+        }
+        Graph<Integer, SimpleEdge<Integer>> graph = new Graph<>(vertices, edges);
+
+        LandmarkHeuristic<Integer, SimpleEdge<Integer>> landmarks = new LandmarkHeuristic<>(graph, 3);
+        assertEquals(5, (int) landmarks.getLandmark(0));
+        assertEquals(1, (int) landmarks.getLandmark(1));
+        assertEquals(3, (int) landmarks.getLandmark(2));
+        assertEquals(4, landmarks.estimate(1, 5), 0.001);
+        assertEquals(2, landmarks.estimate(2, 4), 0.001);
+    }
+}
@@ -0,0 +1,157 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+import misc.graphs.MappedGraph;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class TestMappedGraph extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    // Some platforms refuse to delete a file while it is mapped, so temporary snapshots are only
+    // removed once the tests are done.
+    private Path temporaryFile() throws IOException {
+        Path file = Files.createTempFile("graph", ".snapshot");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    // Writes the graph to a temporary file and maps it back in.
+    private <V> MappedGraph roundTrip(Graph<V, SimpleEdge<V>> graph) throws IOException {
+        Path file = temporaryFile();
+        MappedGraph.write(graph, file);
+        return MappedGraph.open(file);
+    }
+
+    @Test(timeout=SECOND)
+    public void testRoundTripKeepsIdsAndWeights() throws IOException {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildSimpleGraph();
+        CompactGraph<String, SimpleEdge<String>> compact = graph.getCompactGraph();
+        MappedGraph mapped = roundTrip(graph);
+
+        assertEquals(graph.numVertices(), mapped.numVertices());
+        assertEquals(graph.numEdges(), mapped.numEdges());
+        assertFalse(mapped.hasGeometry());
+        for (int v = 0; v < compact.numVertices(); v++) {
+            assertEquals(compact.degree(v), mapped.degree(v));
+            assertEquals(compact.componentOf(v), mapped.componentOf(v));
+        }
+        for (int e = 0; e < compact.numEdges(); e++) {
+            SimpleEdge<String> edge = compact.edgeAt(e);
+            assertEquals(compact.idOf(edge.getVertex1()), mapped.edgeSource(e));
+            assertEquals(compact.idOf(edge.getVertex2()), mapped.edgeTarget(e));
+            assertEquals(edge.getWeight(), mapped.edgeWeight(e), 0.0);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testShortestPathsOnDisconnectedGraph() throws IOException {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        CompactGraph<String, SimpleEdge<String>> compact = graph.getCompactGraph();
+        MappedGraph mapped = roundTrip(graph);
+
+        int a = compact.idOf("a");
+        int e = compact.idOf("e");
+        int h = compact.idOf("h");
+        int[] path = mapped.findShortestPathBetween(a, e);
+        assertEquals(graph.findShortestPathBetween("a", "e").size(), path.length);
+        assertEquals(0, mapped.findShortestPathBetween(a, a).length);
+        try {
+            mapped.findShortestPathBetween(a, h);
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+        try {
+            mapped.findPathLength(a, mapped.numVertices());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            mapped.locationOf(a);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testMatchesGraphOnRandomGraphs() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(300, 600, seed);
+            MappedGraph mapped = roundTrip(graph);
+            CompactGraph<Integer, SimpleEdge<Integer>> compact = graph.getCompactGraph();
+
+            Random rand = new Random(seed);
+            for (int i = 0; i < 100; i++) {
+                int start = rand.nextInt(graph.numVertices());
+                int end = rand.nextInt(graph.numVertices());
+
+                double expected;
+                try {
+                    expected = graphs.pathCost(graph.findShortestPathBetween(start, end), start, end);
+                } catch (NoPathExistsException ex) {
+                    expected = -1;
+                }
+
+                double actual;
+                double length;
+                try {
+                    int[] path = mapped.findShortestPathBetween(compact.idOf(start), compact.idOf(end));
+                    actual = 0.0;
+                    for (int edge : path) {
+                        actual += mapped.edgeWeight(edge);
+                    }
+                    length = mapped.findPathLength(compact.idOf(start), compact.idOf(end));
+                } catch (NoPathExistsException ex) {
+                    actual = -1;
+                    length = -1;
+                }
+
+                assertEquals(expected, actual, 0.0001);
+                assertEquals(expected, length, 0.0001);
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRejectsForeignAndNewerFiles() throws IOException {
+        Path foreign = temporaryFile();
+        Files.write(foreign, "not a graph at all".getBytes());
+        assertOpenFails(foreign);
+
+        // A valid snapshot with its version number bumped.
+        Path newer = temporaryFile();
+        MappedGraph.write(graphs.buildSimpleGraph(), newer);
+        try (FileChannel channel = FileChannel.open(newer, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(4);
+            version.putInt(0, Integer.reverseBytes(99));
+            channel.write(version, 4);
+        }
+        assertOpenFails(newer);
+    }
+
+    private void assertOpenFails(Path file) {
+        try {
+            MappedGraph.open(file);
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // All ok -- expected result
+        }
+    }
+}
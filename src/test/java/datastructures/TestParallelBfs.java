@@ -0,0 +1,97 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+import misc.graphs.SearchStats;
+import misc.graphs.SearchStats.Operation;
+import misc.graphs.ShortestPathTree;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+public class TestParallelBfs extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    // Checks the hop distances from the source against Dijkstra on the same graph with every
+    // edge weighing 1.
+    private void assertMatchesUnitDijkstra(Graph<Integer, SimpleEdge<Integer>> graph, int source) {
+        CompactGraph<Integer, SimpleEdge<Integer>> compact = graph.getCompactGraph();
+        ShortestPathTree<Integer, SimpleEdge<Integer>> expected =
+                graph.withWeights(edge -> 1.0).findShortestPathsFrom(source);
+        int[] hops = graph.findHopDistancesFrom(source);
+        for (int v = 0; v < compact.numVertices(); v++) {
+            if (expected.hasPathTo(compact.vertexAt(v))) {
+                assertEquals((int) expected.distanceTo(v), hops[v]);
+            } else {
+                assertEquals(-1, hops[v]);
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testHopDistancesMatchUnitDijkstra() {
+        // From sparse graphs that stay top-down to dense ones that go bottom-up for a few levels.
+        int[] numEdges = {2500, 6000, 40000};
+        for (int i = 0; i < numEdges.length; i++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(3000, numEdges[i], i);
+            Random rand = new Random(i);
+            for (int trial = 0; trial < 3; trial++) {
+                assertMatchesUnitDijkstra(graph, rand.nextInt(graph.numVertices()));
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testFewestEdgesPaths() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(2000, 5000, 5);
+        CompactGraph<Integer, SimpleEdge<Integer>> compact = graph.getCompactGraph();
+        Random rand = new Random(5);
+        for (int trial = 0; trial < 50; trial++) {
+            int start = rand.nextInt(graph.numVertices());
+            int end = rand.nextInt(graph.numVertices());
+            int[] hops = graph.findHopDistancesFrom(start);
+            try {
+                IList<SimpleEdge<Integer>> path = graph.findFewestEdgesPathBetween(start, end);
+                graphs.pathCost(path, start, end);
+                assertEquals(hops[compact.idOf(end)], path.size());
+            } catch (NoPathExistsException ex) {
+                assertTrue(hops[compact.idOf(end)] == -1 || compact.degree(compact.idOf(end)) == 0);
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testEdgeCases() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        assertTrue(graph.findFewestEdgesPathBetween("a", "a").isEmpty());
+        try {
+            graph.findFewestEdgesPathBetween("a", "h");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+        try {
+            graph.findHopDistancesFrom("nowhere");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        int[] hops = graph.findHopDistancesFrom("a");
+        CompactGraph<String, SimpleEdge<String>> compact = graph.getCompactGraph();
+        assertEquals(0, hops[compact.idOf("a")]);
+        assertEquals(-1, hops[compact.idOf("h")]);
+
+        SearchStats[] report = new SearchStats[1];
+        graph.setSearchListener(stats -> report[0] = stats);
+        graph.findFewestEdgesPathBetween("a", "e");
+        assertEquals(Operation.BREADTH_FIRST, report[0].getOperation());
+    }
+}
@@ -0,0 +1,174 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.graphs.Graph;
+import misc.graphs.MstAlgorithm;
+import misc.graphs.SearchMetrics;
+import misc.graphs.SearchStats;
+import misc.graphs.SearchStats.Metric;
+import misc.graphs.SearchStats.Operation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class TestSearchMetrics extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    // Installs a listener that keeps every report, and returns the list they go into.
+    private <V> IList<SearchStats> record(Graph<V, SimpleEdge<V>> graph) {
+        IList<SearchStats> reports = new DoubleLinkedList<>();
+        graph.setSearchListener(reports::add);
+        return reports;
+    }
+
+    @Test(timeout=SECOND)
+    public void testDijkstraCounters() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildSimpleGraph();
+        IList<SearchStats> reports = record(graph);
+
+        graph.findShortestPathBetween("a", "e");
+        assertEquals(1, reports.size());
+        SearchStats stats = reports.get(0);
+        assertEquals(Operation.DIJKSTRA, stats.getOperation());
+        assertTrue(stats.get(Metric.SETTLED_VERTICES) >= 2);
+        assertTrue(stats.get(Metric.RELAXED_EDGES) >= stats.get(Metric.SETTLED_VERTICES) - 1);
+        assertTrue(stats.get(Metric.HEAP_PUSHES) >= stats.get(Metric.SETTLED_VERTICES));
+        assertEquals(0L, stats.get(Metric.REOPENED_VERTICES));
+        assertEquals(0L, stats.get(Metric.REJECTED_EDGES));
+
+        // Queries answered without searching are not reported.
+        graph.findShortestPathBetween("a", "a");
+        assertEquals(1, reports.size());
+
+        graph.setSearchListener(null);
+        graph.findShortestPathBetween("a", "e");
+        assertEquals(1, reports.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testInconsistentHeuristicReopensVertices() {
+        IList<String> vertices = new DoubleLinkedList<>();
+        for (String vertex : new String[] {"s", "a", "b", "g"}) {
+            vertices.add(vertex);
+        }
+        IList<SimpleEdge<String>> edges = new DoubleLinkedList<>();
+        edges.add(graphs.edge("s", "a", 1));
+        edges.add(graphs.edge("a", "b", 1));
+        edges.add(graphs.edge("s", "b", 3));
+        edges.add(graphs.edge("b", "g", 10));
+        Graph<String, SimpleEdge<String>> graph = new Graph<>(vertices, edges);
+        IList<SearchStats> reports = record(graph);
+
+        // Admissible everywhere, but so pessimistic about 'a' that 'b' is expanded through the
+        // expensive edge first, and must be expanded again once the cheaper route shows up.
+        graph.findShortestPathBetween("s", "g", (vertex, goal) -> vertex.equals("a") ? 11 : 0);
+        SearchStats stats = reports.get(0);
+        assertEquals(Operation.A_STAR, stats.getOperation());
+        assertEquals(1L, stats.get(Metric.REOPENED_VERTICES));
+        assertEquals(5L, stats.get(Metric.SETTLED_VERTICES));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBidirectionalAndTreeSearchesAreReported() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildSimpleGraph();
+        IList<SearchStats> reports = record(graph);
+
+        graph.findShortestPathBidirectional("a", "e");
+        graph.findShortestPathsFrom("a");
+        assertEquals(Operation.BIDIRECTIONAL, reports.get(0).getOperation());
+        assertTrue(reports.get(0).get(Metric.SETTLED_VERTICES) > 0);
+        assertEquals(Operation.SHORTEST_PATH_TREE, reports.get(1).getOperation());
+        assertEquals((long) graph.numVertices(), reports.get(1).get(Metric.SETTLED_VERTICES));
+    }
+
+    @Test(timeout=SECOND)
+    public void testMinimumSpanningTreeCountsRejectedEdges() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(50, 200, 1);
+        IList<SearchStats> reports = record(graph);
+
+        int treeSize = graph.findMinimumSpanningTree(MstAlgorithm.PRIM).size();
+        SearchStats stats = reports.get(0);
+        assertEquals(Operation.MINIMUM_SPANNING_TREE, stats.getOperation());
+        assertEquals((long) graph.numEdges() - treeSize, stats.get(Metric.REJECTED_EDGES));
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testMinimumSpanningTreeCountsWorkPerAlgorithm() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(1000, 8000, 3);
+        IList<SearchStats> reports = record(graph);
+        long numEdges = graph.numEdges();
+
+        int treeSize = graph.findMinimumSpanningTree(MstAlgorithm.KRUSKAL).size();
+        SearchStats kruskal = reports.get(0);
+        assertEquals(numEdges, kruskal.get(Metric.RELAXED_EDGES));
+        assertEquals(numEdges, kruskal.get(Metric.UNION_OPERATIONS));
+        assertEquals(0L, kruskal.get(Metric.SETTLED_VERTICES));
+
+        // Prim looks at every adjacency entry of every vertex it settles, and uses no unions.
+        graph.findMinimumSpanningTree(MstAlgorithm.PRIM);
+        SearchStats prim = reports.get(1);
+        assertTrue(prim.get(Metric.SETTLED_VERTICES) > treeSize);
+        assertTrue(prim.get(Metric.RELAXED_EDGES) >= numEdges);
+        assertTrue(prim.get(Metric.HEAP_PUSHES) >= treeSize);
+        assertEquals(0L, prim.get(Metric.UNION_OPERATIONS));
+
+        // Filter-Kruskal never sorts the edges its filters drop.
+        graph.findMinimumSpanningTree(MstAlgorithm.FILTER_KRUSKAL);
+        SearchStats filterKruskal = reports.get(2);
+        assertTrue(filterKruskal.get(Metric.UNION_OPERATIONS) < numEdges);
+        assertTrue(filterKruskal.get(Metric.UNION_OPERATIONS) >= treeSize);
+
+        // Boruvka scans every edge in the first round, and unions only the picked edges.
+        graph.findMinimumSpanningTree(MstAlgorithm.PARALLEL_BORUVKA);
+        SearchStats boruvka = reports.get(3);
+        assertTrue(boruvka.get(Metric.RELAXED_EDGES) >= numEdges - graph.numVertices());
+        assertTrue(boruvka.get(Metric.UNION_OPERATIONS) >= treeSize);
+        assertTrue(boruvka.get(Metric.UNION_OPERATIONS) < numEdges);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(numEdges - treeSize, reports.get(i).get(Metric.REJECTED_EDGES));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testAggregatedHistograms() {
+        Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(200, 600, 2);
+        SearchMetrics metrics = new SearchMetrics();
+        IList<SearchStats> reports = new DoubleLinkedList<>();
+        graph.setSearchListener(stats -> {
+            reports.add(stats);
+            metrics.searchFinished(stats);
+        });
+
+        for (int i = 1; i < 100; i += 3) {
+            if (graph.isReachable(0, i)) {
+                graph.findShortestPathBetween(0, i);
+            }
+        }
+        long numSearches = reports.size();
+        long totalSettled = 0;
+        for (SearchStats stats : reports) {
+            totalSettled += stats.get(Metric.SETTLED_VERTICES);
+        }
+
+        assertTrue(numSearches > 0);
+        assertEquals(numSearches, metrics.numSearches(Operation.DIJKSTRA));
+        assertEquals(totalSettled, metrics.total(Operation.DIJKSTRA, Metric.SETTLED_VERTICES));
+        long inHistogram = 0;
+        for (long count : metrics.histogram(Operation.DIJKSTRA, Metric.SETTLED_VERTICES)) {
+            inHistogram += count;
+        }
+        assertEquals(numSearches, inHistogram);
+        assertTrue(metrics.percentile(Operation.DIJKSTRA, Metric.SETTLED_VERTICES, 1.0) >= 1);
+        assertTrue(metrics.percentile(Operation.DIJKSTRA, Metric.SETTLED_VERTICES, 1.0)
+                <= 2 * graph.numVertices());
+        assertEquals(0L, metrics.numSearches(Operation.A_STAR));
+
+        metrics.reset();
+        assertEquals(0L, metrics.numSearches(Operation.DIJKSTRA));
+        assertEquals(0L, metrics.total(Operation.DIJKSTRA, Metric.SETTLED_VERTICES));
+    }
+}
@@ -0,0 +1,78 @@
+package datastructures;
+
+import datastructures.TestGraph.SimpleEdge;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.Graph;
+import misc.graphs.ShortestPathCache;
+import org.junit.Test;
+import static org.junit.Assert.fail;
+
+public class TestShortestPathCache extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    @Test(timeout=SECOND)
+    public void testReusesTreesForBothEndpoints() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildComplexGraph();
+        ShortestPathCache<String, SimpleEdge<String>> cache = new ShortestPathCache<>(graph, 2);
+
+        assertEquals(6, graphs.pathCost(cache.findShortestPathBetween("a", "g"), "a", "g"), 0.0001);
+        assertEquals(0L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+
+        // Same source, different target.
+        assertEquals(6, graphs.pathCost(cache.findShortestPathBetween("a", "d"), "a", "d"), 0.0001);
+        // Reverse query is answered from the tree rooted at 'a'.
+        assertEquals(6, graphs.pathCost(cache.findShortestPathBetween("g", "a"), "g", "a"), 0.0001);
+        assertEquals(2L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testEvictsLeastRecentlyUsed() {
+        Graph<String, SimpleEdge<String>> graph = graphs.buildDisconnectedGraph();
+        ShortestPathCache<String, SimpleEdge<String>> cache = new ShortestPathCache<>(graph, 2);
+
+        cache.findShortestPathsFrom("a");
+        cache.findShortestPathsFrom("h");
+        cache.findShortestPathsFrom("a");
+        cache.findShortestPathsFrom("c");
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.evictionCount());
+
+        // 'h' was the least recently used tree, so it must have been evicted.
+        long misses = cache.missCount();
+        cache.findShortestPathsFrom("a");
+        assertEquals(misses, cache.missCount());
+        cache.findShortestPathsFrom("h");
+        assertEquals(misses + 1, cache.missCount());
+    }
+
+    @Test(timeout=SECOND)
+    public void testChangingGraphInvalidates() {
+        ShortestPathCache<String, SimpleEdge<String>> cache = new ShortestPathCache<>(4);
+        try {
+            cache.findShortestPathBetween("a", "b");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // All ok -- expected result
+        }
+
+        cache.setGraph(graphs.buildSimpleGraph());
+        assertEquals(7, graphs.pathCost(cache.findShortestPathBetween("a", "f"), "a", "f"), 0.0001);
+        assertEquals(1, cache.size());
+
+        cache.setGraph(cache.getGraph());
+        assertEquals(1, cache.size());
+
+        cache.setGraph(graphs.buildDisconnectedGraph());
+        assertEquals(0, cache.size());
+        try {
+            cache.findShortestPathBetween("a", "i");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package datastructures;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import datastructures.TestGraph.SimpleEdge;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.Graph;
+import misc.graphs.TreePathOracle;
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+public class TestTreePathOracle extends BaseTest {
+    private TestGraph graphs = new TestGraph();
+
+    private ISet<SimpleEdge<String>> buildSimpleTree() {
+        ISet<SimpleEdge<String>> tree = new ChainedHashSet<>();
+        tree.add(graphs.edge("a", "b", 2));
+        tree.add(graphs.edge("a", "c", 5));
+        tree.add(graphs.edge("b", "d", 1));
+        tree.add(graphs.edge("b", "e", 3));
+        tree.add(graphs.edge("e", "f", 4));
+
+        tree.add(graphs.edge("x", "y", 7));
+        return tree;
+    }
+
+    @Test(timeout=SECOND)
+    public void testSimpleTreeQueries() {
+        TreePathOracle<String, SimpleEdge<String>> oracle = new TreePathOracle<>(buildSimpleTree());
+
+        assertEquals(8, oracle.numVertices());
+        assertEquals(14, oracle.findPathLength("c", "f"), 0.0001);
+        assertEquals(4, oracle.numEdgesBetween("c", "f"));
+        assertEquals(3, oracle.findPathLength("d", "a"), 0.0001);
+        assertEquals(0, oracle.findPathLength("e", "e"), 0.0001);
+        assertEquals(7, oracle.findPathLength("y", "x"), 0.0001);
+
+        IList<SimpleEdge<String>> path = oracle.findPathBetween("d", "f");
+        assertEquals(3, path.size());
+        assertEquals(8, graphs.pathCost(path, "d", "f"), 0.0001);
+        assertEquals(0, oracle.findPathBetween("c", "c").size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDisconnectedAndUnknownVertices() {
+        TreePathOracle<String, SimpleEdge<String>> oracle = new TreePathOracle<>(buildSimpleTree());
+        assertTrue(oracle.isConnected("a", "f"));
+        assertFalse(oracle.isConnected("a", "x"));
+
+        try {
+            oracle.findPathBetween("a", "x");
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+
+        try {
+            oracle.findPathLength("a", "z");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testCycleNotPermitted() {
+        ISet<SimpleEdge<String>> edges = buildSimpleTree();
+        edges.add(graphs.edge("c", "f", 1));
+
+        try {
+            new TreePathOracle<>(edges);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testMatchesDijkstraOnSpanningTrees() {
+        for (int seed = 0; seed < 3; seed++) {
+            Graph<Integer, SimpleEdge<Integer>> graph = graphs.buildRandomGraph(500, 3000, seed);
+            ISet<SimpleEdge<Integer>> mst = graph.findMinimumSpanningTree();
+
+            IList<Integer> vertices = new DoubleLinkedList<>();
+            for (int i = 0; i < 500; i++) {
+                vertices.add(i);
+            }
+            IList<SimpleEdge<Integer>> treeEdges = new DoubleLinkedList<>();
+            for (SimpleEdge<Integer> edge : mst) {
+                treeEdges.add(edge);
+            }
+            Graph<Integer, SimpleEdge<Integer>> tree = new Graph<>(vertices, treeEdges);
+            TreePathOracle<Integer, SimpleEdge<Integer>> oracle = new TreePathOracle<>(mst);
+
+            Random rand = new Random(seed);
+            for (int query = 0; query < 200; query++) {
+                int a = rand.nextInt(500);
+                int b = rand.nextInt(500);
+                IList<SimpleEdge<Integer>> expected = tree.findShortestPathBetween(a, b);
+                IList<SimpleEdge<Integer>> actual = oracle.findPathBetween(a, b);
+
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected.size(), oracle.numEdgesBetween(a, b));
+                assertEquals(graphs.pathCost(expected, a, b), graphs.pathCost(actual, a, b), 0.0001);
+                assertEquals(graphs.pathCost(expected, a, b), oracle.findPathLength(a, b), 0.0001);
+            }
+        }
+    }
+}
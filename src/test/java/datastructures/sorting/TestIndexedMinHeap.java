@@ -0,0 +1,153 @@
+package datastructures.sorting;
+
+import datastructures.concrete.IndexedMinHeap;
+import misc.BaseTest;
+import misc.exceptions.EmptyContainerException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestIndexedMinHeap extends BaseTest {
+    @Test(timeout=SECOND)
+    public void testRemovesInKeyOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        double[] keys = {5, 3, 8, 1, 9, 2, 7, 0, 6, 4};
+        for (int i = 0; i < keys.length; i++) {
+            heap.insert(i, keys[i]);
+        }
+        assertEquals(10, heap.size());
+
+        for (int expected = 0; expected < 10; expected++) {
+            assertEquals(expected, heap.peekMinKey(), 0.0);
+            int id = heap.removeMin();
+            assertEquals(expected, keys[id], 0.0);
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testDecreaseKeyMovesToFront() {
+        IndexedMinHeap heap = new IndexedMinHeap(5);
+        for (int i = 0; i < 5; i++) {
+            heap.insert(i, 10 + i);
+        }
+
+        heap.decreaseKey(4, 1);
+        assertEquals(4, heap.peekMin());
+
+        // Raising a key through decreaseKey is ignored.
+        heap.decreaseKey(0, 100);
+        assertEquals(10, heap.keyOf(0), 0.0);
+
+        assertFalse(heap.insertOrDecrease(1, 50));
+        assertTrue(heap.insertOrDecrease(1, 0));
+        assertEquals(1, heap.removeMin());
+        assertFalse(heap.contains(1));
+    }
+
+    @Test(timeout=SECOND)
+    public void testEqualKeysBreakTiesById() {
+        IndexedMinHeap heap = new IndexedMinHeap(6);
+        heap.insert(5, 1.0);
+        heap.insert(2, 1.0);
+        heap.insert(4, 1.0);
+        heap.insert(0, 1.0);
+
+        assertEquals(0, heap.removeMin());
+        assertEquals(2, heap.removeMin());
+        assertEquals(4, heap.removeMin());
+        assertEquals(5, heap.removeMin());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemoveFromMiddle() {
+        IndexedMinHeap heap = new IndexedMinHeap(20);
+        for (int i = 0; i < 20; i++) {
+            heap.insert(i, (i * 7) % 20);
+        }
+
+        // Removes ids from the root, the middle and the last slot of the heap.
+        heap.remove(0);
+        heap.remove(13);
+        heap.remove(19);
+        assertFalse(heap.contains(13));
+        assertEquals(17, heap.size());
+
+        double previous = -1;
+        while (!heap.isEmpty()) {
+            double key = heap.peekMinKey();
+            int id = heap.removeMin();
+            assertTrue(id != 0 && id != 13 && id != 19);
+            assertTrue(key > previous);
+            previous = key;
+        }
+
+        try {
+            heap.remove(5);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testClearAllowsReuse() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.insert(0, 1);
+        heap.insert(1, 2);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+        heap.insert(0, 3);
+        assertEquals(0, heap.removeMin());
+    }
+
+    @Test(timeout=SECOND)
+    public void testInvalidOperationsThrow() {
+        IndexedMinHeap heap = new IndexedMinHeap(2);
+        try {
+            heap.removeMin();
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // All ok -- expected result
+        }
+
+        heap.insert(0, 1);
+        try {
+            heap.insert(0, 2);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        try {
+            heap.decreaseKey(1, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testStress() {
+        int size = 200000;
+        IndexedMinHeap heap = new IndexedMinHeap(size);
+        for (int i = 0; i < size; i++) {
+            heap.insert(i, size - i);
+        }
+        for (int i = 0; i < size; i += 2) {
+            heap.decreaseKey(i, -i);
+        }
+
+        double previous = Double.NEGATIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            double key = heap.peekMinKey();
+            assertTrue(key >= previous);
+            previous = key;
+            heap.removeMin();
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package mazes;
+
+import datastructures.concrete.ChainedHashSet;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import datastructures.interfaces.ISet;
+import mazes.entities.Maze;
+import mazes.entities.Room;
+import mazes.entities.RoomGeometry;
+import mazes.entities.Wall;
+import mazes.generators.base.BaseMazeGenerator;
+import mazes.generators.base.GridGenerator;
+import mazes.generators.base.VoronoiGenerator;
+import mazes.generators.maze.KruskalMazeCarver;
+import mazes.generators.maze.RandomMazeCarver;
+import mazes.solvers.GridJumpPointSearch;
+import mazes.solvers.HierarchicalPathfinder;
+import mazes.solvers.PackedGridMaze;
+import mazes.solvers.RoomDistanceHeuristic;
+import misc.BaseTest;
+import misc.exceptions.NoPathExistsException;
+import misc.graphs.CompactGraph;
+import misc.graphs.Graph;
+import misc.graphs.LandmarkHeuristic;
+import misc.graphs.MappedGraph;
+import misc.graphs.MstAlgorithm;
+import misc.graphs.SearchStats.Metric;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestMazeSolvers extends BaseTest {
+    protected static final Rectangle BOUNDS = new Rectangle(0, 0, 800, 600);
+
+    /**
+     * Builds the graph of open passages in a carved grid maze: one vertex per room, and one
+     * edge per wall the carver removed.
+     */
+    protected Graph<Room, Wall> buildGridMazeGraph(int rows, int columns, double keepProbability) {
+        Maze base = new GridGenerator(rows, columns).generateBaseMaze(BOUNDS);
+        Maze carved = new RandomMazeCarver(keepProbability).generateMaze(base);
+
+        ISet<Wall> passages = new ChainedHashSet<>();
+        for (Wall wall : base.getWalls()) {
+            if (!carved.getWalls().contains(wall)) {
+                passages.add(wall);
+            }
+        }
+        return new Graph<>(base.getRooms(), passages);
+    }
+
+    protected Room roomAt(Graph<Room, Wall> graph, int x, int y) {
+        for (int i = 0; i < graph.numVertices(); i++) {
+            Room room = graph.getCompactGraph().vertexAt(i);
+            if (room.contains(new Point(x, y))) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    protected double pathCost(IList<Wall> path) {
+        double cost = 0.0;
+        for (Wall wall : path) {
+            cost += wall.getWeight();
+        }
+        return cost;
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testAStarMatchesDijkstraOnGridMazes() {
+        for (int trial = 0; trial < 5; trial++) {
+            Graph<Room, Wall> graph = buildGridMazeGraph(30, 40, 0.4);
+            Room start = roomAt(graph, 5, 5);
+            Room end = roomAt(graph, BOUNDS.width - 5, BOUNDS.height - 5);
+
+            double expected;
+            try {
+                expected = pathCost(graph.findShortestPathBetween(start, end));
+            } catch (NoPathExistsException ex) {
+                expected = -1;
+            }
+
+            double actual;
+            try {
+                actual = pathCost(graph.findShortestPathBetween(start, end, new RoomDistanceHeuristic()));
+            } catch (NoPathExistsException ex) {
+                actual = -1;
+            }
+
+            assertEquals(expected, actual, 0.0001);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testJumpPointSearchMatchesDijkstraOnGridMazes() {
+        // From fully open grids, where jumps are longest, to sparse ones that barely connect.
+        double[] keepProbabilities = {0.0, 0.1, 0.3, 0.5, 0.7};
+        Random rand = new Random(11);
+        for (double keepProbability : keepProbabilities) {
+            Graph<Room, Wall> graph = buildGridMazeGraph(23, 37, keepProbability);
+            GridJumpPointSearch solver = new GridJumpPointSearch(graph);
+
+            for (int i = 0; i < 50; i++) {
+                Room start = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+                Room end = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+
+                double expected;
+                try {
+                    expected = pathCost(graph.findShortestPathBetween(start, end));
+                } catch (NoPathExistsException ex) {
+                    expected = -1;
+                }
+
+                double actual;
+                try {
+                    IList<Wall> path = solver.findShortestPathBetween(start, end);
+                    assertConnects(path, start, end);
+                    actual = pathCost(path);
+                } catch (NoPathExistsException ex) {
+                    actual = -1;
+                }
+
+                assertEquals(expected, actual, 0.0001);
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testJumpPointSearchRejectsNonGrids() {
+        Maze base = new GridGenerator(3, 3).generateBaseMaze(BOUNDS);
+        Graph<Room, Wall> full = new Graph<>(base.getRooms(), base.getWalls());
+        Room corner = roomAt(full, 5, 5);
+        Room center = roomAt(full, BOUNDS.width / 2, BOUNDS.height / 2);
+
+        // A diagonal passage does not join two adjacent rooms.
+        ISet<Wall> walls = new ChainedHashSet<>();
+        for (Wall wall : base.getWalls()) {
+            walls.add(wall);
+        }
+        walls.add(new Wall(corner, center, base.getWalls().iterator().next().getDividingLine()));
+        try {
+            new GridJumpPointSearch(new Graph<>(base.getRooms(), walls));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        // Neither does a grid with a room missing.
+        ISet<Room> rooms = new ChainedHashSet<>();
+        for (Room room : base.getRooms()) {
+            if (!room.equals(center)) {
+                rooms.add(room);
+            }
+        }
+        try {
+            new GridJumpPointSearch(new Graph<>(rooms, new ChainedHashSet<Wall>()));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testSnapshotRebuildsRoomsAndPaths() throws IOException {
+        Graph<Room, Wall> graph = buildGridMazeGraph(20, 30, 0.3);
+        Path file = Files.createTempFile("maze", ".snapshot");
+        file.toFile().deleteOnExit();
+        MappedGraph.write(graph, new RoomGeometry(), file);
+        MappedGraph mapped = MappedGraph.open(file);
+
+        for (int id = 0; id < graph.numVertices(); id++) {
+            Room room = graph.getCompactGraph().vertexAt(id);
+            assertEquals(room, RoomGeometry.roomAt(mapped, id));
+            assertEquals(id, mapped.findNearestVertex(room.getCenter().x, room.getCenter().y));
+        }
+        for (int id = 0; id < graph.numEdges(); id++) {
+            assertEquals(graph.getCompactGraph().edgeAt(id), RoomGeometry.wallAt(mapped, id));
+        }
+
+        Random rand = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            int start = rand.nextInt(graph.numVertices());
+            int end = rand.nextInt(graph.numVertices());
+            Room startRoom = graph.getCompactGraph().vertexAt(start);
+            Room endRoom = graph.getCompactGraph().vertexAt(end);
+            try {
+                IList<Wall> expected = graph.findShortestPathBetween(startRoom, endRoom);
+                IList<Wall> actual = RoomGeometry.wallsAt(mapped, mapped.findShortestPathBetween(start, end));
+                assertConnects(actual, startRoom, endRoom);
+                assertEquals(pathCost(expected), pathCost(actual), 0.0001);
+            } catch (NoPathExistsException ex) {
+                try {
+                    mapped.findShortestPathBetween(start, end);
+                    fail("Expected NoPathExistsException");
+                } catch (NoPathExistsException expected) {
+                    // All ok -- expected result
+                }
+            }
+        }
+    }
+
+    // Checks that the walls form a walk from the start to the end.
+    @Test(timeout=10 * SECOND)
+    public void testPackedGridMatchesGraphBreadthFirstSearch() {
+        // Wider than two words, so fills and frontiers cross word boundaries.
+        double[] keepProbabilities = {0.0, 0.3, 0.5};
+        Random rand = new Random(13);
+        for (double keepProbability : keepProbabilities) {
+            Graph<Room, Wall> graph = buildGridMazeGraph(12, 150, keepProbability);
+            PackedGridMaze packed = new PackedGridMaze(graph);
+            CompactGraph<Room, Wall> compact = graph.getCompactGraph();
+            assertEquals(12, packed.numRows());
+            assertEquals(150, packed.numColumns());
+
+            for (int i = 0; i < 5; i++) {
+                Room start = compact.vertexAt(rand.nextInt(graph.numVertices()));
+                int[] expected = graph.findHopDistancesFrom(start);
+                int[] actual = packed.hopDistancesFrom(packed.rowOf(start), packed.columnOf(start));
+
+                long reachable = 0;
+                for (int v = 0; v < compact.numVertices(); v++) {
+                    Room room = compact.vertexAt(v);
+                    int row = packed.rowOf(room);
+                    int column = packed.columnOf(room);
+                    assertEquals(expected[v], actual[row * packed.numColumns() + column]);
+                    reachable += expected[v] == -1 ? 0 : 1;
+                }
+                assertEquals(reachable, packed.countReachable(packed.rowOf(start), packed.columnOf(start)));
+
+                Room end = compact.vertexAt(rand.nextInt(graph.numVertices()));
+                int hops = packed.hopDistance(packed.rowOf(start), packed.columnOf(start),
+                        packed.rowOf(end), packed.columnOf(end));
+                assertEquals(expected[compact.idOf(end)], hops);
+                assertEquals(hops != -1, packed.isReachable(packed.rowOf(start), packed.columnOf(start),
+                        packed.rowOf(end), packed.columnOf(end)));
+            }
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testPackedGridFloodFillsAcrossWords() {
+        // A single corridor snaking through every row, with each row's passages ending on a word
+        // boundary at one side or the other.
+        int numRows = 9;
+        int numColumns = 128;
+        PackedGridMaze packed = new PackedGridMaze(numRows, numColumns);
+        for (int row = 0; row < numRows; row++) {
+            for (int column = 0; column + 1 < numColumns; column++) {
+                packed.setOpenEast(row, column, true);
+            }
+            if (row + 1 < numRows) {
+                packed.setOpenSouth(row, row % 2 == 0 ? numColumns - 1 : 0, true);
+            }
+        }
+        assertEquals((long) numRows * numColumns, packed.countReachable(0, 0));
+        assertEquals(numRows * numColumns - 1, packed.hopDistance(0, 0, numRows - 1, numColumns - 1));
+        assertEquals((numRows - 1) * numColumns, packed.hopDistance(0, 0, numRows - 1, 0));
+
+        // Closing one passage cuts off everything after it.
+        packed.setOpenEast(4, 63, false);
+        assertEquals(4L * numColumns + 64, packed.countReachable(0, 0));
+        assertEquals(-1, packed.hopDistance(0, 0, numRows - 1, 0));
+        assertTrue(packed.isReachable(numRows - 1, 0, 4, 64));
+        assertFalse(packed.isReachable(numRows - 1, 0, 4, 63));
+        assertFalse(packed.isOpenEast(4, 63));
+        assertTrue(packed.isOpenSouth(3, 0));
+
+        try {
+            packed.setOpenEast(0, numColumns - 1, true);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            packed.rowOf(new GridGenerator(1, 1).generateBaseMaze(BOUNDS).getRoom(new Point(5, 5)));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testCarvingInParallelLeavesBaseMazeUntouched() throws Exception {
+        Maze base = new GridGenerator(30, 40).generateBaseMaze(BOUNDS);
+        double[] distances = new double[base.getWalls().size()];
+        int index = 0;
+        for (Wall wall : base.getWalls()) {
+            distances[index++] = wall.getDistance();
+        }
+
+        Graph<Room, Wall> baseGraph = new Graph<>(base.getRooms(), base.getWalls());
+        KruskalMazeCarver carver = new KruskalMazeCarver();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            IList<Future<ISet<Wall>>> carvings = new DoubleLinkedList<>();
+            for (int i = 0; i < 8; i++) {
+                long seed = i;
+                carvings.add(executor.submit(() -> carver.returnWallsToRemove(baseGraph, new Random(seed))));
+            }
+            for (Future<ISet<Wall>> carving : carvings) {
+                // A spanning tree of the rooms: every room reachable, without a wall to spare.
+                ISet<Wall> removed = carving.get();
+                assertEquals(base.getRooms().size() - 1, removed.size());
+                assertEquals(1, new Graph<>(base.getRooms(), removed).getCompactGraph().numComponents());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        index = 0;
+        for (Wall wall : base.getWalls()) {
+            assertEquals(distances[index++], wall.getDistance(), 0.0);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testLandmarksBeatStraightLinesInPerfectMazes() {
+        Maze base = new GridGenerator(30, 40).generateBaseMaze(BOUNDS);
+        ISet<Wall> passages = new KruskalMazeCarver().returnWallsToRemove(
+                new Graph<>(base.getRooms(), base.getWalls()), new Random(41));
+        Graph<Room, Wall> graph = new Graph<>(base.getRooms(), passages);
+        LandmarkHeuristic<Room, Wall> landmarks = new LandmarkHeuristic<>(graph, 8);
+        RoomDistanceHeuristic straightLine = new RoomDistanceHeuristic();
+
+        long[] settled = new long[1];
+        graph.setSearchListener(stats -> settled[0] += stats.get(Metric.SETTLED_VERTICES));
+        long settledWithLandmarks = 0;
+        long settledWithStraightLines = 0;
+        Random rand = new Random(41);
+        for (int i = 0; i < 50; i++) {
+            Room start = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+            Room end = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+
+            settled[0] = 0;
+            IList<Wall> path = graph.findShortestPathBetween(start, end, landmarks);
+            settledWithLandmarks += settled[0];
+            assertConnects(path, start, end);
+
+            settled[0] = 0;
+            double expected = pathCost(graph.findShortestPathBetween(start, end, straightLine));
+            settledWithStraightLines += settled[0];
+            assertEquals(expected, pathCost(path), 0.0001);
+        }
+        assertTrue(settledWithLandmarks < settledWithStraightLines / 2);
+    }
+
+    // Checks the pathfinder against Dijkstra on the graph, for random pairs of rooms.
+    private void assertMatchesDijkstra(HierarchicalPathfinder solver, Graph<Room, Wall> graph, Random rand) {
+        for (int i = 0; i < 40; i++) {
+            Room start = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+            Room end = graph.getCompactGraph().vertexAt(rand.nextInt(graph.numVertices()));
+
+            double expected;
+            try {
+                expected = pathCost(graph.findShortestPathBetween(start, end));
+            } catch (NoPathExistsException ex) {
+                expected = -1;
+            }
+
+            double actual;
+            try {
+                IList<Wall> path = solver.findShortestPathBetween(start, end);
+                assertConnects(path, start, end);
+                actual = pathCost(path);
+            } catch (NoPathExistsException ex) {
+                actual = -1;
+            }
+
+            assertEquals(expected, actual, 0.0001);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testHierarchicalPathfinderMatchesDijkstra() {
+        // From clusters of a single room to a single cluster holding the whole maze.
+        int[][] clusterSizes = {{1, 1}, {50, 50}, {120, 90}, {800, 30}, {1000, 1000}};
+        double[] keepProbabilities = {0.0, 0.3, 0.6};
+        Random rand = new Random(13);
+        for (double keepProbability : keepProbabilities) {
+            Graph<Room, Wall> graph = buildGridMazeGraph(23, 37, keepProbability);
+            for (int[] size : clusterSizes) {
+                HierarchicalPathfinder solver = new HierarchicalPathfinder(graph, size[0], size[1]);
+                assertMatchesDijkstra(solver, graph, rand);
+            }
+        }
+
+        Graph<Room, Wall> graph = buildGridMazeGraph(23, 37, 0.3);
+        assertEquals(1, new HierarchicalPathfinder(graph, 1000, 1000).numClusters());
+        assertEquals(0, new HierarchicalPathfinder(graph, 1000, 1000).numEntrances());
+        assertEquals(23 * 37, new HierarchicalPathfinder(graph, 1, 1).numClusters());
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testHierarchicalPathfinderFollowsEdits() {
+        Maze base = new GridGenerator(20, 30).generateBaseMaze(BOUNDS);
+        Maze carved = new RandomMazeCarver(0.5).generateMaze(base);
+        ISet<Wall> open = new ChainedHashSet<>();
+        IList<Wall> allWalls = new DoubleLinkedList<>();
+        for (Wall wall : base.getWalls()) {
+            allWalls.add(wall);
+            if (!carved.getWalls().contains(wall)) {
+                open.add(wall);
+            }
+        }
+
+        HierarchicalPathfinder solver = new HierarchicalPathfinder(new Graph<>(base.getRooms(), open), 100, 100);
+        Random rand = new Random(17);
+        for (int round = 0; round < 6; round++) {
+            for (int i = 0; i < 25; i++) {
+                Wall wall = allWalls.get(rand.nextInt(allWalls.size()));
+                if (open.contains(wall)) {
+                    solver.closePassage(wall);
+                    open.remove(wall);
+                } else {
+                    solver.openPassage(wall);
+                    open.add(wall);
+                }
+                assertEquals(open.contains(wall), solver.isOpen(wall));
+            }
+            assertMatchesDijkstra(solver, new Graph<>(base.getRooms(), open), rand);
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testHierarchicalPathfinderEdgeCases() {
+        Graph<Room, Wall> graph = buildGridMazeGraph(4, 4, 0.0);
+        HierarchicalPathfinder solver = new HierarchicalPathfinder(graph, 300, 300);
+        Room corner = roomAt(graph, 5, 5);
+        assertTrue(solver.findShortestPathBetween(corner, corner).isEmpty());
+
+        Wall passage = graph.getCompactGraph().edgeAt(0);
+        try {
+            solver.openPassage(passage);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        solver.closePassage(passage);
+        try {
+            solver.closePassage(passage);
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException ex) {
+            // All ok -- expected result
+        }
+
+        Room stranger = new GridGenerator(1, 1).generateBaseMaze(BOUNDS).getRoom(new Point(5, 5));
+        try {
+            solver.findShortestPathBetween(corner, stranger);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new HierarchicalPathfinder(graph, 0, 10);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+
+        // Cutting a corner room off from the rest.
+        CompactGraph<Room, Wall> compact = graph.getCompactGraph();
+        for (int edge = 0; edge < compact.numEdges(); edge++) {
+            Wall wall = compact.edgeAt(edge);
+            if (solver.isOpen(wall) && (wall.getRoom1().equals(corner) || wall.getRoom2().equals(corner))) {
+                solver.closePassage(wall);
+            }
+        }
+        try {
+            solver.findShortestPathBetween(corner, roomAt(graph, BOUNDS.width - 5, BOUNDS.height - 5));
+            fail("Expected NoPathExistsException");
+        } catch (NoPathExistsException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    private void assertConnects(IList<Wall> path, Room start, Room end) {
+        Room current = start;
+        for (Wall wall : path) {
+            if (wall.getRoom1().equals(current)) {
+                current = wall.getRoom2();
+            } else {
+                assertEquals(wall.getRoom2(), current);
+                current = wall.getRoom1();
+            }
+        }
+        assertEquals(end, current);
+    }
+
+    // Checks that every minimum spanning tree algorithm carves the same maze out of the base
+    // maze, with random weights just like KruskalMazeCarver assigns.
+    private void assertMstAlgorithmsAgree(BaseMazeGenerator generator) {
+        Maze maze = generator.generateBaseMaze(BOUNDS);
+        Random rand = new Random(1);
+        double[] weights = new double[maze.getWalls().size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = rand.nextDouble();
+        }
+        Graph<Room, Wall> graph = new Graph<>(maze.getRooms(), maze.getWalls()).withWeights(weights);
+
+        ISet<Wall> expected = graph.findMinimumSpanningTree(MstAlgorithm.KRUSKAL);
+        for (MstAlgorithm algorithm : MstAlgorithm.values()) {
+            ISet<Wall> actual = graph.findMinimumSpanningTree(algorithm);
+            assertEquals(expected.size(), actual.size());
+            for (Wall wall : expected) {
+                assertTrue(actual.contains(wall));
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testEveryMstAlgorithmCarvesTheSameMaze() {
+        assertMstAlgorithmsAgree(new GridGenerator(60, 60));
+        assertMstAlgorithmsAgree(new VoronoiGenerator(800, 10, 10, 5));
+    }
+}